@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.DefaultMessageWriter;
+import org.jboss.galleon.MessageWriter;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningOption;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.layout.ProvisioningLayoutFactory;
+import org.jboss.galleon.runtime.ProvisioningRuntime;
+import org.jboss.galleon.runtime.ProvisioningRuntimeBuilder;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures building the provisioning runtime, i.e. resolving the packages and the configs
+ * of the synthetic feature-packs and ordering the features of the configs. The feature-packs are resolved
+ * by the layout factory once per trial.
+ *
+ * The arranger parameter selects the config arranger: comparing the default branched arranger
+ * with the spec-only one shows the cost of ordering the features by their references.
+ *
+ * @author Alexey Loubyansky
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConfigResolutionBenchmark extends FeaturePackRepoBenchmark {
+
+    private static final String DEFAULT_ARRANGER = "default";
+
+    @Param({DEFAULT_ARRANGER, Constants.CONFIG_ARRANGER_SPEC_ONLY})
+    public String arranger;
+
+    @Param({"1", "4"})
+    public int configResolutionThreads;
+
+    private ProvisioningLayoutFactory layoutFactory;
+    private ProvisioningConfig rtConfig;
+    private final MessageWriter log = new DefaultMessageWriter();
+
+    @Setup
+    public void setupLayoutFactory() throws ProvisioningException {
+        if(DEFAULT_ARRANGER.equals(arranger)) {
+            System.clearProperty(Constants.PROP_CONFIG_ARRANGER);
+        } else {
+            System.setProperty(Constants.PROP_CONFIG_ARRANGER, arranger);
+        }
+        rtConfig = ProvisioningConfig.builder(config)
+                .addOption(ProvisioningOption.CONFIG_RESOLUTION_THREADS.getName(), String.valueOf(configResolutionThreads))
+                .build();
+        layoutFactory = ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(repo).build());
+    }
+
+    @TearDown
+    public void tearDownLayoutFactory() {
+        layoutFactory.close();
+        System.clearProperty(Constants.PROP_CONFIG_ARRANGER);
+    }
+
+    @Benchmark
+    public int buildRuntime() throws ProvisioningException {
+        try (ProvisioningRuntime rt = ProvisioningRuntimeBuilder.newInstance(log).initLayout(layoutFactory, rtConfig).build()) {
+            return rt.getConfigs().size();
+        }
+    }
+}
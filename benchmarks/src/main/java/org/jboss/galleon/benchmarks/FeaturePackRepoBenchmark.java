@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.benchmarks;
+
+import java.nio.file.Path;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.repo.RepositoryArtifactResolver;
+import org.jboss.galleon.util.IoUtils;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base for the benchmarks that need a repository of synthetic feature-packs.
+ * The scale of the feature-packs is configured with the parameters of this class,
+ * e.g. -p featurePacks=50 -p features=100
+ *
+ * @author Alexey Loubyansky
+ */
+@State(Scope.Benchmark)
+public abstract class FeaturePackRepoBenchmark {
+
+    @Param("10")
+    public int featurePacks;
+
+    @Param("20")
+    public int packages;
+
+    @Param("10")
+    public int files;
+
+    @Param("10")
+    public int specs;
+
+    @Param("20")
+    public int features;
+
+    @Param("2")
+    public int configs;
+
+    protected Path workDir;
+    protected RepositoryArtifactResolver repo;
+    protected ProvisioningConfig config;
+
+    @Setup
+    public void setupRepo() throws ProvisioningException {
+        workDir = IoUtils.createRandomTmpDir();
+        repo = SyntheticFeaturePacks.newRepo(workDir.resolve("repo"));
+        config = new SyntheticFeaturePacks()
+                .setFeaturePacks(featurePacks)
+                .setPackages(packages)
+                .setFiles(files)
+                .setSpecs(specs)
+                .setFeatures(features)
+                .setConfigs(configs)
+                .install(repo);
+    }
+
+    @TearDown
+    public void tearDownRepo() {
+        IoUtils.recursiveDelete(workDir);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.diff.FsDiff;
+import org.jboss.galleon.diff.FsEntryFactory;
+import org.jboss.galleon.util.IoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the diff of two directory trees, one of which is a copy of the other
+ * with a percentage of its files modified.
+ *
+ * @author Alexey Loubyansky
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FsDiffBenchmark {
+
+    private static final int FILES_PER_DIR = 50;
+
+    @Param("2000")
+    public int files;
+
+    @Param("4096")
+    public int fileSize;
+
+    @Param("5")
+    public int modifiedPercent;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path workDir;
+    private Path original;
+    private Path other;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = IoUtils.createRandomTmpDir();
+        original = workDir.resolve("original");
+        other = workDir.resolve("other");
+        final byte[] content = new byte[fileSize];
+        for(int i = 0; i < content.length; ++i) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        final int modifiedEvery = modifiedPercent <= 0 ? 0 : Math.max(1, 100 / modifiedPercent);
+        for(int i = 0; i < files; ++i) {
+            final String relativePath = "dir" + i / FILES_PER_DIR + "/file" + i + ".txt";
+            final Path originalFile = original.resolve(relativePath);
+            Files.createDirectories(originalFile.getParent());
+            Files.write(originalFile, content);
+            final Path otherFile = other.resolve(relativePath);
+            Files.createDirectories(otherFile.getParent());
+            if(modifiedEvery > 0 && i % modifiedEvery == 0) {
+                final byte[] modified = content.clone();
+                modified[modified.length / 2] = '#';
+                Files.write(otherFile, modified);
+            } else {
+                Files.write(otherFile, content);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        IoUtils.recursiveDelete(workDir);
+    }
+
+    @Benchmark
+    public FsDiff diff() throws ProvisioningException {
+        final FsEntryFactory factory = FsEntryFactory.getInstance();
+        return FsDiff.diff(factory.forPath(original), factory.forPath(other), threads);
+    }
+}
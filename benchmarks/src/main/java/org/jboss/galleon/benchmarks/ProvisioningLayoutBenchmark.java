@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.layout.FeaturePackLayout;
+import org.jboss.galleon.layout.ProvisioningLayout;
+import org.jboss.galleon.layout.ProvisioningLayoutFactory;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures building the layout of the synthetic feature-packs, including their resolution
+ * by a new layout factory.
+ *
+ * @author Alexey Loubyansky
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProvisioningLayoutBenchmark extends FeaturePackRepoBenchmark {
+
+    @Param({"1", "4"})
+    public int resolutionThreads;
+
+    @Benchmark
+    public int layout() throws ProvisioningException {
+        try (ProvisioningLayoutFactory layoutFactory = ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(repo).build())) {
+            layoutFactory.setResolutionThreads(resolutionThreads);
+            try (ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(config)) {
+                return layout.getOrderedFeaturePacks().size();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.benchmarks;
+
+import java.nio.file.Path;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackBuilder;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.creator.PackageBuilder;
+import org.jboss.galleon.repo.RepositoryArtifactResolver;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureReferenceSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1RepositoryManager;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+
+/**
+ * Generates synthetic feature-packs of a configurable scale into a local repository.
+ *
+ * Each feature-pack depends on the previous one. Its packages depend on the previous package
+ * and contain the configured number of files. Its feature specs reference the previous spec,
+ * and its configs include features of every spec listed in the reverse order of the references,
+ * so that the config arranger has to re-order them.
+ *
+ * @author Alexey Loubyansky
+ */
+public class SyntheticFeaturePacks {
+
+    public static final String MODEL = "model";
+
+    private int featurePacks = 10;
+    private int packages = 20;
+    private int files = 10;
+    private int fileSize = 1024;
+    private int specs = 10;
+    private int features = 20;
+    private int configs = 2;
+
+    public SyntheticFeaturePacks setFeaturePacks(int featurePacks) {
+        this.featurePacks = featurePacks;
+        return this;
+    }
+
+    public SyntheticFeaturePacks setPackages(int packages) {
+        this.packages = packages;
+        return this;
+    }
+
+    public SyntheticFeaturePacks setFiles(int files) {
+        this.files = files;
+        return this;
+    }
+
+    public SyntheticFeaturePacks setFileSize(int fileSize) {
+        this.fileSize = fileSize;
+        return this;
+    }
+
+    public SyntheticFeaturePacks setSpecs(int specs) {
+        this.specs = specs;
+        return this;
+    }
+
+    public SyntheticFeaturePacks setFeatures(int features) {
+        this.features = features;
+        return this;
+    }
+
+    public SyntheticFeaturePacks setConfigs(int configs) {
+        this.configs = configs;
+        return this;
+    }
+
+    public static RepositoryArtifactResolver newRepo(Path repoHome) {
+        return LegacyGalleon1RepositoryManager.newInstance(repoHome);
+    }
+
+    public static FPID getFPID(int i) {
+        return LegacyGalleon1Universe.newFPID("org.jboss.galleon.benchmarks:fp" + i, "1", "1.0.0.Final");
+    }
+
+    /**
+     * Installs the feature-packs into the repository and returns the provisioning configuration
+     * that installs all of them.
+     *
+     * @param repo  repository to install the feature-packs to
+     * @return  provisioning configuration including the last generated feature-pack
+     * @throws ProvisioningException  in case of a failure
+     */
+    public ProvisioningConfig install(RepositoryArtifactResolver repo) throws ProvisioningException {
+        final FeaturePackCreator creator = FeaturePackCreator.getInstance().addArtifactResolver(repo);
+        final String content = newContent(fileSize);
+        for(int fpIndex = 0; fpIndex < featurePacks; ++fpIndex) {
+            final FeaturePackBuilder fp = creator.newFeaturePack(getFPID(fpIndex));
+            if(fpIndex > 0) {
+                fp.addDependency(getFPID(fpIndex - 1).getLocation());
+            }
+            for(int pkgIndex = 0; pkgIndex < packages; ++pkgIndex) {
+                final PackageBuilder pkg = fp.newPackage("p" + pkgIndex, true);
+                if(pkgIndex > 0) {
+                    pkg.addDependency("p" + (pkgIndex - 1));
+                }
+                for(int fileIndex = 0; fileIndex < files; ++fileIndex) {
+                    pkg.writeContent("fp" + fpIndex + "/p" + pkgIndex + "/file" + fileIndex + ".txt", content);
+                }
+            }
+            for(int specIndex = 0; specIndex < specs; ++specIndex) {
+                final FeatureSpec.Builder spec = FeatureSpec.builder("fp" + fpIndex + "spec" + specIndex)
+                        .addParam(FeatureParameterSpec.createId("id"));
+                if(specIndex > 0) {
+                    spec.addFeatureRef(FeatureReferenceSpec.builder("fp" + fpIndex + "spec" + (specIndex - 1))
+                            .mapParam("parent", "id")
+                            .build())
+                    .addParam(FeatureParameterSpec.create("parent"));
+                }
+                fp.addFeatureSpec(spec.build());
+            }
+            for(int configIndex = 0; configIndex < configs; ++configIndex) {
+                final ConfigModel.Builder config = ConfigModel.builder(MODEL, "fp" + fpIndex + "config" + configIndex);
+                for(int specIndex = specs - 1; specIndex >= 0; --specIndex) {
+                    for(int featureIndex = 0; featureIndex < features; ++featureIndex) {
+                        final FeatureConfig feature = new FeatureConfig("fp" + fpIndex + "spec" + specIndex)
+                                .setParam("id", String.valueOf(featureIndex));
+                        if(specIndex > 0) {
+                            feature.setParam("parent", String.valueOf(featureIndex));
+                        }
+                        config.addFeature(feature);
+                    }
+                }
+                fp.addConfig(config.build());
+            }
+        }
+        creator.install();
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(getFPID(featurePacks - 1).getLocation())
+                .build();
+    }
+
+    private static String newContent(int size) {
+        final StringBuilder buf = new StringBuilder(size);
+        for(int i = 0; i < size; ++i) {
+            buf.append((char) ('a' + i % 26));
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.ConfigId;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.layout.FeaturePackLayout;
+import org.jboss.galleon.layout.ProvisioningLayout;
+import org.jboss.galleon.spec.ConfigLayerDependency;
+import org.jboss.galleon.universe.FeaturePackLocation;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+
+/**
+ * Persistent local index of the content of the feature-packs resolved by the CLI.
+ * For each indexed feature-pack it records its layers (with their dependencies),
+ * packages and feature specs as well as the feature-packs its layout consists of,
+ * so that the commands and completers can look them up without opening the
+ * feature-pack archives.
+ *
+ * The index is populated incrementally from the layouts the CLI builds. Feature-packs
+ * without a build or with a SNAPSHOT build are not indexed since their content may change.
+ *
+ * @author jdenise@redhat.com
+ */
+public class FeaturePackIndex {
+
+    public static class Entry {
+
+        private final FPID fpid;
+        private List<FPID> layout;
+        private final Map<ConfigId, Set<String>> layers = new LinkedHashMap<>();
+        private final Set<String> packages = new TreeSet<>();
+        private final Set<String> featureSpecs = new TreeSet<>();
+
+        private Entry(FPID fpid) {
+            this.fpid = fpid;
+        }
+
+        public FPID getFPID() {
+            return fpid;
+        }
+
+        /**
+         * The feature-packs the layout of this feature-pack installed alone consists of
+         * or null, if it has not been indexed yet.
+         *
+         * @return  feature-packs of the layout or null
+         */
+        public List<FPID> getLayout() {
+            return layout;
+        }
+
+        public Map<ConfigId, Set<String>> getLayers() {
+            return layers;
+        }
+
+        public Set<String> getPackages() {
+            return packages;
+        }
+
+        public Set<String> getFeatureSpecs() {
+            return featureSpecs;
+        }
+    }
+
+    private static final char SEPARATOR = '|';
+    private static final String LAYOUT = "layout";
+    private static final String LAYERS = "layers";
+    private static final String LAYER_DEPS = "layer-deps";
+    private static final String PACKAGES = "packages";
+    private static final String FEATURE_SPECS = "feature-specs";
+    private static final String SNAPSHOT = "-SNAPSHOT";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Path file;
+    private Map<FPID, Entry> entries;
+    private boolean modified;
+
+    FeaturePackIndex(Path file) {
+        this.file = file;
+    }
+
+    public static boolean isIndexable(FPID fpid) {
+        return fpid.getBuild() != null && !fpid.getBuild().endsWith(SNAPSHOT);
+    }
+
+    public synchronized Entry getEntry(FPID fpid) {
+        return getEntries().get(fpid);
+    }
+
+    /**
+     * Returns the layers, mapped to the names of the layers they depend on, of all the feature-packs
+     * the layout of the feature-pack installed alone consists of. If the layout of the feature-pack
+     * has not been indexed, the method returns null.
+     *
+     * @param fpid  feature-pack ID
+     * @return  layers of the layout or null
+     */
+    public synchronized Map<ConfigId, Set<String>> getLayoutLayers(FPID fpid) {
+        final Map<FPID, Entry> entries = getEntries();
+        final Entry entry = entries.get(fpid);
+        if (entry == null || entry.layout == null) {
+            return null;
+        }
+        final Map<ConfigId, Set<String>> layers = new LinkedHashMap<>();
+        for (FPID id : entry.layout) {
+            final Entry fpEntry = entries.get(id);
+            if (fpEntry == null) {
+                return null;
+            }
+            for (Map.Entry<ConfigId, Set<String>> layer : fpEntry.layers.entrySet()) {
+                Set<String> deps = layers.get(layer.getKey());
+                if (deps == null) {
+                    deps = new TreeSet<>();
+                    layers.put(layer.getKey(), deps);
+                }
+                deps.addAll(layer.getValue());
+            }
+        }
+        return layers;
+    }
+
+    /**
+     * Indexes the feature-packs of the layout that have not been indexed yet.
+     * If the layout was built for a single feature-pack, the feature-packs of the layout
+     * are recorded as the layout of that feature-pack.
+     *
+     * @param layout  provisioning layout
+     * @throws ProvisioningException  in case the content of a feature-pack could not be read
+     * @throws IOException  in case the content of a feature-pack could not be read
+     */
+    public synchronized void index(ProvisioningLayout<? extends FeaturePackLayout> layout) throws ProvisioningException, IOException {
+        final Map<FPID, Entry> entries = getEntries();
+        final List<FPID> layoutFpids = new ArrayList<>(layout.getOrderedFeaturePacks().size());
+        boolean indexable = true;
+        for (FeaturePackLayout fp : layout.getOrderedFeaturePacks()) {
+            final FPID fpid = fp.getFPID();
+            layoutFpids.add(fpid);
+            if (!isIndexable(fpid)) {
+                indexable = false;
+                continue;
+            }
+            if (!entries.containsKey(fpid)) {
+                entries.put(fpid, newEntry(fp));
+                modified = true;
+            }
+        }
+        final ProvisioningConfig config = layout.getConfig();
+        if (!indexable || config.getFeaturePackDeps().size() != 1) {
+            return;
+        }
+        final FeaturePackConfig fpConfig = config.getFeaturePackDeps().iterator().next();
+        if (fpConfig.hasExcludedPackages() || fpConfig.hasIncludedPackages() || config.hasTransitiveDeps()) {
+            return;
+        }
+        final Entry entry = entries.get(layout.getFeaturePack(fpConfig.getLocation().getProducer()).getFPID());
+        if (entry.layout == null) {
+            entry.layout = Collections.unmodifiableList(layoutFpids);
+            modified = true;
+        }
+    }
+
+    /**
+     * Persists the index, if it has been modified since it was loaded or stored.
+     *
+     * @throws IOException  in case of a failure
+     */
+    public synchronized void store() throws IOException {
+        if (!modified) {
+            return;
+        }
+        final Properties props = new Properties();
+        for (Entry entry : entries.values()) {
+            final String prefix = entry.fpid.toString() + SEPARATOR;
+            if (entry.layout != null) {
+                final List<String> layout = new ArrayList<>(entry.layout.size());
+                for (FPID fpid : entry.layout) {
+                    layout.add(fpid.toString());
+                }
+                props.setProperty(prefix + LAYOUT, toString(layout));
+            }
+            final List<String> layers = new ArrayList<>(entry.layers.size());
+            for (Map.Entry<ConfigId, Set<String>> layer : entry.layers.entrySet()) {
+                final String layerId = layer.getKey().getModel() + '/' + layer.getKey().getName();
+                layers.add(layerId);
+                if (!layer.getValue().isEmpty()) {
+                    props.setProperty(prefix + LAYER_DEPS + SEPARATOR + layerId, toString(layer.getValue()));
+                }
+            }
+            props.setProperty(prefix + LAYERS, toString(layers));
+            props.setProperty(prefix + PACKAGES, toString(entry.packages));
+            props.setProperty(prefix + FEATURE_SPECS, toString(entry.featureSpecs));
+        }
+        Files.createDirectories(file.getParent());
+        // the index is written next to the target and moved over it so that a concurrent
+        // or interrupted store never leaves a truncated index behind
+        final Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), TMP_SUFFIX);
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp)) {
+                props.store(writer, null);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        modified = false;
+    }
+
+    public synchronized void clear() throws IOException {
+        entries = new HashMap<>();
+        modified = false;
+        Files.deleteIfExists(file);
+    }
+
+    private Map<FPID, Entry> getEntries() {
+        if (entries == null) {
+            entries = new HashMap<>();
+            if (Files.exists(file)) {
+                try {
+                    load();
+                } catch (Exception ex) {
+                    // The index will be re-built
+                    CliLogging.exception(ex);
+                    entries.clear();
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void load() throws IOException {
+        final Properties props = new Properties();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            props.load(reader);
+        }
+        for (String key : props.stringPropertyNames()) {
+            final int i = key.indexOf(SEPARATOR);
+            if (i <= 0) {
+                continue;
+            }
+            final FPID fpid = FeaturePackLocation.fromString(key.substring(0, i)).getFPID();
+            Entry entry = entries.get(fpid);
+            if (entry == null) {
+                entry = new Entry(fpid);
+                entries.put(fpid, entry);
+            }
+            final String value = props.getProperty(key);
+            final String name = key.substring(i + 1);
+            if (name.equals(LAYOUT)) {
+                final List<FPID> layout = new ArrayList<>();
+                for (String fpid2 : split(value)) {
+                    layout.add(FeaturePackLocation.fromString(fpid2).getFPID());
+                }
+                entry.layout = Collections.unmodifiableList(layout);
+            } else if (name.equals(LAYERS)) {
+                for (String layer : split(value)) {
+                    final ConfigId layerId = parseLayerId(layer);
+                    if (!entry.layers.containsKey(layerId)) {
+                        entry.layers.put(layerId, new TreeSet<>());
+                    }
+                }
+            } else if (name.startsWith(LAYER_DEPS + SEPARATOR)) {
+                final ConfigId layerId = parseLayerId(name.substring(LAYER_DEPS.length() + 1));
+                Set<String> deps = entry.layers.get(layerId);
+                if (deps == null) {
+                    deps = new TreeSet<>();
+                    entry.layers.put(layerId, deps);
+                }
+                deps.addAll(split(value));
+            } else if (name.equals(PACKAGES)) {
+                entry.packages.addAll(split(value));
+            } else if (name.equals(FEATURE_SPECS)) {
+                entry.featureSpecs.addAll(split(value));
+            }
+        }
+    }
+
+    private static Entry newEntry(FeaturePackLayout fp) throws ProvisioningException, IOException {
+        final Entry entry = new Entry(fp.getFPID());
+        for (ConfigId layer : fp.loadLayers()) {
+            final Set<String> deps = new TreeSet<>();
+            for (ConfigLayerDependency dep : fp.loadConfigLayerSpec(layer.getModel(), layer.getName()).getLayerDeps()) {
+                deps.add(dep.getName());
+            }
+            entry.layers.put(layer, deps);
+        }
+        listDirs(fp.getDir().resolve(Constants.PACKAGES), entry.packages);
+        listDirs(fp.getDir().resolve(Constants.FEATURES), entry.featureSpecs);
+        return entry;
+    }
+
+    private static void listDirs(Path dir, Set<String> names) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path p : stream) {
+                if (Files.isDirectory(p)) {
+                    String name = p.getFileName().toString();
+                    // zip filesystem directory names end with a slash
+                    if (name.endsWith("/")) {
+                        name = name.substring(0, name.length() - 1);
+                    }
+                    names.add(name);
+                }
+            }
+        }
+    }
+
+    private static ConfigId parseLayerId(String str) {
+        final int i = str.indexOf('/');
+        return new ConfigId(str.substring(0, i), str.substring(i + 1));
+    }
+
+    private static String toString(Collection<String> values) {
+        return String.join(",", values);
+    }
+
+    private static List<String> split(String value) {
+        if (value.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> list = new ArrayList<>();
+        for (String s : value.split(",")) {
+            list.add(s);
+        }
+        return list;
+    }
+}
@@ -208,6 +208,7 @@ public class PmSession implements CompleterInvocationProvider<PmCompleterInvocat
     private final UniverseManager universe;
     private final ResourceResolver resolver;
     private final ProvisioningLayoutFactory layoutFactory;
+    private final FeaturePackIndex fpIndex;
     private AeshContext ctx;
     private boolean rethrow = false;
     private boolean enableTrackers = true;
@@ -238,6 +239,7 @@ public class PmSession implements CompleterInvocationProvider<PmCompleterInvocat
         universe = new UniverseManager(this, config, maven, universeResolver, builtin);
         this.interactive = interactive;
         layoutFactory = ProvisioningLayoutFactory.getInstance(universeResolver);
+        fpIndex = new FeaturePackIndex(config.getFeaturePackIndexFile());
         resolver = new ResourceResolver(this);
         // Abort running universe resolution if any.
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -254,7 +256,11 @@ public class PmSession implements CompleterInvocationProvider<PmCompleterInvocat
     }
 
     public void clearLayoutCache() throws IOException {
-        config.clearLayoutCache();
+        try {
+            config.clearLayoutCache();
+        } finally {
+            fpIndex.clear();
+        }
     }
 
     public void enableTrackers(boolean enable) {
@@ -336,6 +342,10 @@ public class PmSession implements CompleterInvocationProvider<PmCompleterInvocat
         return new DefaultMessageWriter(out, err, verbose);
     }
 
+    public FeaturePackIndex getFeaturePackIndex() {
+        return fpIndex;
+    }
+
     public ProvisioningLayoutFactory getLayoutFactory() {
         return layoutFactory;
     }
@@ -33,7 +33,9 @@ import org.aesh.command.option.Argument;
 import org.aesh.command.option.Option;
 import org.aesh.utils.Config;
 import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.cli.CliLogging;
 import org.jboss.galleon.cli.CommandExecutionException;
+import org.jboss.galleon.cli.FeaturePackIndex;
 import org.jboss.galleon.cli.HelpDescriptions;
 import org.jboss.galleon.cli.PmCommandInvocation;
 import org.jboss.galleon.cli.PmSessionCommand;
@@ -140,6 +142,8 @@ public class FindCommand extends PmSessionCommand {
                 // XXX OK, no installation.
             }
             Path finalPath = installation;
+            // Layers of the already indexed feature-packs are looked up without resolving them
+            FeaturePackIndex index = invoc.getPmSession().getFeaturePackIndex();
             try {
                 Comparator<Result> locComparator = new Comparator<Result>() {
                     @Override
@@ -180,13 +184,23 @@ public class FindCommand extends PmSessionCommand {
                                 }
                                 if (!layersCompiledPatterns.isEmpty()) {
                                     try {
-                                        FeaturePackConfig config = FeaturePackConfig.forLocation(loc);
-                                        ProvisioningConfig provisioning = ProvisioningConfig.builder().addFeaturePackDep(config).build();
-                                        Set<ConfigId> layers = new HashSet<>();
-                                        try (ProvisioningLayout<FeaturePackLayout> layout
-                                                = invoc.getPmSession().getLayoutFactory().newConfigLayout(provisioning)) {
-                                            for (FeaturePackLayout l : layout.getOrderedFeaturePacks()) {
-                                                layers.addAll(l.loadLayers());
+                                        Set<ConfigId> layers = null;
+                                        if (loc.getBuild() != null) {
+                                            Map<ConfigId, Set<String>> indexed = index.getLayoutLayers(loc.getFPID());
+                                            if (indexed != null) {
+                                                layers = indexed.keySet();
+                                            }
+                                        }
+                                        if (layers == null) {
+                                            FeaturePackConfig config = FeaturePackConfig.forLocation(loc);
+                                            ProvisioningConfig provisioning = ProvisioningConfig.builder().addFeaturePackDep(config).build();
+                                            layers = new HashSet<>();
+                                            try (ProvisioningLayout<FeaturePackLayout> layout
+                                                    = invoc.getPmSession().getLayoutFactory().newConfigLayout(provisioning)) {
+                                                for (FeaturePackLayout l : layout.getOrderedFeaturePacks()) {
+                                                    layers.addAll(l.loadLayers());
+                                                }
+                                                index.index(layout);
                                             }
                                         }
                                         for (ConfigId l : layers) {
@@ -247,6 +261,11 @@ public class FindCommand extends PmSessionCommand {
                 if (tracker != null) {
                     tracker.complete();
                 }
+                try {
+                    index.store();
+                } catch (IOException ex) {
+                    CliLogging.exception(ex);
+                }
 
                 printExceptions(invoc, exceptions);
 
@@ -26,6 +26,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.cli.FeaturePackIndex;
 import org.jboss.galleon.cli.PmSession;
 import org.jboss.galleon.cli.cmd.CliErrors;
 import org.jboss.galleon.config.ConfigId;
@@ -163,10 +164,29 @@ public class LayersConfigBuilder {
 
     private static Map<String, Map<String, Set<String>>> getAllLayers(PmSession session, FeaturePackLocation loc,
             boolean includeDependencies) throws ProvisioningException, IOException {
+        FeaturePackIndex index = session.getFeaturePackIndex();
+        if (loc.getBuild() != null) {
+            Map<ConfigId, Set<String>> layers = index.getLayoutLayers(loc.getFPID());
+            if (layers != null) {
+                Map<String, Map<String, Set<String>>> layersMap = new HashMap<>();
+                for (Entry<ConfigId, Set<String>> layer : layers.entrySet()) {
+                    Map<String, Set<String>> names = layersMap.get(layer.getKey().getModel());
+                    if (names == null) {
+                        names = new HashMap<>();
+                        layersMap.put(layer.getKey().getModel(), names);
+                    }
+                    names.put(layer.getKey().getName(), includeDependencies
+                            ? new TreeSet<>(layer.getValue()) : new TreeSet<>());
+                }
+                return layersMap;
+            }
+        }
         ProvisioningConfig pConfig = ProvisioningConfig.builder().
                 addFeaturePackDep(FeaturePackConfig.builder(loc).build()).build();
         try (ProvisioningLayout<FeaturePackLayout> layout = session.
                 getLayoutFactory().newConfigLayout(pConfig)) {
+            index.index(layout);
+            index.store();
             return getAllLayers(layout, includeDependencies);
         }
     }
@@ -57,12 +57,14 @@ public class Configuration implements MavenChangeListener {
     private static final String LAYOUT_DIR_NAME = "layout";
     private static final String LAYOUT_CONTENT_FILE_NAME = LAYOUT_DIR_NAME + ".properties";
     private static final String CACHE_DIR_NAME = "cache";
+    private static final String FP_INDEX_FILE_NAME = "fp-index.properties";
 
     private static final String HISTORY_FILE_NAME = "cli-history";
 
     private final Path cacheDir;
     private final Path layoutCacheDir;
     private final Path layoutContentFile;
+    private final Path fpIndexFile;
     private final File historyFile;
     private final MavenConfig maven;
 
@@ -75,6 +77,7 @@ public class Configuration implements MavenChangeListener {
         cacheDir = galleonDir.resolve(CACHE_DIR_NAME);
         layoutCacheDir = cacheDir.resolve(LAYOUT_DIR_NAME);
         layoutContentFile = cacheDir.resolve(LAYOUT_CONTENT_FILE_NAME);
+        fpIndexFile = cacheDir.resolve(FP_INDEX_FILE_NAME);
         maven = new MavenConfig();
         maven.addListener(this);
     }
@@ -87,6 +90,10 @@ public class Configuration implements MavenChangeListener {
         return layoutCacheDir;
     }
 
+    public Path getFeaturePackIndexFile() {
+        return fpIndexFile;
+    }
+
     public Properties getLayoutCacheContent() throws IOException {
         Properties props = new Properties();
         if (Files.exists(layoutContentFile)) {
@@ -172,6 +179,7 @@ public class Configuration implements MavenChangeListener {
             IoUtils.recursiveDelete(getLayoutCache());
         } finally {
             Files.deleteIfExists(layoutContentFile);
+            Files.deleteIfExists(fpIndexFile);
         }
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.cli;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.jboss.galleon.cli.cmd.maingrp.LayersConfigBuilder;
+import org.jboss.galleon.cli.config.Configuration;
+import org.jboss.galleon.config.ConfigId;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.layout.FeaturePackLayout;
+import org.jboss.galleon.layout.ProvisioningLayout;
+import org.jboss.galleon.layout.ProvisioningLayoutFactory;
+import org.jboss.galleon.spec.ConfigLayerSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.universe.FeaturePackLocation;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.jboss.galleon.universe.maven.MavenArtifact;
+import org.jboss.galleon.universe.maven.MavenProducerInstaller;
+import org.jboss.galleon.universe.maven.MavenUniverseFactory;
+import org.jboss.galleon.universe.maven.MavenUniverseInstaller;
+import org.jboss.galleon.universe.maven.repo.SimplisticMavenRepoManager;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author jdenise@redhat.com
+ */
+public class FeaturePackIndexTestCase {
+
+    private static final String UNIVERSE = "producer1@" + MavenUniverseFactory.ID + "(org.jboss.galleon.cli.test:universe1):1";
+    private static final FPID FP1 = FeaturePackLocation.fromString(UNIVERSE + "#1.0.0.Final").getFPID();
+    private static final ConfigId BASE = new ConfigId("model1", "base");
+    private static final ConfigId WEB = new ConfigId("model1", "web");
+
+    private Path workDir;
+    private SimplisticMavenRepoManager repo;
+    private String userHome;
+
+    @Before
+    public void before() throws Exception {
+        workDir = IoUtils.createRandomTmpDir();
+        repo = SimplisticMavenRepoManager.getInstance(workDir.resolve("repo"));
+
+        final MavenProducerInstaller producer = new MavenProducerInstaller("producer1", repo,
+                new MavenArtifact().setGroupId("org.jboss.galleon.cli.test").setArtifactId("producer1").setVersion("1.0.0.Final"),
+                "org.jboss.galleon.cli.test", "feature-pack1")
+                .addFrequencies("alpha", "beta")
+                .addChannel("1", "[1.0.0,2.0.0)")
+                .install();
+        new MavenUniverseInstaller(repo,
+                new MavenArtifact().setGroupId("org.jboss.galleon.cli.test").setArtifactId("universe1").setVersion("1.0.0.Final"))
+                .addProducer(producer.getName(), producer.getArtifact().setPath(null).setVersionRange("[1.0,2.0-alpha)"))
+                .install();
+
+        FeaturePackCreator.getInstance()
+        .addArtifactResolver(repo)
+        .newFeaturePack(FP1)
+            .addConfigLayer(ConfigLayerSpec.builder()
+                    .setModel(BASE.getModel())
+                    .setName(BASE.getName())
+                    .build())
+            .addConfigLayer(ConfigLayerSpec.builder()
+                    .setModel(WEB.getModel())
+                    .setName(WEB.getName())
+                    .addLayerDep(BASE.getName())
+                    .build())
+            .addFeatureSpec(FeatureSpec.builder("specA").build())
+            .newPackage("p1", true)
+                .writeContent("p1.txt", "p1 text")
+                .getFeaturePack()
+            .getCreator()
+        .install();
+
+        // keep the CLI configuration and cache out of the real user home
+        userHome = System.getProperty("user.home");
+        System.setProperty("user.home", workDir.resolve("home").toString());
+    }
+
+    @After
+    public void after() throws Exception {
+        System.setProperty("user.home", userHome);
+        IoUtils.recursiveDelete(workDir);
+    }
+
+    @Test
+    public void testStoreLoad() throws Exception {
+        final Path file = workDir.resolve("index").resolve("fp-index.properties");
+        final FeaturePackIndex index = new FeaturePackIndex(file);
+        index(index);
+        Assert.assertTrue(Files.exists(file));
+        try (Stream<Path> stream = Files.list(file.getParent())) {
+            Assert.assertEquals(1, stream.count());
+        }
+
+        final FeaturePackIndex loaded = new FeaturePackIndex(file);
+        final FeaturePackIndex.Entry entry = loaded.getEntry(FP1);
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(Collections.singletonList(FP1), entry.getLayout());
+        final Map<ConfigId, Set<String>> layers = new LinkedHashMap<>();
+        layers.put(BASE, Collections.emptySet());
+        layers.put(WEB, Collections.singleton(BASE.getName()));
+        Assert.assertEquals(layers, entry.getLayers());
+        Assert.assertEquals(layers, loaded.getLayoutLayers(FP1));
+        Assert.assertEquals(Collections.singleton("p1"), entry.getPackages());
+        Assert.assertEquals(Collections.singleton("specA"), entry.getFeatureSpecs());
+
+        final FeaturePackIndex.Entry original = index.getEntry(FP1);
+        Assert.assertEquals(original.getLayout(), entry.getLayout());
+        Assert.assertEquals(original.getLayers(), entry.getLayers());
+        Assert.assertEquals(original.getPackages(), entry.getPackages());
+        Assert.assertEquals(original.getFeatureSpecs(), entry.getFeatureSpecs());
+    }
+
+    @Test
+    public void testLayersLookup() throws Exception {
+        final Configuration config = Configuration.parse();
+        index(new FeaturePackIndex(config.getFeaturePackIndexFile()));
+
+        // the session is not aware of the repository the feature-pack was installed in,
+        // so the layers can only come from the index
+        final PmSession session = new PmSession(config);
+        final FeaturePackLocation fpl = FP1.getLocation();
+        Assert.assertEquals(new TreeSet<>(Arrays.asList(BASE.getName(), WEB.getName())),
+                new TreeSet<>(LayersConfigBuilder.getLayerNames(session, null, fpl, Collections.emptySet())));
+        Assert.assertEquals(Collections.singleton(WEB.getName()),
+                LayersConfigBuilder.getLayerNames(session, BASE.getModel(), fpl, new HashSet<>(Arrays.asList(WEB.getName()))));
+    }
+
+    private void index(FeaturePackIndex index) throws Exception {
+        final ProvisioningConfig config = ProvisioningConfig.builder()
+                .addFeaturePackDep(FeaturePackConfig.forLocation(FP1.getLocation()))
+                .build();
+        final ProvisioningLayoutFactory layoutFactory = ProvisioningLayoutFactory.getInstance(
+                UniverseResolver.builder().addArtifactResolver(repo).build());
+        try (ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(config)) {
+            index.index(layout);
+        }
+        index.store();
+    }
+}
@@ -24,6 +24,7 @@ public interface Constants {
 
     String DOT_GLNEW = ".glnew";
     String DOT_XML = ".xml";
+    String BLOBS = "blobs";
     String CONFIGS = "configs";
     String CONFIG_XML = "config.xml";
     String CONTENT = "content";
@@ -31,6 +32,7 @@ public interface Constants {
     String FEATURES = "features";
     String FEATURE_PACK_XML = "feature-pack.xml";
     String HASHES = "hashes";
+    String HASHES_INDEX = "hashes.idx";
     String HISTORY = "history";
     String HISTORY_LIST = "list";
     String KEEP = "keep";
@@ -47,6 +49,7 @@ public interface Constants {
     String RESOURCES = "resources";
     String SPEC_XML = "spec.xml";
     String THIS = "this";
+    String UNDO_CONTENT = "undo.content";
     String UNDO_TASKS = "undo.tasks";
     String ZIP = "zip";
 
@@ -63,11 +66,17 @@ public interface Constants {
 
     // SYSTEM PROPERTIES
     String PROP_CONFIG_ARRANGER = "galleon.config.arranger";
+    String PROP_FP_CACHE_DIR = "galleon.fp.cache.dir";
+    String PROP_FP_CACHE_MAX_SIZE = "galleon.fp.cache.max-size";
 
     // CONFIG ARRANGERS
     String CONFIG_ARRANGER_SPEC_ONLY = "spec-only";
 
     // OPTIONS
+    String CONFIG_RESOLUTION_THREADS = "config-resolution-threads";
+
+    String CONTENT_COPY_THREADS = "content-copy-threads";
+
     String IGNORE_NOT_EXCLUDED_LAYERS = "ignore-not-excluded-layers";
 
     String OPTIONAL_PACKAGES = "optional-packages";
@@ -76,6 +85,8 @@ public interface Constants {
     String PASSIVE = "passive";
     String PASSIVE_PLUS = "passive+";
 
+    String STREAM_CONFIGS = "stream-configs";
+
     String VERSION_CONVERGENCE = "version-convergence";
     String FIRST_PROCESSED = "first-processed";
     String FAIL = "fail";
@@ -79,6 +79,10 @@ public interface Errors {
         return "Failed to delete " + src;
     }
 
+    static String unzipFile(Path zip, Path target) {
+        return "Failed to unzip " + zip.toAbsolutePath() + " to " + target.toAbsolutePath();
+    }
+
     static String moveFile(Path src, Path target) {
         return "Failed to move " + src.toAbsolutePath() + " to " + target.toAbsolutePath();
     }
@@ -463,6 +467,10 @@ public interface Errors {
         return buf.toString();
     }
 
+    static String optionValueNotPositiveInteger(String name, String setValue) {
+        return "Provisioning option " + name + " value " + setValue + " is not a positive integer";
+    }
+
     static String pluginOptionsNotRecognized(Collection<String> names) {
         final StringBuilder buf = new StringBuilder("The following plugin options are not recognized: ");
         if(names.size() > 1) {
@@ -486,6 +494,14 @@ public interface Errors {
         return "Failed to persist hashes";
     }
 
+    static String invalidSystemProperty(String name, String value) {
+        return "Invalid value of system property " + name + ": " + value;
+    }
+
+    static String hashesNotRead(Path p) {
+        return "Failed to read hashes from " + p;
+    }
+
     static String fileClose(Path p) {
         return "Failed to close file " + p;
     }
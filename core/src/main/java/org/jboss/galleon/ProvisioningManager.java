@@ -17,8 +17,6 @@
 package org.jboss.galleon;
 
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
@@ -30,9 +28,12 @@ import java.util.Map;
 
 import org.jboss.galleon.config.FeaturePackConfig;
 import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.diff.FsDeltaApplier;
 import org.jboss.galleon.diff.FsDiff;
 import org.jboss.galleon.diff.FsEntry;
 import org.jboss.galleon.diff.FsEntryFactory;
+import org.jboss.galleon.diff.FsEntryHasher;
+import org.jboss.galleon.diff.FsHashIndex;
 import org.jboss.galleon.diff.ProvisioningDiffProvider;
 import org.jboss.galleon.layout.FeaturePackPluginVisitor;
 import org.jboss.galleon.layout.ProvisioningLayout;
@@ -50,7 +51,7 @@ import org.jboss.galleon.universe.UniverseResolver;
 import org.jboss.galleon.universe.UniverseResolverBuilder;
 import org.jboss.galleon.universe.UniverseSpec;
 import org.jboss.galleon.util.StateHistoryUtils;
-import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.ConcurrentUtils;
 import org.jboss.galleon.util.IoUtils;
 import org.jboss.galleon.util.LayoutUtils;
 import org.jboss.galleon.util.PathsUtils;
@@ -71,6 +72,9 @@ public class ProvisioningManager implements AutoCloseable {
         private UniverseResolver resolver;
         private boolean logTime;
         private boolean recordState = true;
+        private int hashingThreads = ConcurrentUtils.getDefaultThreads();
+        private boolean applyDelta;
+        private boolean fullContentUndo;
 
         private Builder() {
         }
@@ -128,6 +132,48 @@ public class ProvisioningManager implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Sets the maximum number of threads used to hash the content of the installation.
+         * The default is the number of available processors.
+         *
+         * @param hashingThreads  maximum number of hashing threads
+         * @return  this builder
+         */
+        public Builder setHashingThreads(int hashingThreads) {
+            if(hashingThreads < 1) {
+                throw new IllegalArgumentException("The number of hashing threads must be positive: " + hashingThreads);
+            }
+            this.hashingThreads = hashingThreads;
+            return this;
+        }
+
+        /**
+         * Sets whether an existing installation should be updated by applying only the differences
+         * between the staged installation and the existing one instead of replacing all its content.
+         * The default is false.
+         *
+         * @param applyDelta  whether only the differences should be applied to an existing installation
+         * @return  this builder
+         */
+        public Builder setApplyDelta(boolean applyDelta) {
+            this.applyDelta = applyDelta;
+            return this;
+        }
+
+        /**
+         * Sets whether the state history should record the content each provisioning operation replaced and removed
+         * in addition to the previous provisioning configuration. The recorded content allows {@link ProvisioningManager#undo()}
+         * to restore the previous state of the installation locally without resolving the feature-packs and provisioning
+         * the previous configuration. The default is false.
+         *
+         * @param fullContentUndo  whether the replaced and removed content should be recorded in the state history
+         * @return  this builder
+         */
+        public Builder setFullContentUndo(boolean fullContentUndo) {
+            this.fullContentUndo = fullContentUndo;
+            return this;
+        }
+
         public ProvisioningManager build() throws ProvisioningException {
             return new ProvisioningManager(this);
         }
@@ -150,13 +196,20 @@ public class ProvisioningManager implements AutoCloseable {
     private boolean closeLayoutFactory;
     private ProvisioningConfig provisioningConfig;
     private boolean recordState;
+    private final int hashingThreads;
+    private final boolean applyDelta;
+    private final boolean fullContentUndo;
 
     private ProvisioningManager(Builder builder) throws ProvisioningException {
-        PathsUtils.assertInstallationDir(builder.installationHome);
-        this.home = builder.installationHome;
+        this(builder, builder.installationHome, builder.layoutFactory);
+    }
+
+    private ProvisioningManager(Builder builder, Path installationHome, ProvisioningLayoutFactory layoutFactory) throws ProvisioningException {
+        PathsUtils.assertInstallationDir(installationHome);
+        this.home = installationHome;
         this.log = builder.messageWriter == null ? DefaultMessageWriter.getDefaultInstance() : builder.messageWriter;
-        if(builder.layoutFactory != null) {
-            layoutFactory = builder.layoutFactory;
+        if(layoutFactory != null) {
+            this.layoutFactory = layoutFactory;
             closeLayoutFactory = false;
             universeResolver = layoutFactory.getUniverseResolver();
         } else {
@@ -164,6 +217,55 @@ public class ProvisioningManager implements AutoCloseable {
         }
         this.logTime = builder.logTime;
         this.recordState = builder.recordState;
+        this.hashingThreads = builder.hashingThreads;
+        this.applyDelta = builder.applyDelta;
+        this.fullContentUndo = builder.fullContentUndo;
+    }
+
+    /**
+     * Provisions several installations, each one to its own specification.
+     *
+     * All the installations are provisioned with a single provisioning layout factory, so a feature-pack
+     * they have in common is resolved, extracted and parsed only once. The layout and the runtime are still
+     * built for each installation separately, the package content is copied into each installation
+     * from the same extracted feature-pack. The installations are provisioned concurrently, so the progress
+     * trackers of the layout factory, if any, report the progress of all of them.
+     *
+     * The settings of the builder apply to every installation, except for the installation home, which is ignored.
+     * If the builder was not initialized with a provisioning layout factory, a new one is created
+     * and closed once all the installations have been provisioned.
+     *
+     * @param builder  provisioning manager settings
+     * @param targets  installation specifications mapped to the locations of the installations
+     * @param options  feature-pack plug-ins options
+     * @param threads  maximum number of installations provisioned concurrently
+     * @throws ProvisioningException  in case any of the installations failed to be provisioned
+     */
+    public static void provision(Builder builder, Map<Path, ProvisioningConfig> targets, Map<String, String> options, int threads) throws ProvisioningException {
+        if(targets.isEmpty()) {
+            return;
+        }
+        final ProvisioningLayoutFactory layoutFactory = builder.layoutFactory == null
+                ? ProvisioningLayoutFactory.getInstance(builder.getUniverseResolver())
+                : builder.layoutFactory;
+        try {
+            final List<ConcurrentUtils.Task> tasks = new ArrayList<>(targets.size());
+            for (Map.Entry<Path, ProvisioningConfig> target : targets.entrySet()) {
+                final ProvisioningManager pm = new ProvisioningManager(builder, target.getKey(), layoutFactory);
+                final ProvisioningConfig config = target.getValue();
+                tasks.add(new ConcurrentUtils.Task() {
+                    @Override
+                    public void execute() throws ProvisioningException {
+                        pm.provision(config, options);
+                    }
+                });
+            }
+            ConcurrentUtils.execute(tasks, threads, "Galleon batch provisioning");
+        } finally {
+            if(builder.layoutFactory == null) {
+                layoutFactory.close();
+            }
+        }
     }
 
     /**
@@ -576,10 +678,16 @@ public class ProvisioningManager implements AutoCloseable {
     /**
      * Goes back to the previous provisioning state recorded in the provisioning state history.
      * If the history is empty, the method throws an exception.
+     * If the content replaced and removed by the last provisioning operation was recorded in the history,
+     * it is restored locally, otherwise the previous provisioning configuration is provisioned.
      *
      * @throws ProvisioningException  in case of a failure
      */
     public void undo() throws ProvisioningException {
+        if(recordState && StateHistoryUtils.undoContent(home, log)) {
+            provisioningConfig = null;
+            return;
+        }
         try(ProvisioningLayout<FeaturePackRuntimeBuilder> layout = newConfigLayout(StateHistoryUtils.readUndoConfig(home, log), Collections.emptyMap())) {
             doProvision(layout, getFsDiff(), true);
         }
@@ -679,14 +787,25 @@ public class ProvisioningManager implements AutoCloseable {
 
             log.verbose("Moving the provisioned installation from the staged directory to %s", home);
             final Path stagedDir = runtime.getStagedDir();
-            // copy from the staged to the target installation directory
             if (Files.exists(home)) {
+                FsDiff contentDiff = null;
+                if(applyDelta || recordState && !undo && fullContentUndo) {
+                    // the hashes persisted for the staged dir are still valid unless it was modified after they were recorded
+                    contentDiff = getContentDiff(stagedDir, !undo && (fsDiff == null || fsDiff.isEmpty()));
+                }
                 if (recordState) {
                     if (undo) {
                         StateHistoryUtils.removeLastUndoConfig(home, stagedDir, log);
                     } else {
-                        StateHistoryUtils.addNewUndoConfig(home, stagedDir, undoTasks, log);
+                        StateHistoryUtils.addNewUndoConfig(home, stagedDir, undoTasks,
+                                fullContentUndo ? contentDiff : null, log);
                     }
+                }
+                if(applyDelta) {
+                    applyDelta(contentDiff, stagedDir, !recordState && Files.exists(PathsUtils.getProvisionedStateDir(home)));
+                    return;
+                }
+                if (recordState) {
                     IoUtils.recursiveDelete(home);
                 } else if(Files.exists(PathsUtils.getProvisionedStateDir(home))) {
                     try(DirectoryStream<Path> stream = Files.newDirectoryStream(home)) {
@@ -703,8 +822,22 @@ public class ProvisioningManager implements AutoCloseable {
                     IoUtils.recursiveDelete(home);
                 }
             }
+            if(!Files.exists(home)) {
+                try {
+                    // a rename, unless the staged directory is located on a different file store
+                    final Path parent = home.toAbsolutePath().getParent();
+                    if(parent != null) {
+                        Files.createDirectories(parent);
+                    }
+                    Files.move(stagedDir, home);
+                    return;
+                } catch (IOException e) {
+                    log.verbose("Failed to move %s to %s, copying it instead", stagedDir, home);
+                }
+            }
             try {
-                IoUtils.copy(stagedDir, home);
+                // preserve the timestamps the persisted hashes were recorded with
+                IoUtils.copy(stagedDir, home, true);
             } catch (IOException e) {
                 throw new ProvisioningException(Errors.copyFile(stagedDir, home));
             }
@@ -713,6 +846,75 @@ public class ProvisioningManager implements AutoCloseable {
         }
     }
 
+    /**
+     * Compares the content of the installation to the content of the staged directory excluding
+     * the provisioned state directories. The hashes persisted for the installation and, if they
+     * are still valid, for the staged directory are reused for the files whose size and
+     * last modified time have not changed.
+     *
+     * @param stagedDir  staged directory
+     * @param stagedHashesValid  whether the hashes persisted for the staged directory are valid
+     * @return  the difference between the installation and the staged directory
+     * @throws ProvisioningException  in case of a failure
+     */
+    private FsDiff getContentDiff(Path stagedDir, boolean stagedHashesValid) throws ProvisioningException {
+        final long startTime = log.isVerboseEnabled() ? System.nanoTime() : -1;
+        final FsEntryFactory fsFactory = FsEntryFactory.getInstance().filter('/' + Constants.PROVISIONED_STATE_DIR);
+        final FsEntry homeEntry = fsFactory.forPath(home, readPersistedHashes(home));
+        FsEntry stagedHashes = null;
+        if(stagedHashesValid) {
+            final Path stagedHashesIndex = LayoutUtils.getHashesIndex(stagedDir);
+            if(Files.exists(stagedHashesIndex)) {
+                stagedHashes = FsHashIndex.read(stagedHashesIndex);
+            }
+        }
+        final FsDiff diff = FsDiff.diff(homeEntry, fsFactory.forPath(stagedDir, stagedHashes), hashingThreads);
+        if(startTime != -1) {
+            log.verbose(Errors.tookTime("Comparing the content", startTime));
+        }
+        return diff;
+    }
+
+    /**
+     * Makes the installation home identical to the staged directory by applying only the differences between them.
+     * The provisioned state directory of the installation is replaced with the staged one.
+     *
+     * @param contentDiff  the difference between the installation and the staged directory excluding
+     *                     the provisioned state directories
+     * @param stagedDir  staged directory
+     * @param keepStateDir  whether the provisioned state directory of the installation should be preserved
+     *                      and only updated with the content of the staged one
+     * @throws ProvisioningException  in case of a failure
+     */
+    private void applyDelta(FsDiff contentDiff, Path stagedDir, boolean keepStateDir) throws ProvisioningException {
+        final long startTime = log.isVerboseEnabled() ? System.nanoTime() : -1;
+        FsDeltaApplier.apply(contentDiff, log);
+        final Path stagedStateDir = PathsUtils.getProvisionedStateDir(stagedDir);
+        final Path stateDir = PathsUtils.getProvisionedStateDir(home);
+        try {
+            if(keepStateDir) {
+                if(Files.exists(stagedStateDir)) {
+                    IoUtils.copy(stagedStateDir, stateDir, true);
+                }
+            } else {
+                IoUtils.recursiveDelete(stateDir);
+                if(Files.exists(stagedStateDir)) {
+                    try {
+                        Files.move(stagedStateDir, stateDir);
+                    } catch (IOException e) {
+                        // the staged directory is located on a different file store
+                        IoUtils.copy(stagedStateDir, stateDir, true);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.copyFile(stagedStateDir, stateDir), e);
+        }
+        if(startTime != -1) {
+            log.verbose(Errors.tookTime("Applying changes", startTime));
+        }
+    }
+
     /**
      * Returns the status of the filesystem describing which files have been
      * added, removed and modified since the last provisioning state transition.
@@ -726,12 +928,10 @@ public class ProvisioningManager implements AutoCloseable {
             return null;
         }
         log.verbose("Detecting user changes");
-        final Path hashesDir = LayoutUtils.getHashesDir(getInstallationHome());
-        if(Files.exists(hashesDir)) {
-            final FsEntry originalState = new FsEntry(null, hashesDir);
-            readHashes(originalState, new ArrayList<>());
+        final FsEntry persistedState = readPersistedHashes(getInstallationHome());
+        if(persistedState != null) {
             final FsEntry currentState = getDefaultFsEntryFactory().forPath(getInstallationHome());
-            return FsDiff.diff(originalState, currentState);
+            return FsDiff.diff(persistedState, currentState, hashingThreads);
         }
         try(ProvisioningRuntime rt = getRuntime(config)) {
             rt.provision();
@@ -739,7 +939,7 @@ public class ProvisioningManager implements AutoCloseable {
             final FsEntry originalState = fsFactory.forPath(rt.getStagedDir());
             final FsEntry currentState = fsFactory.forPath(getInstallationHome());
             final long startTime = log.isVerboseEnabled() ? System.nanoTime() : -1;
-            final FsDiff fsDiff = FsDiff.diff(originalState, currentState);
+            final FsDiff fsDiff = FsDiff.diff(originalState, currentState, hashingThreads);
             if (startTime != -1) {
                 log.verbose(Errors.tookTime("  filesystem diff", startTime));
             }
@@ -792,32 +992,17 @@ public class ProvisioningManager implements AutoCloseable {
         }
     }
 
-    private static void readHashes(FsEntry parent, List<FsEntry> dirs) throws ProvisioningException {
-        int dirsTotal = 0;
-        try(DirectoryStream<Path> stream = Files.newDirectoryStream(parent.getPath())) {
-            for(Path child : stream) {
-                if(child.getFileName().toString().equals(Constants.HASHES)) {
-                    try(BufferedReader reader = Files.newBufferedReader(child)) {
-                        String line = reader.readLine();
-                        while(line != null) {
-                            new FsEntry(parent, line, HashUtils.hexStringToByteArray(reader.readLine()));
-                            line = reader.readLine();
-                        }
-                    } catch (IOException e) {
-                        throw new ProvisioningException("Failed to read hashes", e);
-                    }
-                } else {
-                    dirs.add(new FsEntry(parent, child));
-                    ++dirsTotal;
-                }
-            }
-        } catch (IOException e) {
-            throw new ProvisioningException("Failed to read hashes", e);
+    private static FsEntry readPersistedHashes(Path home) throws ProvisioningException {
+        final Path hashesIndex = LayoutUtils.getHashesIndex(home);
+        if(Files.exists(hashesIndex)) {
+            return FsHashIndex.read(hashesIndex);
         }
-        while(dirsTotal > 0) {
-            readHashes(dirs.remove(dirs.size() - 1), dirs);
-            --dirsTotal;
+        // installations provisioned by earlier versions
+        final Path hashesDir = LayoutUtils.getHashesDir(home);
+        if(Files.exists(hashesDir)) {
+            return FsHashIndex.readHashesDir(hashesDir);
         }
+        return null;
     }
 
     private static FsEntryFactory getDefaultFsEntryFactory() {
@@ -828,70 +1013,11 @@ public class ProvisioningManager implements AutoCloseable {
         final long startTime = log.isVerboseEnabled() ? System.nanoTime() : -1;
         final FsEntry root = getDefaultFsEntryFactory().forPath(runtime.getStagedDir());
         if (root.hasChildren()) {
-            final Path hashes = LayoutUtils.getHashesDir(runtime.getStagedDir());
-            try {
-                Files.createDirectories(hashes);
-            } catch (IOException e) {
-                throw new ProvisioningException("Failed to persist hashes", e);
-            }
-            final List<FsEntry> dirs = new ArrayList<>();
-            persistChildHashes(hashes, root, dirs, hashes);
-            if(!dirs.isEmpty()) {
-                for(int i = dirs.size() - 1; i >= 0; --i) {
-                    persistDirHashes(hashes, dirs.get(i), dirs);
-                }
-            }
+            FsEntryHasher.hashTree(root, hashingThreads);
+            FsHashIndex.write(root, LayoutUtils.getHashesIndex(runtime.getStagedDir()));
         }
         if(startTime != -1) {
             log.verbose(Errors.tookTime("Hashing", startTime));
         }
     }
-
-    private void persistDirHashes(Path hashes, FsEntry entry, List<FsEntry> dirs) throws ProvisioningException {
-        final Path target = hashes.resolve(entry.getRelativePath());
-        try {
-            Files.createDirectory(target);
-        } catch (IOException e) {
-            throw new ProvisioningException(Errors.hashesNotPersisted(), e);
-        }
-        if (entry.hasChildren()) {
-            persistChildHashes(hashes, entry, dirs, target);
-        }
-    }
-
-    private void persistChildHashes(Path hashes, FsEntry entry, List<FsEntry> dirs, final Path target)
-            throws ProvisioningException {
-        int dirsTotal = 0;
-        BufferedWriter writer = null;
-        try {
-            for (FsEntry child : entry.getChildren()) {
-                if (!child.isDir()) {
-                    if (writer == null) {
-                        writer = Files.newBufferedWriter(target.resolve(Constants.HASHES));
-                    }
-                    writer.write(child.getName());
-                    writer.newLine();
-                    writer.write(HashUtils.bytesToHexString(child.getHash()));
-                    writer.newLine();
-                } else {
-                    dirs.add(child);
-                    ++dirsTotal;
-                }
-            }
-        } catch (IOException e) {
-            throw new ProvisioningException(Errors.hashesNotPersisted(), e);
-        } finally {
-            if (writer != null) {
-                try {
-                    writer.close();
-                } catch (IOException e) {
-                    log.error(e, Errors.fileClose(target.resolve(Constants.HASHES)));
-                }
-            }
-        }
-        while (dirsTotal > 0) {
-            persistDirHashes(hashes, dirs.remove(dirs.size() - 1), dirs);
-            --dirsTotal;
-        }
-    }
 }
@@ -49,8 +49,24 @@ public class ProvisioningOption {
             .setBooleanValueSet()
             .build();
 
+    public static final ProvisioningOption CONFIG_RESOLUTION_THREADS = ProvisioningOption.builder(Constants.CONFIG_RESOLUTION_THREADS)
+            .setDefaultValue("1")
+            .setPersistent(false)
+            .build();
+
+    public static final ProvisioningOption CONTENT_COPY_THREADS = ProvisioningOption.builder(Constants.CONTENT_COPY_THREADS)
+            .setDefaultValue("1")
+            .setPersistent(false)
+            .build();
+
+    public static final ProvisioningOption STREAM_CONFIGS = ProvisioningOption.builder(Constants.STREAM_CONFIGS)
+            .setDefaultValue(Constants.FALSE)
+            .setBooleanValueSet()
+            .setPersistent(false)
+            .build();
+
     private static final List<ProvisioningOption> stdOptions = Arrays
-            .asList(new ProvisioningOption[] { IGNORE_NOT_EXCLUDED_LAYERS, OPTIONAL_PACKAGES, VERSION_CONVERGENCE });
+            .asList(new ProvisioningOption[] { CONFIG_RESOLUTION_THREADS, CONTENT_COPY_THREADS, IGNORE_NOT_EXCLUDED_LAYERS, OPTIONAL_PACKAGES, STREAM_CONFIGS, VERSION_CONVERGENCE });
 
     public static List<ProvisioningOption> getStandardList() {
         return stdOptions;
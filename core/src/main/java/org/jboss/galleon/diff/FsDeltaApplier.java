@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.diff;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.MessageWriter;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.util.IoUtils;
+
+/**
+ * Makes the original branch of a diff identical to the other branch by applying
+ * only the differences between them: the entries missing from the other branch are deleted,
+ * the modified files are replaced and the added entries are moved from the other branch.
+ * Both branches of the diff must have been created for actual filesystem paths.
+ *
+ * The entries are moved from the other branch, which means the other branch is not usable after the diff was applied.
+ * Modified files are replaced using atomic renames where the filesystem supports them.
+ * The last modified time of the files present in both branches is set to that of the files in the other branch,
+ * so the result is the same as if the other branch was copied preserving the timestamps.
+ *
+ * @author Alexey Loubyansky
+ */
+public class FsDeltaApplier {
+
+    private static final String TMP_SUFFIX = ".gltmp";
+
+    public static void apply(FsDiff diff, MessageWriter log) throws ProvisioningException {
+        final Path target = diff.getOriginalRoot().getPath();
+        log.verbose("Applying %d removed, %d modified and %d added entries to %s", diff.getRemovedEntries().size(),
+                diff.getModifiedEntries().size(), diff.getAddedEntries().size(), target);
+        syncTimestamps(diff, diff.getOtherRoot(), target);
+        if(diff.hasRemovedEntries()) {
+            for(FsEntry removed : diff.getRemovedEntries()) {
+                IoUtils.recursiveDelete(removed.getPath());
+                if(Files.exists(removed.getPath())) {
+                    throw new ProvisioningException(Errors.deleteFile(removed.getPath()));
+                }
+            }
+        }
+        if(diff.hasModifiedEntries()) {
+            for(FsEntry[] modified : diff.getModifiedEntries()) {
+                replace(modified[1].getPath(), modified[0].getPath());
+            }
+        }
+        if(diff.hasAddedEntries()) {
+            for(FsEntry added : diff.getAddedEntries()) {
+                final Path targetPath = target.resolve(added.getRelativePath());
+                if(added.isDir()) {
+                    moveDir(added.getPath(), targetPath);
+                } else {
+                    replace(added.getPath(), targetPath);
+                }
+            }
+        }
+    }
+
+    private static void syncTimestamps(FsDiff diff, FsEntry entry, Path target) throws ProvisioningException {
+        for(FsEntry child : entry.getChildren()) {
+            if(child.isDiffStatusAdded() || child.isDiffStatusModified() || diff.getAddedEntry(child.getRelativePath()) != null) {
+                continue;
+            }
+            final Path targetPath = target.resolve(child.getName());
+            if(child.isDir()) {
+                syncTimestamps(diff, child, targetPath);
+                continue;
+            }
+            try {
+                final FileTime time = Files.getLastModifiedTime(child.getPath());
+                if(!time.equals(Files.getLastModifiedTime(targetPath))) {
+                    Files.setLastModifiedTime(targetPath, time);
+                }
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.writeFile(targetPath), e);
+            }
+        }
+    }
+
+    private static void replace(Path src, Path target) throws ProvisioningException {
+        try {
+            Files.move(src, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        } catch (AtomicMoveNotSupportedException e) {
+            // the source is on a different filesystem
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.moveFile(src, target), e);
+        }
+        final Path tmp = target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+        try {
+            Files.copy(src, tmp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.copyFile(src, tmp), e);
+        }
+        try {
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            IoUtils.recursiveDelete(tmp);
+            throw new ProvisioningException(Errors.moveFile(tmp, target), e);
+        }
+    }
+
+    private static void moveDir(Path src, Path target) throws ProvisioningException {
+        try {
+            Files.move(src, target);
+            return;
+        } catch (IOException e) {
+            // the source is on a different filesystem or the directory could not be moved as a whole
+        }
+        try {
+            IoUtils.copy(src, target, true);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.copyFile(src, target), e);
+        }
+    }
+}
@@ -75,7 +75,24 @@ public class FsDiff {
     public static final String MATCHES_THE_UPDATED_VERSION = "matches the updated version";
 
     public static FsDiff diff(FsEntry original, FsEntry other) throws ProvisioningException {
-        return new FsDiff(original, other);
+        return new FsDiff(original, other, 1);
+    }
+
+    /**
+     * Compares two filesystem branches calculating the hashes of the files
+     * present in both branches using up to the specified number of threads.
+     * If an original entry carries the recorded size and last modified time of a file
+     * and those match the attributes of the file in the other branch, the file
+     * is considered unchanged and is not hashed.
+     *
+     * @param original  the original branch
+     * @param other  the branch to compare to the original one
+     * @param threads  maximum number of threads to use for hashing
+     * @return  the difference between the branches
+     * @throws ProvisioningException  in case of a failure
+     */
+    public static FsDiff diff(FsEntry original, FsEntry other, int threads) throws ProvisioningException {
+        return new FsDiff(original, other, threads);
     }
 
     public static Map<String, Boolean> replay(FsDiff diff, Path home, MessageWriter log) throws ProvisioningException {
@@ -303,10 +320,27 @@ public class FsDiff {
     private Map<String, FsEntry> removed = Collections.emptyMap();
     private Map<String, FsEntry[]> modified = Collections.emptyMap();
 
-    private FsDiff(FsEntry original, FsEntry other) throws ProvisioningException {
+    private List<FsEntry[]> compared;
+
+    private FsDiff(FsEntry original, FsEntry other, int threads) throws ProvisioningException {
         this.original = original;
         this.other = other;
+        if(threads > 1) {
+            compared = new ArrayList<>();
+        }
         doDiff(original, other);
+        if(compared != null) {
+            final List<FsEntry> toHash = new ArrayList<>(compared.size() * 2);
+            for(FsEntry[] entries : compared) {
+                toHash.add(entries[0]);
+                toHash.add(entries[1]);
+            }
+            FsEntryHasher.hash(toHash, threads);
+            for(FsEntry[] entries : compared) {
+                compareHashes(entries[0], entries[1]);
+            }
+            compared = null;
+        }
     }
 
     private void doDiff(FsEntry originalEntry, FsEntry otherEntry) throws ProvisioningException {
@@ -341,13 +375,33 @@ public class FsDiff {
             }
             return;
         }
+        if(originalEntry.reuseHashIfUnchanged(otherEntry)) {
+            return;
+        }
+        if(originalEntry.p != null && otherEntry.p != null && originalEntry.getSize() != otherEntry.getSize()) {
+            // no need to hash files of different sizes
+            markModified(originalEntry, otherEntry);
+            return;
+        }
+        if(compared != null) {
+            compared.add(new FsEntry[] {originalEntry, otherEntry});
+            return;
+        }
+        compareHashes(originalEntry, otherEntry);
+    }
+
+    private void compareHashes(FsEntry originalEntry, FsEntry otherEntry) throws ProvisioningException {
         if(!Arrays.equals(originalEntry.getHash(), otherEntry.getHash())) {
-            originalEntry.diffModified();
-            otherEntry.diffModified();
-            modified = CollectionUtils.put(modified, originalEntry.getRelativePath(), new FsEntry[] {originalEntry, otherEntry});
+            markModified(originalEntry, otherEntry);
         }
     }
 
+    private void markModified(FsEntry originalEntry, FsEntry otherEntry) {
+        originalEntry.diffModified();
+        otherEntry.diffModified();
+        modified = CollectionUtils.put(modified, originalEntry.getRelativePath(), new FsEntry[] {originalEntry, otherEntry});
+    }
+
     public FsEntry getOriginalRoot() {
         return original;
     }
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -52,6 +53,8 @@ public class FsEntry {
     final String name;
     final boolean dir;
     private byte[] hash;
+    private long size = -1;
+    private long lastModified = -1;
     private String relativePath;
     private char diffStatus = NONE;
 
@@ -70,10 +73,40 @@ public class FsEntry {
         }
     }
 
+    FsEntry(FsEntry parent, String name) {
+        this.parent = parent;
+        this.name = name;
+        this.dir = true;
+        this.p = null;
+        if(parent != null) {
+            depth = parent.depth + 1;
+            parent.addChild(this);
+        } else {
+            depth = 0;
+        }
+    }
+
     public FsEntry(FsEntry parent, String name, byte[] hash) {
+        this(parent, name, hash, -1, -1);
+    }
+
+    /**
+     * Creates an entry for a file whose hash, size and last modified time
+     * were previously recorded. A negative size or last modified time
+     * means the value is unknown.
+     *
+     * @param parent  parent entry
+     * @param name  file name
+     * @param hash  recorded hash of the file
+     * @param size  recorded size of the file
+     * @param lastModified  recorded last modified time of the file in milliseconds
+     */
+    public FsEntry(FsEntry parent, String name, byte[] hash, long size, long lastModified) {
         this.parent = parent;
         this.name = name;
         this.hash = hash;
+        this.size = size;
+        this.lastModified = lastModified;
         this.dir = false;
         this.p = null;
         if(parent != null) {
@@ -164,6 +197,10 @@ public class FsEntry {
         return true;
     }
 
+    boolean isHashed() {
+        return hash != null;
+    }
+
     public byte[] getHash() throws ProvisioningException {
         if(hash == null) {
             try {
@@ -175,6 +212,66 @@ public class FsEntry {
         return hash;
     }
 
+    /**
+     * Returns the size of the file or -1, if the entry was not created for a path
+     * and the size was not recorded.
+     *
+     * @return  the size of the file
+     * @throws ProvisioningException  in case the attributes of the file could not be read
+     */
+    public long getSize() throws ProvisioningException {
+        if(size < 0 && p != null) {
+            readAttributes();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the last modified time of the file in milliseconds or -1, if the entry
+     * was not created for a path and the time was not recorded.
+     *
+     * @return  the last modified time of the file
+     * @throws ProvisioningException  in case the attributes of the file could not be read
+     */
+    public long getLastModified() throws ProvisioningException {
+        if(lastModified < 0 && p != null) {
+            readAttributes();
+        }
+        return lastModified;
+    }
+
+    private void readAttributes() throws ProvisioningException {
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(p, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(p), e);
+        }
+        size = attrs.size();
+        lastModified = attrs.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Checks whether the size and the last modified time recorded for this entry
+     * match those of the file the other entry was created for. If they do,
+     * the recorded hash is assigned to the other entry, so that the file
+     * does not have to be read to calculate its hash.
+     *
+     * @param other  entry created for a file
+     * @return  true if the recorded attributes match the attributes of the file, otherwise false
+     * @throws ProvisioningException  in case the attributes of the file could not be read
+     */
+    boolean reuseHashIfUnchanged(FsEntry other) throws ProvisioningException {
+        if(p != null || hash == null || size < 0 || lastModified < 0 || other.p == null || other.hash != null) {
+            return false;
+        }
+        if(size != other.getSize() || lastModified != other.getLastModified()) {
+            return false;
+        }
+        other.hash = hash;
+        return true;
+    }
+
     public boolean isDiffStatusAdded() {
         return diffStatus == ADDED;
     }
@@ -150,6 +150,42 @@ public class FsEntryFactory {
         return entry;
     }
 
+    /**
+     * Builds a representation of the filesystem branch reusing the hashes recorded for it.
+     * The hash recorded for a file is reused only if the recorded size and last modified time
+     * match those of the file, otherwise the file will be hashed when its hash is requested.
+     *
+     * @param p  root of the branch
+     * @param recorded  previously recorded hashes of the branch or null
+     * @return  representation of the branch
+     * @throws ProvisioningException  in case of a failure
+     */
+    public FsEntry forPath(Path p, FsEntry recorded) throws ProvisioningException {
+        final FsEntry entry = forPath(p);
+        if(recorded != null) {
+            reuseHashes(recorded, entry);
+        }
+        return entry;
+    }
+
+    private static void reuseHashes(FsEntry recorded, FsEntry entry) throws ProvisioningException {
+        if(!entry.dir) {
+            if(!recorded.dir) {
+                recorded.reuseHashIfUnchanged(entry);
+            }
+            return;
+        }
+        if(!recorded.dir || !entry.hasChildren()) {
+            return;
+        }
+        for(FsEntry child : entry.getChildren()) {
+            final FsEntry recordedChild = recorded.getChild(child.name);
+            if(recordedChild != null) {
+                reuseHashes(recordedChild, child);
+            }
+        }
+    }
+
     private void initChildren(final FsEntry parent) throws IOException {
         boolean hasDirs = false;
         try(DirectoryStream<Path> stream = Files.newDirectoryStream(parent.p)) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.diff;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.util.ConcurrentUtils;
+
+/**
+ * Calculates the hashes of filesystem entries concurrently.
+ *
+ * @author Alexey Loubyansky
+ */
+public class FsEntryHasher {
+
+    private static final String THREAD_NAME = "Galleon content hasher";
+
+    /**
+     * Calculates the hashes of all the files in the branch.
+     *
+     * @param root  root of the branch
+     * @param threads  maximum number of threads
+     * @throws ProvisioningException  in case hashing failed
+     */
+    public static void hashTree(FsEntry root, int threads) throws ProvisioningException {
+        final List<FsEntry> files = new ArrayList<>();
+        collectFiles(root, files);
+        hash(files, threads);
+    }
+
+    /**
+     * Calculates the hashes of the entries that have not been hashed yet.
+     *
+     * @param entries  entries to hash
+     * @param threads  maximum number of threads
+     * @throws ProvisioningException  in case hashing failed
+     */
+    public static void hash(Collection<FsEntry> entries, int threads) throws ProvisioningException {
+        final List<ConcurrentUtils.Task> tasks = new ArrayList<>(entries.size());
+        for(FsEntry entry : entries) {
+            if(entry.isHashed()) {
+                continue;
+            }
+            tasks.add(new ConcurrentUtils.Task() {
+                @Override
+                public void execute() throws ProvisioningException {
+                    entry.getHash();
+                }
+            });
+        }
+        ConcurrentUtils.execute(tasks, threads, THREAD_NAME);
+    }
+
+    private static void collectFiles(FsEntry entry, List<FsEntry> files) {
+        if(!entry.dir) {
+            files.add(entry);
+            return;
+        }
+        for(FsEntry child : entry.getChildren()) {
+            collectFiles(child, files);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.diff;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.util.HashUtils;
+
+/**
+ * Writes and reads the hashes of the files of a filesystem branch to and from a single binary index file.
+ *
+ * The index starts with a magic number and a format version followed by the entries of the branch
+ * written depth-first. A directory is written as its name and the number of its children followed by the children.
+ * A file is written as its name, its hash, its size and its last modified time (-1 if unknown).
+ *
+ * The legacy layout, i.e. a directory tree mirroring the branch with a {@code hashes} file in each directory
+ * listing the names of the files and their hashes, can be read with {@link #readHashesDir(Path)}.
+ *
+ * @author Alexey Loubyansky
+ */
+public class FsHashIndex {
+
+    private static final int MAGIC = 0x474c4e48; // GLNH
+    private static final int VERSION = 1;
+
+    private static final byte FILE = 0;
+    private static final byte DIR = 1;
+
+    /**
+     * Writes the hashes of the files of the branch to the index file.
+     *
+     * @param root  root of the branch
+     * @param file  target index file
+     * @throws ProvisioningException  in case of a failure
+     */
+    public static void write(FsEntry root, Path file) throws ProvisioningException {
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeChildren(root, out);
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.hashesNotPersisted(), e);
+        }
+    }
+
+    private static void writeChildren(FsEntry dir, DataOutputStream out) throws IOException, ProvisioningException {
+        final Collection<FsEntry> children = dir.getChildren();
+        out.writeInt(children.size());
+        for(FsEntry child : children) {
+            final byte[] name = child.getName().getBytes(StandardCharsets.UTF_8);
+            if(child.isDir()) {
+                out.writeByte(DIR);
+                out.writeInt(name.length);
+                out.write(name);
+                writeChildren(child, out);
+            } else {
+                out.writeByte(FILE);
+                out.writeInt(name.length);
+                out.write(name);
+                final byte[] hash = child.getHash();
+                out.writeShort(hash.length);
+                out.write(hash);
+                out.writeLong(child.getSize());
+                out.writeLong(child.getLastModified());
+            }
+        }
+    }
+
+    /**
+     * Reads the index file into memory and creates the entries it describes.
+     *
+     * @param file  index file
+     * @return  root of the branch
+     * @throws ProvisioningException  in case of a failure
+     */
+    public static FsEntry read(Path file) throws ProvisioningException {
+        return read(file, false);
+    }
+
+    /**
+     * Reads the index file and creates the entries it describes.
+     * If memory mapping is requested, the index is read from a file mapped into memory instead of
+     * being copied into the heap. Note that on some platforms the mapped file cannot be deleted
+     * until the mapping has been garbage collected.
+     *
+     * @param file  index file
+     * @param map  whether the file should be mapped into memory
+     * @return  root of the branch
+     * @throws ProvisioningException  in case of a failure
+     */
+    public static FsEntry read(Path file, boolean map) throws ProvisioningException {
+        final ByteBuffer buf;
+        try {
+            if(map) {
+                try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            } else {
+                buf = ByteBuffer.wrap(Files.readAllBytes(file));
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(file), e);
+        }
+        try {
+            if(buf.getInt() != MAGIC) {
+                throw new ProvisioningException(Errors.hashesNotRead(file) + ": not a hash index");
+            }
+            final int version = buf.getInt();
+            if(version != VERSION) {
+                throw new ProvisioningException(Errors.hashesNotRead(file) + ": unsupported version " + version);
+            }
+            final FsEntry root = new FsEntry(null, "");
+            readChildren(root, buf);
+            return root;
+        } catch(BufferUnderflowException e) {
+            throw new ProvisioningException(Errors.hashesNotRead(file), e);
+        }
+    }
+
+    private static void readChildren(FsEntry parent, ByteBuffer buf) {
+        int children = buf.getInt();
+        while(children-- > 0) {
+            final byte type = buf.get();
+            final byte[] name = new byte[buf.getInt()];
+            buf.get(name);
+            if(type == DIR) {
+                readChildren(new FsEntry(parent, new String(name, StandardCharsets.UTF_8)), buf);
+            } else {
+                final byte[] hash = new byte[buf.getShort() & 0xffff];
+                buf.get(hash);
+                new FsEntry(parent, new String(name, StandardCharsets.UTF_8), hash, buf.getLong(), buf.getLong());
+            }
+        }
+    }
+
+    /**
+     * Reads the hashes persisted in the legacy layout, i.e. a directory tree mirroring
+     * the branch with a {@code hashes} file in each directory.
+     *
+     * @param hashesDir  root of the hashes directory tree
+     * @return  root of the branch
+     * @throws ProvisioningException  in case of a failure
+     */
+    public static FsEntry readHashesDir(Path hashesDir) throws ProvisioningException {
+        final FsEntry root = new FsEntry(null, hashesDir);
+        readHashes(root, new ArrayList<>());
+        return root;
+    }
+
+    private static void readHashes(FsEntry parent, List<FsEntry> dirs) throws ProvisioningException {
+        int dirsTotal = 0;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(parent.getPath())) {
+            for(Path child : stream) {
+                if(child.getFileName().toString().equals(Constants.HASHES)) {
+                    try(BufferedReader reader = Files.newBufferedReader(child)) {
+                        String line = reader.readLine();
+                        while(line != null) {
+                            readFileHash(parent, line, reader.readLine());
+                            line = reader.readLine();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        throw new ProvisioningException(Errors.hashesNotRead(child), e);
+                    }
+                } else {
+                    dirs.add(new FsEntry(parent, child));
+                    ++dirsTotal;
+                }
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.hashesNotRead(parent.getPath()), e);
+        }
+        while(dirsTotal > 0) {
+            readHashes(dirs.remove(dirs.size() - 1), dirs);
+            --dirsTotal;
+        }
+    }
+
+    /**
+     * Creates an entry for a file from its persisted state. The state line contains the hash
+     * optionally followed by the size and the last modified time of the file separated by spaces.
+     */
+    private static void readFileHash(FsEntry parent, String name, String state) {
+        final int sizeStart = state.indexOf(' ');
+        if(sizeStart < 0) {
+            new FsEntry(parent, name, HashUtils.hexStringToByteArray(state));
+            return;
+        }
+        final int timeStart = state.indexOf(' ', sizeStart + 1);
+        new FsEntry(parent, name, HashUtils.hexStringToByteArray(state.substring(0, sizeStart)),
+                Long.parseLong(state.substring(sizeStart + 1, timeStart)),
+                Long.parseLong(state.substring(timeStart + 1)));
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.layout;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.util.CollectionUtils;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.util.PropertyUtils;
+import org.jboss.galleon.util.ZipUtils;
+
+/**
+ * On-disk cache of extracted feature-pack archives which can be shared by provisioning layout factories
+ * and processes, so that feature-pack archives are not extracted again for every provisioning session.
+ *
+ * Each entry of the cache is identified by the feature-pack ID and the checksum of the archive it was extracted from,
+ * so a changed archive with the same ID (e.g. a snapshot) is extracted again. Once the total size of the extracted
+ * feature-packs exceeds the configured maximum size, the least recently used entries that are not in use by this cache
+ * instance are removed. The temporary directories left over by interrupted extractions and evictions are removed
+ * once they are older than an hour.
+ *
+ * Note that removing an entry that is being read by another process will make that process fail,
+ * so the maximum size should leave room for the feature-packs processes use concurrently.
+ *
+ * @author Alexey Loubyansky
+ */
+public class FeaturePackCache {
+
+    private static class CacheEntry {
+        final Path dir;
+        final long size;
+        final FileTime lastUsed;
+
+        CacheEntry(Path dir, long size, FileTime lastUsed) {
+            this.dir = dir;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * Default maximum size of the cache (1GB)
+     */
+    public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+    private static final String CONTENT = "fp";
+    private static final String SIZE = "size";
+    private static final String TMP_PREFIX = ".";
+    /**
+     * Temporary directories older than this are considered left over by interrupted extractions and evictions
+     */
+    private static final long STALE_TMP_MILLIS = 60L * 60 * 1000;
+
+    /**
+     * Creates a cache with the default maximum size.
+     *
+     * @param dir  cache directory
+     * @return  feature-pack cache
+     */
+    public static FeaturePackCache newInstance(Path dir) {
+        return newInstance(dir, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param dir  cache directory
+     * @param maxSize  maximum total size of the extracted feature-packs in bytes, a negative value means the size is not limited
+     * @return  feature-pack cache
+     */
+    public static FeaturePackCache newInstance(Path dir, long maxSize) {
+        return new FeaturePackCache(dir, maxSize);
+    }
+
+    /**
+     * Creates a cache configured with the {@link Constants#PROP_FP_CACHE_DIR} and {@link Constants#PROP_FP_CACHE_MAX_SIZE}
+     * system properties or returns null, if the cache directory has not been configured.
+     *
+     * @return  feature-pack cache or null
+     * @throws ProvisioningException  in case the maximum size is not a valid number
+     */
+    public static FeaturePackCache fromSystemProperties() throws ProvisioningException {
+        final String dir = PropertyUtils.getSystemProperty(Constants.PROP_FP_CACHE_DIR);
+        if(dir == null || dir.isEmpty()) {
+            return null;
+        }
+        final String maxSize = PropertyUtils.getSystemProperty(Constants.PROP_FP_CACHE_MAX_SIZE);
+        if(maxSize == null || maxSize.isEmpty()) {
+            return newInstance(Paths.get(dir));
+        }
+        try {
+            return newInstance(Paths.get(dir), Long.parseLong(maxSize));
+        } catch(NumberFormatException e) {
+            throw new ProvisioningException(Errors.invalidSystemProperty(Constants.PROP_FP_CACHE_MAX_SIZE, maxSize), e);
+        }
+    }
+
+    private final Path dir;
+    private final long maxSize;
+    private final Map<String, Integer> inUse = new HashMap<>();
+
+    private FeaturePackCache(Path dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the directory of the feature-pack extracted from the archive, extracting it first
+     * if it is not in the cache yet. The entry will not be removed by this cache instance
+     * until it is released.
+     *
+     * @param fpid  feature-pack ID
+     * @param archive  feature-pack archive
+     * @return  the directory of the extracted feature-pack
+     * @throws ProvisioningException  in case of a failure
+     */
+    Path acquire(FPID fpid, Path archive) throws ProvisioningException {
+        final String key;
+        try {
+            key = HashUtils.hash(fpid + ":" + HashUtils.hashFile(archive));
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.hashCalculation(archive), e);
+        }
+        final Path entryDir = dir.resolve(key);
+        synchronized(this) {
+            // protect the entry from the eviction while it is being resolved
+            final Integer count = inUse.get(key);
+            inUse.put(key, count == null ? 1 : count + 1);
+        }
+        boolean acquired = false;
+        try {
+            Files.createDirectories(dir);
+            if (Files.exists(entryDir.resolve(SIZE))) {
+                Files.setLastModifiedTime(entryDir, FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                extract(archive, entryDir);
+            }
+            acquired = true;
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.writeFile(entryDir), e);
+        } finally {
+            if(!acquired) {
+                release(entryDir.resolve(CONTENT));
+            }
+        }
+        synchronized(this) {
+            evict();
+        }
+        return entryDir.resolve(CONTENT);
+    }
+
+    /**
+     * Releases a feature-pack directory previously returned by {@link #acquire(FPID, Path)}.
+     *
+     * @param fpDir  feature-pack directory
+     */
+    synchronized void release(Path fpDir) {
+        final String key = fpDir.getParent().getFileName().toString();
+        final Integer count = inUse.get(key);
+        if(count == null) {
+            return;
+        }
+        if(count == 1) {
+            inUse.remove(key);
+        } else {
+            inUse.put(key, count - 1);
+        }
+    }
+
+    private void extract(Path archive, Path entryDir) throws ProvisioningException {
+        final Path tmpDir = dir.resolve(TMP_PREFIX + UUID.randomUUID());
+        try {
+            final Path contentDir = tmpDir.resolve(CONTENT);
+            ZipUtils.unzip(archive, contentDir);
+            IoUtils.writeFile(tmpDir.resolve(SIZE), String.valueOf(size(contentDir)));
+        } catch (IOException e) {
+            IoUtils.recursiveDelete(tmpDir);
+            throw new ProvisioningException(Errors.unzipFile(archive, tmpDir), e);
+        }
+        try {
+            Files.move(tmpDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // another process may have extracted the same feature-pack in the meantime
+            IoUtils.recursiveDelete(tmpDir);
+            if(!Files.exists(entryDir.resolve(SIZE))) {
+                throw new ProvisioningException(Errors.moveFile(tmpDir, entryDir), e);
+            }
+        }
+    }
+
+    private void evict() throws ProvisioningException {
+        final List<CacheEntry> entries = new ArrayList<>();
+        List<Path> staleTmpDirs = Collections.emptyList();
+        long totalSize = 0;
+        final long staleTime = System.currentTimeMillis() - STALE_TMP_MILLIS;
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for(Path entryDir : stream) {
+                final String key = entryDir.getFileName().toString();
+                if(key.startsWith(TMP_PREFIX)) {
+                    if(Files.getLastModifiedTime(entryDir).toMillis() < staleTime) {
+                        staleTmpDirs = CollectionUtils.add(staleTmpDirs, entryDir);
+                    }
+                    continue;
+                }
+                if(maxSize < 0) {
+                    continue;
+                }
+                final Path sizeFile = entryDir.resolve(SIZE);
+                if(!Files.exists(sizeFile)) {
+                    continue;
+                }
+                final long size;
+                try {
+                    size = Long.parseLong(IoUtils.readFile(sizeFile).trim());
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                totalSize += size;
+                if(!inUse.containsKey(key)) {
+                    entries.add(new CacheEntry(entryDir, size, Files.getLastModifiedTime(entryDir)));
+                }
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readDirectory(dir), e);
+        }
+        for(Path tmpDir : staleTmpDirs) {
+            IoUtils.recursiveDelete(tmpDir);
+        }
+        if(maxSize < 0) {
+            return;
+        }
+        if(totalSize <= maxSize) {
+            return;
+        }
+        Collections.sort(entries, new Comparator<CacheEntry>() {
+            @Override
+            public int compare(CacheEntry o1, CacheEntry o2) {
+                return o1.lastUsed.compareTo(o2.lastUsed);
+            }
+        });
+        for(CacheEntry entry : entries) {
+            // rename it first so that it is not picked up while it is being deleted
+            final Path tmpDir = dir.resolve(TMP_PREFIX + UUID.randomUUID());
+            try {
+                Files.move(entry.dir, tmpDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                continue;
+            }
+            IoUtils.recursiveDelete(tmpDir);
+            totalSize -= entry.size;
+            if(totalSize <= maxSize) {
+                break;
+            }
+        }
+    }
+
+    private static long size(Path dir) throws IOException {
+        final long[] size = new long[1];
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+}
@@ -18,10 +18,11 @@ package org.jboss.galleon.layout;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
-import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -33,7 +34,7 @@ import org.jboss.galleon.ProvisioningDescriptionException;
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.spec.FeaturePackSpec;
 import org.jboss.galleon.spec.PackageSpec;
-import org.jboss.galleon.util.ZipUtils;
+import org.jboss.galleon.util.ZipArchive;
 import org.jboss.galleon.xml.FeaturePackXmlParser;
 import org.jboss.galleon.xml.PackageXmlParser;
 import org.jboss.galleon.xml.XmlParsers;
@@ -48,31 +49,59 @@ import org.jboss.galleon.xml.XmlParsers;
 public class FeaturePackDescriber {
 
     public static FeaturePackSpec readSpec(Path artifactZip) throws ProvisioningException {
-        try (FileSystem zipfs = ZipUtils.newFileSystem(artifactZip)) {
-            for(Path zipRoot : zipfs.getRootDirectories()) {
-                final Path p = zipRoot.resolve(Constants.FEATURE_PACK_XML);
-                if(!Files.exists(p)) {
-                    throw new ProvisioningException("Feature-pack archive does not contain " + Constants.FEATURE_PACK_XML);
-                }
-                try(BufferedReader reader = Files.newBufferedReader(p)) {
-                    return FeaturePackXmlParser.getInstance().parse(reader);
-                } catch (XMLStreamException e) {
-                    throw new ProvisioningException(Errors.parseXml(p), e);
-                }
+        try (ZipArchive archive = ZipArchive.open(artifactZip)) {
+            if(!archive.exists(Constants.FEATURE_PACK_XML)) {
+                throw new ProvisioningException("Feature-pack archive does not contain " + Constants.FEATURE_PACK_XML);
+            }
+            try(BufferedReader reader = newReader(archive, Constants.FEATURE_PACK_XML, StandardCharsets.UTF_8)) {
+                return FeaturePackXmlParser.getInstance().parse(reader);
+            } catch (XMLStreamException e) {
+                throw new ProvisioningException(Errors.parseXml(artifactZip), e);
             }
         } catch (IOException e) {
             throw new ProvisioningException(Errors.readFile(artifactZip), e);
         }
-        return null;
     }
 
     public static FeaturePackDescription describeFeaturePackZip(Path artifactZip) throws IOException, ProvisioningDescriptionException {
-        try (FileSystem zipfs = ZipUtils.newFileSystem(artifactZip)) {
-            for(Path zipRoot : zipfs.getRootDirectories()) {
-                return describeFeaturePack(zipRoot, "UTF-8");
+        final Charset encoding = StandardCharsets.UTF_8;
+        try (ZipArchive archive = ZipArchive.open(artifactZip)) {
+            if(!archive.exists(Constants.FEATURE_PACK_XML)) {
+                throw new ProvisioningDescriptionException(entryNotFound(archive, Constants.FEATURE_PACK_XML));
+            }
+            final FeaturePackDescription.Builder layoutBuilder;
+            try (Reader is = newReader(archive, Constants.FEATURE_PACK_XML, encoding)) {
+                final FeaturePackSpec.Builder specBuilder = FeaturePackSpec.builder();
+                XmlParsers.parse(is, specBuilder);
+                layoutBuilder = FeaturePackDescription.builder(specBuilder);
+            } catch (XMLStreamException e) {
+                throw new ProvisioningDescriptionException(Errors.parseXml(artifactZip), e);
+            }
+            for(String pkgName : archive.list(Constants.PACKAGES)) {
+                final String pkgDir = Constants.PACKAGES + '/' + pkgName;
+                if(!archive.isDirectory(pkgDir)) {
+                    throw new ProvisioningDescriptionException(pkgDir + " in " + artifactZip + " is not a directory");
+                }
+                final String pkgXml = pkgDir + '/' + Constants.PACKAGE_XML;
+                if(!archive.exists(pkgXml)) {
+                    throw new ProvisioningDescriptionException(entryNotFound(archive, pkgXml));
+                }
+                try (Reader in = newReader(archive, pkgXml, encoding)) {
+                    layoutBuilder.addPackage(PackageXmlParser.getInstance().parse(in));
+                } catch (XMLStreamException e) {
+                    throw new ProvisioningDescriptionException(Errors.parseXml(artifactZip), e);
+                }
             }
+            return layoutBuilder.build();
         }
-        return null;
+    }
+
+    private static BufferedReader newReader(ZipArchive archive, String path, Charset encoding) throws IOException {
+        return new BufferedReader(new InputStreamReader(archive.openStream(path), encoding));
+    }
+
+    private static String entryNotFound(ZipArchive archive, String path) {
+        return "Failed to locate " + path + " in " + archive.getPath().toAbsolutePath();
     }
 
     public static FeaturePackDescription describeFeaturePack(Path fpDir, String encoding) throws ProvisioningDescriptionException {
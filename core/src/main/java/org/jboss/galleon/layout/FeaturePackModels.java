@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.layout;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.galleon.config.ConfigId;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureGroup;
+import org.jboss.galleon.spec.ConfigLayerSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+
+/**
+ * Models parsed from the XML descriptors of a feature-pack, which are shared
+ * by the provisioning runtimes built using the same {@link ProvisioningLayoutFactory}.
+ * The parsed models are immutable, so the instances of this class can safely be accessed concurrently.
+ *
+ * @author Alexey Loubyansky
+ */
+public class FeaturePackModels {
+
+    private final FPID fpid;
+    final Path dir;
+    private final Map<String, FeatureSpec> featureSpecs = new ConcurrentHashMap<>();
+    private final Map<String, FeatureGroup> featureGroups = new ConcurrentHashMap<>();
+    private final Map<ConfigId, ConfigLayerSpec> layers = new ConcurrentHashMap<>();
+    private final Map<ConfigId, ConfigModel> configs = new ConcurrentHashMap<>();
+
+    FeaturePackModels(FPID fpid, Path dir) {
+        this.fpid = fpid;
+        this.dir = dir;
+    }
+
+    public FPID getFPID() {
+        return fpid;
+    }
+
+    public FeatureSpec getFeatureSpec(String name) {
+        return featureSpecs.get(name);
+    }
+
+    public void putFeatureSpec(FeatureSpec spec) {
+        featureSpecs.put(spec.getName(), spec);
+    }
+
+    public FeatureGroup getFeatureGroup(String name) {
+        return featureGroups.get(name);
+    }
+
+    public void putFeatureGroup(FeatureGroup fg) {
+        featureGroups.put(fg.getName(), fg);
+    }
+
+    public ConfigLayerSpec getConfigLayer(ConfigId layerId) {
+        return layers.get(layerId);
+    }
+
+    public void putConfigLayer(ConfigId layerId, ConfigLayerSpec layer) {
+        layers.put(layerId, layer);
+    }
+
+    public ConfigModel getConfig(ConfigId configId) {
+        return configs.get(configId);
+    }
+
+    public void putConfig(ConfigModel config) {
+        configs.put(config.getId(), config);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.layout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.FeaturePackDepsConfig;
+import org.jboss.galleon.spec.FeaturePackSpec;
+import org.jboss.galleon.universe.FeaturePackLocation;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.jboss.galleon.util.ConcurrentUtils;
+
+/**
+ * Resolves the feature-packs a configuration depends on, directly and transitively, concurrently
+ * so that they are available in the layout factory by the time the layout is built.
+ *
+ * The versions of the feature-packs are determined the way the layout determines them, i.e. the versions
+ * of the transitive and direct dependencies of a configuration override the versions of the same producers
+ * the dependencies of its feature-packs declare, so that the feature-packs that are not going to be included
+ * into the layout are not resolved. Locations in conflict with the overriding versions are skipped,
+ * the conflicts are reported when the layout is built. The layout includes only one version of a producer,
+ * the one it encounters first, so once a version of a producer has been resolved, the other versions
+ * of the producer are skipped as well.
+ *
+ * A failure to resolve a feature-pack is reported, unless more than one version of its producer
+ * has been encountered, in which case the failed one may not be the one the layout will include.
+ *
+ * @author Alexey Loubyansky
+ */
+class FeaturePackPrefetcher {
+
+    private static final String THREAD_NAME = "Galleon feature-pack resolver";
+
+    static void prefetch(ProvisioningLayoutFactory layoutFactory, FeaturePackDepsConfig config, int threads) throws ProvisioningException {
+        if(threads < 2 || !config.hasFeaturePackDeps()) {
+            return;
+        }
+        final FeaturePackPrefetcher prefetcher = new FeaturePackPrefetcher(layoutFactory, threads);
+        try {
+            prefetcher.submitDeps(config, Collections.emptyMap());
+            prefetcher.await();
+        } finally {
+            if(prefetcher.executor != null) {
+                prefetcher.executor.shutdownNow();
+            }
+        }
+        prefetcher.checkFailures();
+    }
+
+    private final ProvisioningLayoutFactory layoutFactory;
+    private final UniverseResolver universeResolver;
+    private final int threads;
+    private final Map<ProducerSpec, FPID> submitted = new HashMap<>();
+    private final Set<ProducerSpec> multipleVersions = new HashSet<>();
+    private final Queue<Future<?>> pending = new ConcurrentLinkedQueue<>();
+    private final Map<FeaturePackLocation, ProvisioningException> failures = new LinkedHashMap<>();
+    private ExecutorService executor;
+
+    private FeaturePackPrefetcher(ProvisioningLayoutFactory layoutFactory, int threads) {
+        this.layoutFactory = layoutFactory;
+        this.universeResolver = layoutFactory.getUniverseResolver();
+        this.threads = threads;
+    }
+
+    /**
+     * Determines the versions of the direct dependencies of the configuration, which for the dependencies
+     * without a build may involve resolving the latest build, and, once all of them are known, resolves
+     * the feature-packs.
+     *
+     * @param config  configuration
+     * @param parentBranch  versions of the producers set by the configurations higher in the hierarchy
+     * @throws ProvisioningException  in case of a failure
+     */
+    private void submitDeps(FeaturePackDepsConfig config, Map<ProducerSpec, FPID> parentBranch) throws ProvisioningException {
+        if(!config.hasFeaturePackDeps()) {
+            return;
+        }
+        Map<ProducerSpec, FPID> branch = parentBranch;
+        if(config.hasTransitiveDeps()) {
+            branch = new HashMap<>(parentBranch);
+            for(FeaturePackConfig transitiveConfig : config.getTransitiveDeps()) {
+                FeaturePackLocation fpl = transitiveConfig.getLocation();
+                if(fpl.isMavenCoordinates()) {
+                    // the producer is not known until the feature-pack is resolved
+                    fpl = layoutFactory.resolveFeaturePackSpec(fpl).getFPID().getLocation();
+                }
+                if(!branch.containsKey(fpl.getProducer())) {
+                    branch.put(fpl.getProducer(), fpl.getFPID());
+                }
+            }
+        }
+
+        final List<FeaturePackLocation> locations = new ArrayList<>(config.getFeaturePackDeps().size());
+        for(FeaturePackConfig fpConfig : config.getFeaturePackDeps()) {
+            final FeaturePackLocation fpl = applyBranch(fpConfig.getLocation(), branch);
+            if(fpl != null) {
+                locations.add(fpl);
+            }
+        }
+        if(locations.isEmpty()) {
+            return;
+        }
+        final Map<ProducerSpec, FPID> depsBranch = branch;
+        final FeaturePackLocation[] normalized = new FeaturePackLocation[locations.size()];
+        final AtomicInteger remaining = new AtomicInteger(normalized.length);
+        for(int i = 0; i < normalized.length; ++i) {
+            final int index = i;
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    final FeaturePackLocation fpl = locations.get(index);
+                    try {
+                        normalized[index] = normalize(fpl, depsBranch);
+                    } catch (ProvisioningException e) {
+                        failed(fpl, e);
+                    }
+                    if(remaining.decrementAndGet() == 0) {
+                        submitResolved(normalized, depsBranch);
+                    }
+                }
+            });
+        }
+    }
+
+    private void submitResolved(FeaturePackLocation[] locations, Map<ProducerSpec, FPID> branch) {
+        final Map<ProducerSpec, FPID> childBranch = new HashMap<>(branch);
+        for(FeaturePackLocation fpl : locations) {
+            if(fpl == null) {
+                continue;
+            }
+            final FPID branchId = branch.get(fpl.getProducer());
+            if(branchId == null || branchId.getBuild() == null) {
+                childBranch.put(fpl.getProducer(), fpl.getFPID());
+            }
+        }
+        for(FeaturePackLocation fpl : locations) {
+            if(fpl == null) {
+                continue;
+            }
+            synchronized(submitted) {
+                final FPID submittedId = submitted.get(fpl.getProducer());
+                if(submittedId != null) {
+                    if(!submittedId.equals(fpl.getFPID())) {
+                        multipleVersions.add(fpl.getProducer());
+                    }
+                    continue;
+                }
+                submitted.put(fpl.getProducer(), fpl.getFPID());
+            }
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final FeaturePackSpec spec = layoutFactory.resolveFeaturePackSpec(fpl);
+                        if(spec.hasFeaturePackDeps()) {
+                            submitDeps(spec, childBranch);
+                        }
+                    } catch (ProvisioningException e) {
+                        failed(fpl, e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies the version of the producer set higher in the hierarchy to the location.
+     *
+     * @return  the location to resolve or null, if the location is in conflict with the version
+     * set higher in the hierarchy
+     */
+    private static FeaturePackLocation applyBranch(FeaturePackLocation fpl, Map<ProducerSpec, FPID> branch) {
+        if(fpl.isMavenCoordinates()) {
+            return fpl;
+        }
+        final FPID branchId = branch.get(fpl.getProducer());
+        if(branchId == null) {
+            return fpl;
+        }
+        if(branchId.getChannel().getName() != null && !branchId.getChannel().getName().equals(fpl.getChannelName())) {
+            return null;
+        }
+        if(branchId.getBuild() == null || branchId.getBuild().equals(fpl.getBuild())) {
+            return fpl;
+        }
+        return fpl.replaceBuild(branchId.getBuild());
+    }
+
+    /**
+     * Resolves the channel and the build of the location, if they are missing, the same way the layout does.
+     */
+    private FeaturePackLocation normalize(FeaturePackLocation fpl, Map<ProducerSpec, FPID> branch) throws ProvisioningException {
+        if(fpl.isMavenCoordinates()) {
+            // the producer is not known until the feature-pack is resolved
+            final FeaturePackLocation resolved = layoutFactory.resolveFeaturePackSpec(fpl).getFPID().getLocation();
+            final FeaturePackLocation branchFpl = applyBranch(resolved, branch);
+            return branchFpl == null ? null : normalize(branchFpl, branch);
+        }
+        if(fpl.getChannelName() != null && fpl.getBuild() != null) {
+            return fpl;
+        }
+        if(fpl.getBuild() == null) {
+            return universeResolver.resolveLatestBuild(fpl);
+        }
+        return new FeaturePackLocation(fpl.getUniverse(), fpl.getProducerName(), universeResolver.getChannel(fpl).getName(),
+                fpl.getFrequency(), fpl.getBuild());
+    }
+
+    private void execute(Runnable task) {
+        synchronized(pending) {
+            if(executor == null) {
+                executor = ConcurrentUtils.newFixedThreadPool(threads, THREAD_NAME);
+            }
+            pending.add(executor.submit(task));
+        }
+    }
+
+    private void failed(FeaturePackLocation fpl, ProvisioningException e) {
+        synchronized(failures) {
+            failures.put(fpl, e);
+        }
+    }
+
+    private void checkFailures() throws ProvisioningException {
+        synchronized(failures) {
+            for(Map.Entry<FeaturePackLocation, ProvisioningException> failure : failures.entrySet()) {
+                final FeaturePackLocation fpl = failure.getKey();
+                final boolean multipleVersions;
+                synchronized(submitted) {
+                    multipleVersions = !fpl.isMavenCoordinates() && this.multipleVersions.contains(fpl.getProducer());
+                }
+                if(!multipleVersions) {
+                    throw failure.getValue();
+                }
+            }
+        }
+    }
+
+    private void await() throws ProvisioningException {
+        Future<?> f;
+        while((f = pending.poll()) != null) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if(cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if(cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new ProvisioningException("Failed to resolve feature-packs", cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
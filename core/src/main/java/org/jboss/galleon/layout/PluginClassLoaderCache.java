@@ -0,0 +1,351 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.layout;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.stream.Stream;
+
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.plugin.ProvisioningPlugin;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.IoUtils;
+
+/**
+ * Class loaders of the feature-pack plugins shared by the layouts created by the same layout factory.
+ *
+ * Layouts that include the same set of plugin jars, identified by the names and the content hashes of the jars,
+ * share the class loader and the plugin classes discovered by the {@link ServiceLoader}. Plugin instances are
+ * still created for every layout. The class loaders load the plugins from the copies of the jars owned by the cache.
+ *
+ * The entries are reference counted by the layouts using them. Once an entry is not used by any layout
+ * it becomes idle and is kept for the layouts created later, unless the number of the idle entries exceeds
+ * the size of the cache, in which case the least recently released idle entries are evicted, i.e.
+ * their class loaders are closed and their copies of the jars removed. All the entries are evicted
+ * when the cache is closed.
+ *
+ * @author Alexey Loubyansky
+ */
+class PluginClassLoaderCache implements Closeable {
+
+    class Entry {
+        private final ClassLoader parent;
+        private final String key;
+        private final Path dir;
+        private final URLClassLoader cl;
+        private final Map<String, List<Class<?>>> providers = new HashMap<>();
+        private int refs;
+
+        private Entry(ClassLoader parent, String key, Path dir, URLClassLoader cl) {
+            this.parent = parent;
+            this.key = key;
+            this.dir = dir;
+            this.cl = cl;
+        }
+
+        ClassLoader getClassLoader() {
+            return cl;
+        }
+
+        /**
+         * Returns an iterator over new instances of the plugins of the specified type. The plugin classes are discovered
+         * with the {@link ServiceLoader} the first time the plugins of the type are requested.
+         *
+         * @param clazz  plugin type
+         * @return  plugin iterator
+         */
+        <T extends ProvisioningPlugin> Iterator<T> loadPlugins(Class<T> clazz) {
+            final List<Class<?>> classes;
+            synchronized(this) {
+                classes = providers.get(clazz.getName());
+            }
+            if(classes == null) {
+                return new DiscoveringIterator<>(clazz, ServiceLoader.load(clazz, cl).iterator());
+            }
+            return new Iterator<T>() {
+                int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < classes.size();
+                }
+
+                @Override
+                public T next() {
+                    if(!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final Class<?> provider = classes.get(i++);
+                    try {
+                        return clazz.cast(provider.getDeclaredConstructor().newInstance());
+                    } catch (ReflectiveOperationException e) {
+                        throw new ServiceConfigurationError(clazz.getName() + ": Provider " + provider.getName() + " could not be instantiated", e);
+                    }
+                }
+            };
+        }
+
+        private synchronized void discovered(Class<?> clazz, List<Class<?>> classes) {
+            providers.put(clazz.getName(), classes);
+        }
+
+        /**
+         * Records the classes of the plugins returned by the {@link ServiceLoader} once all of them have been iterated through.
+         */
+        private class DiscoveringIterator<T> implements Iterator<T> {
+            private final Class<T> clazz;
+            private final Iterator<T> delegate;
+            private List<Class<?>> classes = new ArrayList<>();
+
+            DiscoveringIterator(Class<T> clazz, Iterator<T> delegate) {
+                this.clazz = clazz;
+                this.delegate = delegate;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if(delegate.hasNext()) {
+                    return true;
+                }
+                if(classes != null) {
+                    discovered(clazz, classes.isEmpty() ? Collections.emptyList() : classes);
+                    classes = null;
+                }
+                return false;
+            }
+
+            @Override
+            public T next() {
+                final T plugin = delegate.next();
+                if(classes != null) {
+                    classes.add(plugin.getClass());
+                }
+                return plugin;
+            }
+        }
+    }
+
+    private static class JarHash {
+        final long size;
+        final FileTime lastModified;
+        final String hash;
+
+        JarHash(long size, FileTime lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    private static final int MAX_JAR_HASHES = 256;
+
+    private final Map<ClassLoader, Map<String, Entry>> entries = new IdentityHashMap<>();
+    private final Map<Entry, Boolean> idleEntries = new LinkedHashMap<>();
+    private final Map<Object, JarHash> jarHashes = new LinkedHashMap<Object, JarHash>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, JarHash> eldest) {
+            return size() > MAX_JAR_HASHES;
+        }
+    };
+    private int size;
+    private Path dir;
+    private int dirs;
+
+    PluginClassLoaderCache(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Sets the maximum number of the idle entries, i.e. the entries not used by any layout,
+     * kept by the cache. The value of 0 means the entries are evicted as soon as they become idle.
+     *
+     * @param size  maximum number of the idle entries
+     */
+    synchronized void setSize(int size) {
+        this.size = size;
+        evictIdleEntries();
+    }
+
+    /**
+     * Returns the cache entry for the plugin jars in the directory, creating it first, if the same set
+     * of the plugin jars hasn't been loaded by this cache yet or its entry has been evicted.
+     * The entry returned must be released with {@link #release(Entry)} once the caller is done with it.
+     *
+     * @param pluginsDir  directory containing plugin jars
+     * @param parent  parent class loader
+     * @return  cache entry or null, if the directory does not contain any plugin jars
+     * @throws ProvisioningException  in case of a failure
+     */
+    synchronized Entry getEntry(Path pluginsDir, ClassLoader parent) throws ProvisioningException {
+        final List<Path> jars = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(pluginsDir)) {
+            final Iterator<Path> i = stream.iterator();
+            while(i.hasNext()) {
+                jars.add(i.next());
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readDirectory(pluginsDir), e);
+        }
+        if(jars.isEmpty()) {
+            return null;
+        }
+        Collections.sort(jars);
+        final StringBuilder buf = new StringBuilder();
+        for(Path jar : jars) {
+            buf.append(jar.getFileName()).append(':').append(getHash(jar)).append(';');
+        }
+        final String key;
+        try {
+            key = HashUtils.hash(buf.toString());
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.hashCalculation(pluginsDir), e);
+        }
+
+        Map<String, Entry> parentEntries = entries.get(parent);
+        if(parentEntries == null) {
+            parentEntries = new HashMap<>();
+            entries.put(parent, parentEntries);
+        } else {
+            final Entry entry = parentEntries.get(key);
+            if(entry != null) {
+                if(entry.refs++ == 0) {
+                    idleEntries.remove(entry);
+                }
+                return entry;
+            }
+        }
+
+        if(dir == null) {
+            dir = IoUtils.createRandomTmpDir();
+        }
+        final Path entryDir = dir.resolve(String.valueOf(++dirs));
+        final URL[] urls = new URL[jars.size()];
+        try {
+            for(int i = 0; i < urls.length; ++i) {
+                final Path jar = entryDir.resolve(jars.get(i).getFileName().toString());
+                IoUtils.linkOrCopy(jars.get(i), jar);
+                urls[i] = jar.toUri().toURL();
+            }
+        } catch (IOException e) {
+            IoUtils.recursiveDelete(entryDir);
+            throw new ProvisioningException(Errors.copyFile(pluginsDir, entryDir), e);
+        }
+        final Entry entry = new Entry(parent, key, entryDir, new URLClassLoader(urls, parent));
+        entry.refs = 1;
+        parentEntries.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Releases the entry previously returned by {@link #getEntry(Path, ClassLoader)}.
+     * If the entry is not used by anyone else, it becomes idle and may be evicted.
+     *
+     * @param entry  cache entry
+     */
+    synchronized void release(Entry entry) {
+        if(entry.refs == 0 || --entry.refs > 0) {
+            return;
+        }
+        final Map<String, Entry> parentEntries = entries.get(entry.parent);
+        if(parentEntries == null || parentEntries.get(entry.key) != entry) {
+            // the cache has been closed
+            return;
+        }
+        idleEntries.put(entry, true);
+        evictIdleEntries();
+    }
+
+    private void evictIdleEntries() {
+        if(idleEntries.size() <= size) {
+            return;
+        }
+        final Iterator<Entry> i = idleEntries.keySet().iterator();
+        while(idleEntries.size() > size) {
+            final Entry entry = i.next();
+            i.remove();
+            final Map<String, Entry> parentEntries = entries.get(entry.parent);
+            parentEntries.remove(entry.key);
+            if(parentEntries.isEmpty()) {
+                entries.remove(entry.parent);
+            }
+            evict(entry);
+        }
+    }
+
+    private static void evict(Entry entry) {
+        try {
+            entry.cl.close();
+        } catch (IOException e) {
+        }
+        IoUtils.recursiveDelete(entry.dir);
+    }
+
+    private String getHash(Path jar) throws ProvisioningException {
+        try {
+            final BasicFileAttributes attrs = Files.readAttributes(jar, BasicFileAttributes.class);
+            // hard-linked copies of the same jar share the file key
+            final Object fileKey = attrs.fileKey() == null ? jar.toAbsolutePath() : attrs.fileKey();
+            JarHash jarHash = jarHashes.get(fileKey);
+            if(jarHash == null || jarHash.size != attrs.size() || !jarHash.lastModified.equals(attrs.lastModifiedTime())) {
+                jarHash = new JarHash(attrs.size(), attrs.lastModifiedTime(), HashUtils.hashFile(jar));
+                jarHashes.put(fileKey, jarHash);
+            }
+            return jarHash.hash;
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.hashCalculation(jar), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for(Map<String, Entry> parentEntries : entries.values()) {
+            for(Entry entry : parentEntries.values()) {
+                try {
+                    entry.cl.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+        entries.clear();
+        idleEntries.clear();
+        jarHashes.clear();
+        if(dir != null) {
+            IoUtils.recursiveDelete(dir);
+            dir = null;
+        }
+    }
+}
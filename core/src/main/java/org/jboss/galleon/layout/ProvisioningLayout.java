@@ -21,7 +21,6 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -35,7 +34,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import org.jboss.galleon.Constants;
 import org.jboss.galleon.Errors;
@@ -55,9 +53,9 @@ import org.jboss.galleon.universe.Channel;
 import org.jboss.galleon.universe.FeaturePackLocation;
 import org.jboss.galleon.universe.FeaturePackLocation.FPID;
 import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
-import org.jboss.galleon.universe.Universe;
 import org.jboss.galleon.universe.UniverseResolver;
 import org.jboss.galleon.util.CollectionUtils;
+import org.jboss.galleon.util.ConcurrentUtils;
 import org.jboss.galleon.util.IoUtils;
 import org.jboss.galleon.util.LayoutUtils;
 
@@ -71,11 +69,13 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
     public static final String STAGED = "staged";
     public static final String TMP = "tmp";
 
+    private static final String UPDATES_THREAD_NAME = "Galleon update checker";
+
     public static class Handle implements Closeable {
         private final ProvisioningLayoutFactory layoutFactory;
         private Path workDir;
         private ClassLoader pluginsCl;
-        private boolean closePluginsCl;
+        private PluginClassLoaderCache.Entry pluginsClEntry;
         private Map<String, List<ProvisioningPlugin>> loadedPlugins = Collections.emptyMap();
         private Path patchedDir;
         private Path pluginsDir;
@@ -90,15 +90,12 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
         }
 
         protected void reset() {
-            if(closePluginsCl) {
-                try {
-                    ((java.net.URLClassLoader)pluginsCl).close();
-                } catch (IOException e) {
-                    //e.printStackTrace();
-                }
-                closePluginsCl = false;
-            }
+            // the plugins class loader is shared and closed by the layout factory once it is not used
             pluginsCl = null;
+            if(pluginsClEntry != null) {
+                layoutFactory.getPluginClassLoaders().release(pluginsClEntry);
+                pluginsClEntry = null;
+            }
             loadedPlugins = Collections.emptyMap();
             if(workDir != null) {
                 try(DirectoryStream<Path> stream = Files.newDirectoryStream(workDir)) {
@@ -155,20 +152,37 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
                 }
             }
 
-            final UniverseResolver universeResolver = layoutFactory.getUniverseResolver();
+            // the plugin artifacts are resolved in one batch per repository
+            final Map<String, List<FeaturePackPlugin>> pluginsByRepo = new LinkedHashMap<>();
             for(FeaturePackPlugin plugin : plugins) {
-                String pluginId = plugin.getId();
-                if(!pluginId.endsWith(".jar")) {
-                    pluginId += ".jar";
+                List<FeaturePackPlugin> repoPlugins = pluginsByRepo.get(plugin.getRepoId());
+                if(repoPlugins == null) {
+                    repoPlugins = new ArrayList<>();
+                    pluginsByRepo.put(plugin.getRepoId(), repoPlugins);
                 }
-                final RepositoryArtifactResolver resolver = universeResolver.getArtifactResolver(plugin.getRepoId());
+                repoPlugins.add(plugin);
+            }
+            final UniverseResolver universeResolver = layoutFactory.getUniverseResolver();
+            for(Map.Entry<String, List<FeaturePackPlugin>> entry : pluginsByRepo.entrySet()) {
+                final RepositoryArtifactResolver resolver = universeResolver.getArtifactResolver(entry.getKey());
                 if(resolver == null) {
-                    throw new ProvisioningException("Failed to resolve plugin " + plugin + ": artifact resolver " + plugin.getRepoId() + " has not been configured");
+                    throw new ProvisioningException("Failed to resolve plugin " + entry.getValue().get(0) + ": artifact resolver " + entry.getKey() + " has not been configured");
                 }
-                try {
-                    Files.copy(resolver.resolve(plugin.getLocation()), pluginsDir.resolve(pluginId), StandardCopyOption.REPLACE_EXISTING);
-                } catch (IOException e) {
-                    throw new ProvisioningException("Failed to copy feature-pack plugin", e);
+                final List<String> locations = new ArrayList<>(entry.getValue().size());
+                for(FeaturePackPlugin plugin : entry.getValue()) {
+                    locations.add(plugin.getLocation());
+                }
+                final Map<String, Path> resolved = resolver.resolveLocations(locations);
+                for(FeaturePackPlugin plugin : entry.getValue()) {
+                    String pluginId = plugin.getId();
+                    if(!pluginId.endsWith(".jar")) {
+                        pluginId += ".jar";
+                    }
+                    try {
+                        IoUtils.copy(resolved.get(plugin.getLocation()), pluginsDir.resolve(pluginId));
+                    } catch (IOException e) {
+                        throw new ProvisioningException("Failed to copy feature-pack plugin", e);
+                    }
                 }
             }
         }
@@ -224,19 +238,10 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
             }
             pluginsCl = Thread.currentThread().getContextClassLoader();
             if (pluginsDir != null) {
-                List<java.net.URL> urls = new ArrayList<>();
-                try (Stream<Path> stream = Files.list(pluginsDir)) {
-                    final Iterator<Path> i = stream.iterator();
-                    while(i.hasNext()) {
-                        urls.add(i.next().toUri().toURL());
-                    }
-                } catch (IOException e) {
-                    throw new ProvisioningException(Errors.readDirectory(pluginsDir), e);
-                }
-                if (!urls.isEmpty()) {
-                    closePluginsCl = true;
-                    pluginsCl = new java.net.URLClassLoader(urls.toArray(
-                            new java.net.URL[urls.size()]), pluginsCl);
+                // layouts with the same plugin jars share the class loader
+                pluginsClEntry = layoutFactory.getPluginClassLoaders().getEntry(pluginsDir, pluginsCl);
+                if (pluginsClEntry != null) {
+                    pluginsCl = pluginsClEntry.getClassLoader();
                 }
             }
             return pluginsCl;
@@ -247,7 +252,7 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
             List<ProvisioningPlugin> plugins = loadedPlugins.get(clazz.getName());
             if (plugins == null) {
                 final ClassLoader pluginsCl = getPluginsClassLoader();
-                final Iterator<T> pluginIterator = ServiceLoader.load(clazz, pluginsCl).iterator();
+                final Iterator<T> pluginIterator = pluginsClEntry == null ? ServiceLoader.load(clazz, pluginsCl).iterator() : pluginsClEntry.loadPlugins(clazz);
                 plugins = Collections.emptyList();
                 if (pluginIterator.hasNext()) {
                     final Thread thread = Thread.currentThread();
@@ -716,17 +721,33 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
 
     private ProvisioningPlan getUpdatesInternal(Collection<ProducerSpec> producers) throws ProvisioningException {
         final ProvisioningPlan plan = ProvisioningPlan.builder();
-        updatesTracker = getUpdatesTracker();
-        updatesTracker.starting(producers.size());
+        final ProgressTracker<ProducerSpec> tracker = getUpdatesTracker();
+        tracker.starting(producers.size());
+        // the producers are checked concurrently but their plans are added in the order of the producers
+        final FeaturePackUpdatePlan[] fpPlans = new FeaturePackUpdatePlan[producers.size()];
+        final List<ConcurrentUtils.Task> tasks = new ArrayList<>(producers.size());
         for(ProducerSpec producer : producers) {
-            updatesTracker.processing(producer);
-            final FeaturePackUpdatePlan fpPlan = getFeaturePackUpdate(producer);
+            final int i = tasks.size();
+            tasks.add(new ConcurrentUtils.Task() {
+                @Override
+                public void execute() throws ProvisioningException {
+                    synchronized(tracker) {
+                        tracker.processing(producer);
+                    }
+                    fpPlans[i] = getFeaturePackUpdate(producer);
+                    synchronized(tracker) {
+                        tracker.processed(producer);
+                    }
+                }
+            });
+        }
+        ConcurrentUtils.execute(tasks, layoutFactory.getResolutionThreads(), UPDATES_THREAD_NAME);
+        for(FeaturePackUpdatePlan fpPlan : fpPlans) {
             if(!fpPlan.isEmpty()) {
                 plan.update(fpPlan);
             }
-            updatesTracker.processed(producer);
         }
-        updatesTracker.complete();
+        tracker.complete();
         return plan;
     }
 
@@ -743,8 +764,6 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
             throw new ProvisioningException(Errors.unknownFeaturePack(producer.getLocation().getFPID()));
         }
         final FeaturePackLocation fpl = f.getFPID().getLocation();
-        final Universe<?> universe = layoutFactory.getUniverseResolver().getUniverse(fpl.getUniverse());
-        final Channel channel = universe.getProducer(fpl.getProducerName()).getChannel(fpl.getChannelName());
         final List<F> patches = fpPatches.get(fpl.getFPID());
         final Set<FPID> patchIds;
         if (patches == null || patches.isEmpty()) {
@@ -758,7 +777,8 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
             }
             patchIds = CollectionUtils.unmodifiable(tmp);
         }
-        return channel.getUpdatePlan(FeaturePackUpdatePlan.request(fpl, patchIds, f.isTransitiveDep()));
+        // only the loading of the channel is synchronized, the update plans are queried concurrently
+        return layoutFactory.getUniverseResolver().getChannel(fpl).getUpdatePlan(FeaturePackUpdatePlan.request(fpl, patchIds, f.isTransitiveDep()));
     }
 
     public ProvisioningConfig getConfig() {
@@ -891,6 +911,7 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
 
         buildTracker = getBuildTracker(trackProgress);
         buildTracker.starting(-1);
+        FeaturePackPrefetcher.prefetch(layoutFactory, config, layoutFactory.getResolutionThreads());
         final Map<ProducerSpec, FPID> depBranch = new HashMap<>();
         layout(config, depBranch, FeaturePackLayout.DIRECT_DEP);
         if (!conflicts.isEmpty()) {
@@ -965,6 +986,11 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
                     continue;
                 }
 
+                // the patched feature-pack dir is a copy including the package content
+                layoutFactory.extractPackageContent(f.getDir());
+                for(F patch : patches) {
+                    layoutFactory.extractPackageContent(patch.getDir());
+                }
                 final Path fpDir = LayoutUtils.getFeaturePackDir(handle.getPatchedDir(), f.getFPID(), false);
                 try {
                     Files.createDirectories(fpDir);
@@ -1264,20 +1290,17 @@ public class ProvisioningLayout<F extends FeaturePackLayout> implements AutoClos
         if(fpl.isMavenCoordinates()) {
             return fpl;
         }
-        if(fpl.getChannelName() != null) {
-            if(fpl.getBuild() != null) {
-                return fpl;
-            }
-            return resolveLatestBuild(fpl, layoutFactory.getUniverseResolver().getChannel(fpl));
+        if(fpl.getChannelName() != null && fpl.getBuild() != null) {
+            return fpl;
         }
         final Channel channel = layoutFactory.getUniverseResolver().getChannel(fpl);
-        if(fpl.getBuild() != null) {
-            final FeaturePackLocation updatedFpl = new FeaturePackLocation(fpl.getUniverse(), fpl.getProducerName(), channel.getName(), fpl.getFrequency(),
-                    fpl.getBuild());
-            registerResolvedVersion(fpl.getProducer(), updatedFpl);
-            return updatedFpl;
+        if(fpl.getChannelName() != null || fpl.getBuild() == null) {
+            return resolveLatestBuild(fpl, channel);
         }
-        return resolveLatestBuild(fpl, channel);
+        final FeaturePackLocation updatedFpl = new FeaturePackLocation(fpl.getUniverse(), fpl.getProducerName(), channel.getName(), fpl.getFrequency(),
+                fpl.getBuild());
+        registerResolvedVersion(fpl.getProducer(), updatedFpl);
+        return updatedFpl;
     }
 
     private FeaturePackLocation resolveLatestBuild(FeaturePackLocation fpl, final Channel channel)
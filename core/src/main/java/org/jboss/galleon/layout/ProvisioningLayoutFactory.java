@@ -19,12 +19,19 @@ package org.jboss.galleon.layout;
 import java.io.BufferedReader;
 import java.io.Closeable;
 import java.io.IOException;
-import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -43,7 +50,9 @@ import org.jboss.galleon.universe.FeaturePackLocation.FPID;
 import org.jboss.galleon.universe.Universe;
 import org.jboss.galleon.universe.UniverseFeaturePackInstaller;
 import org.jboss.galleon.universe.UniverseResolver;
-import org.jboss.galleon.util.ZipUtils;
+import org.jboss.galleon.util.ConcurrentUtils;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.util.ZipArchive;
 import org.jboss.galleon.xml.FeaturePackXmlParser;
 
 /**
@@ -54,6 +63,11 @@ public class ProvisioningLayoutFactory implements Closeable {
 
     private static ProgressTracker<?> NO_OP_PROGRESS_TRACKER;
 
+    private static final int RESOLUTION_LOCK_STRIPES = 16;
+
+    public static final int DEFAULT_MODEL_CACHE_SIZE = 32;
+    public static final int DEFAULT_PLUGIN_CLASS_LOADER_CACHE_SIZE = 4;
+
     public static final String TRACK_LAYOUT_BUILD = "LAYOUT_BUILD";
     public static final String TRACK_UPDATES = "UPDATES";
     public static final String TRACK_PACKAGES = "PACKAGES";
@@ -78,10 +92,31 @@ public class ProvisioningLayoutFactory implements Closeable {
     private AtomicInteger openHandles = new AtomicInteger();
     private Map<String, UniverseFeaturePackInstaller> universeInstallers;
     private Map<String, ProgressTracker<?>> progressTrackers = new HashMap<>();
-    private final Map<FPID, FileSystem> cachedPacks = new HashMap<>();
+    private final ConcurrentMap<FPID, Path> cachedPacks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<FPID, FeaturePackSpec> cachedSpecs = new ConcurrentHashMap<>();
+    private final Object[] resolutionLocks = new Object[RESOLUTION_LOCK_STRIPES];
+    private Path extractedPacksDir;
+    private int extractedPacks;
+    private final ConcurrentMap<Path, ZipArchive> unextractedContent = new ConcurrentHashMap<>();
+    private final List<Path> acquiredPacks = Collections.synchronizedList(new ArrayList<>());
+    private final PluginClassLoaderCache pluginClassLoaders = new PluginClassLoaderCache(DEFAULT_PLUGIN_CLASS_LOADER_CACHE_SIZE);
+    private FeaturePackCache fpCache;
+    private boolean fpCacheInitialized;
+    private int resolutionThreads = Math.max(ConcurrentUtils.getDefaultThreads(), 4);
+    private int modelCacheSize = DEFAULT_MODEL_CACHE_SIZE;
+    private final Map<FPID, FeaturePackModels> cachedModels = new LinkedHashMap<FPID, FeaturePackModels>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FPID, FeaturePackModels> eldest) {
+            return size() > modelCacheSize;
+        }
+    };
 
     private ProvisioningLayoutFactory(UniverseResolver universeResolver) {
         this.universeResolver = universeResolver;
+        for(int i = 0; i < resolutionLocks.length; ++i) {
+            resolutionLocks[i] = new Object();
+        }
     }
 
     public void setProgressCallback(String id, ProgressCallback<?> callback) {
@@ -114,6 +149,129 @@ public class ProvisioningLayoutFactory implements Closeable {
         return universeResolver;
     }
 
+    /**
+     * Sets the maximum number of threads used to resolve the feature-packs a configuration
+     * depends on before the layout is built and to check the feature-packs of a layout for updates.
+     * The value of 1 disables the concurrent resolution.
+     * The default is the number of available processors but not less than 4, since the resolution
+     * is mostly I/O bound.
+     *
+     * @param resolutionThreads  maximum number of feature-pack resolution threads
+     */
+    public void setResolutionThreads(int resolutionThreads) {
+        if(resolutionThreads < 1) {
+            throw new IllegalArgumentException("The number of resolution threads must be positive: " + resolutionThreads);
+        }
+        this.resolutionThreads = resolutionThreads;
+    }
+
+    int getResolutionThreads() {
+        return resolutionThreads;
+    }
+
+    /**
+     * Sets the maximum number of feature-packs whose parsed feature specs, feature groups, layers and configs
+     * are cached by this factory and re-used by the provisioning runtimes built using it.
+     * The least recently used feature-packs are evicted from the cache first. The value of 0 disables the cache.
+     *
+     * @param modelCacheSize  maximum number of feature-packs in the model cache
+     */
+    public void setModelCacheSize(int modelCacheSize) {
+        if(modelCacheSize < 0) {
+            throw new IllegalArgumentException("The size of the model cache must not be negative: " + modelCacheSize);
+        }
+        synchronized(cachedModels) {
+            this.modelCacheSize = modelCacheSize;
+            if(cachedModels.size() > modelCacheSize) {
+                final Iterator<FPID> i = cachedModels.keySet().iterator();
+                while(cachedModels.size() > modelCacheSize) {
+                    i.next();
+                    i.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of plugin class loaders kept open by this factory while they are not used
+     * by any open layout, so that they could be re-used by the layouts created later that include the same plugins.
+     * The least recently used class loaders are closed first. The value of 0 means a plugin class loader
+     * is closed as soon as the last layout using it is closed.
+     *
+     * @param cacheSize  maximum number of unused plugin class loaders kept open
+     */
+    public void setPluginClassLoaderCacheSize(int cacheSize) {
+        if(cacheSize < 0) {
+            throw new IllegalArgumentException("The size of the plugin class loader cache must not be negative: " + cacheSize);
+        }
+        pluginClassLoaders.setSize(cacheSize);
+    }
+
+    /**
+     * Returns the cached parsed models of the feature-pack located in the specified directory.
+     * If the directory is not the one the feature-pack was resolved to by this factory
+     * (e.g. the feature-pack was patched in the layout) or the cache is disabled, the method returns null.
+     *
+     * @param fpid  feature-pack ID
+     * @param fpDir  feature-pack directory
+     * @return  cached models of the feature-pack or null
+     */
+    public FeaturePackModels getFeaturePackModels(FPID fpid, Path fpDir) {
+        if(!fpDir.equals(cachedPacks.get(fpid))) {
+            return null;
+        }
+        synchronized(cachedModels) {
+            if(modelCacheSize == 0) {
+                return null;
+            }
+            FeaturePackModels models = cachedModels.get(fpid);
+            if(models == null || !models.dir.equals(fpDir)) {
+                models = new FeaturePackModels(fpid, fpDir);
+                cachedModels.put(fpid, models);
+            }
+            return models;
+        }
+    }
+
+    /**
+     * Removes the parsed models of the feature-pack from the model cache.
+     * The runtimes built after this method was called will re-parse the models of the feature-pack.
+     *
+     * @param fpid  feature-pack ID
+     */
+    public void invalidateFeaturePackModels(FPID fpid) {
+        synchronized(cachedModels) {
+            cachedModels.remove(fpid);
+        }
+    }
+
+    /**
+     * Removes the parsed models of all the feature-packs from the model cache.
+     */
+    public void invalidateFeaturePackModels() {
+        synchronized(cachedModels) {
+            cachedModels.clear();
+        }
+    }
+
+    /**
+     * Sets the on-disk cache of extracted feature-packs. If the cache is not set,
+     * it will be configured using the {@link org.jboss.galleon.Constants#PROP_FP_CACHE_DIR} and
+     * {@link org.jboss.galleon.Constants#PROP_FP_CACHE_MAX_SIZE} system properties, if the cache directory property is set.
+     * Otherwise, feature-pack archives are extracted into a temporary directory removed when the factory is closed.
+     *
+     * The cache has to be set before any feature-pack has been resolved by this factory.
+     *
+     * @param fpCache  feature-pack cache or null to extract the archives into a temporary directory
+     */
+    public synchronized void setFeaturePackCache(FeaturePackCache fpCache) {
+        if(!cachedPacks.isEmpty()) {
+            throw new IllegalStateException("Feature-packs have already been resolved");
+        }
+        this.fpCache = fpCache;
+        fpCacheInitialized = true;
+    }
+
     /**
      * Adds feature-pack archive to the local provisioning feature-pack cache.
      * Optionally, installs the feature-pack archive to the universe repository.
@@ -132,12 +290,14 @@ public class ProvisioningLayoutFactory implements Closeable {
         if(universeInstallers == null) {
             universeInstallers = UniverseFeaturePackInstaller.load();
         }
-        final Universe<?> universe = universeResolver.getUniverse(fpid.getUniverse());
-        final UniverseFeaturePackInstaller fpInstaller = universeInstallers.get(universe.getFactoryId());
-        if(fpInstaller == null) {
-            throw new ProvisioningException(Errors.featurePackInstallerNotFound(universe.getFactoryId(), universeInstallers.keySet()));
+        synchronized(universeResolver) {
+            final Universe<?> universe = universeResolver.getUniverse(fpid.getUniverse());
+            final UniverseFeaturePackInstaller fpInstaller = universeInstallers.get(universe.getFactoryId());
+            if(fpInstaller == null) {
+                throw new ProvisioningException(Errors.featurePackInstallerNotFound(universe.getFactoryId(), universeInstallers.keySet()));
+            }
+            fpInstaller.install(universe, fpid, featurePack);
         }
-        fpInstaller.install(universe, fpid, featurePack);
         return fpid.getLocation();
     }
 
@@ -178,48 +338,186 @@ public class ProvisioningLayoutFactory implements Closeable {
     public <F extends FeaturePackLayout> F resolveFeaturePack(FeaturePackLocation location, int type, FeaturePackLayoutFactory<F> factory)
             throws ProvisioningException {
         final Path fpDir = resolveFeaturePackDir(location);
-        final Path fpXml = fpDir.resolve(Constants.FEATURE_PACK_XML);
+        final FeaturePackSpec fpSpec = resolveFeaturePackSpec(location);
+        if(location.isMavenCoordinates()) {
+            final FPID specId = fpSpec.getFPID();
+            final FeaturePackLocation fpl = new FeaturePackLocation(specId.getUniverse(), specId.getProducer().getName(), specId.getChannel().getName(), location.getFrequency(), specId.getBuild());
+            cachedPacks.put(fpl.getFPID(), fpDir);
+            location = fpl;
+        }
+        return factory.newFeaturePack(location, fpSpec, fpDir, type);
+    }
+
+    /**
+     * Resolves the feature-pack and returns its parsed spec.
+     *
+     * @param location  feature-pack location
+     * @return  feature-pack spec
+     * @throws ProvisioningException  in case the feature-pack could not be resolved or its spec could not be parsed
+     */
+    FeaturePackSpec resolveFeaturePackSpec(FeaturePackLocation location) throws ProvisioningException {
+        final FPID fpid = location.getFPID();
+        FeaturePackSpec fpSpec = cachedSpecs.get(fpid);
+        if(fpSpec != null) {
+            return fpSpec;
+        }
+        final Path fpXml = resolveFeaturePackDir(location).resolve(Constants.FEATURE_PACK_XML);
         if (!Files.exists(fpXml)) {
             throw new ProvisioningDescriptionException(Errors.pathDoesNotExist(fpXml));
         }
         try (BufferedReader reader = Files.newBufferedReader(fpXml)) {
-            final FeaturePackSpec fpSpec = FeaturePackXmlParser.getInstance().parse(reader);
-            if(location.isMavenCoordinates()) {
-                final FPID specId = fpSpec.getFPID();
-                final FeaturePackLocation fpl = new FeaturePackLocation(specId.getUniverse(), specId.getProducer().getName(), specId.getChannel().getName(), location.getFrequency(), specId.getBuild());
-                synchronized (this) {
-                    cachedPacks.put(fpl.getFPID(), cachedPacks.get(location.getFPID()));
-                }
-                location = fpl;
-            }
-            return factory.newFeaturePack(location, fpSpec, fpDir, type);
+            fpSpec = FeaturePackXmlParser.getInstance().parse(reader);
         } catch (IOException | XMLStreamException e) {
             throw new ProvisioningException(Errors.parseXml(fpXml), e);
         }
+        final FeaturePackSpec cached = cachedSpecs.putIfAbsent(fpid, fpSpec);
+        return cached == null ? fpSpec : cached;
     }
 
-    private synchronized Path resolveFeaturePackDir(FeaturePackLocation fpl) throws ProvisioningException {
+    /**
+     * Checks whether the feature-pack has already been resolved by this factory.
+     *
+     * @param fpid  feature-pack ID
+     * @return  true if the feature-pack has been resolved, otherwise false
+     */
+    boolean isCached(FPID fpid) {
+        return cachedPacks.containsKey(fpid);
+    }
+
+    private Path resolveFeaturePackDir(FeaturePackLocation fpl) throws ProvisioningException {
         final FPID fpid = fpl.getFPID();
-        FileSystem packFs = cachedPacks.get(fpid);
-        if(packFs != null) {
-            return getFpDir(packFs);
+        Path fpDir = cachedPacks.get(fpid);
+        if(fpDir != null) {
+            return fpDir;
+        }
+        // feature-packs with different IDs are resolved concurrently, the same one only once
+        synchronized(resolutionLocks[(fpid.hashCode() & Integer.MAX_VALUE) % resolutionLocks.length]) {
+            fpDir = cachedPacks.get(fpid);
+            if(fpDir != null) {
+                return fpDir;
+            }
+            return put(universeResolver.resolve(fpl), fpid);
         }
-        return put(universeResolver.resolve(fpl), fpid);
     }
 
     private Path put(Path featurePack, FeaturePackLocation.FPID fpid) throws ProvisioningException {
-        final FileSystem packFs;
+        final FeaturePackCache fpCache = getFeaturePackCache();
+        final Path fpDir;
+        if(fpCache != null) {
+            fpDir = fpCache.acquire(fpid, featurePack);
+            acquiredPacks.add(fpDir);
+        } else {
+            fpDir = extract(featurePack);
+        }
+        cachedSpecs.remove(fpid);
+        cachedPacks.put(fpid, fpDir);
+        invalidateFeaturePackModels(fpid);
+        return fpDir;
+    }
+
+    private synchronized FeaturePackCache getFeaturePackCache() throws ProvisioningException {
+        if(!fpCacheInitialized) {
+            fpCache = FeaturePackCache.fromSystemProperties();
+            fpCacheInitialized = true;
+        }
+        return fpCache;
+    }
+
+    /**
+     * Extracts the feature-pack archive into a temporary directory removed when the factory is closed,
+     * so that the layout and the runtime are read from plain directories. The content of the packages,
+     * which is normally the bulk of the archive, is not extracted until it is requested
+     * with {@link #extractPackageContent(Path)}.
+     */
+    private Path extract(Path featurePack) throws ProvisioningException {
+        final Path fpDir;
+        synchronized(this) {
+            if(extractedPacksDir == null) {
+                extractedPacksDir = IoUtils.createRandomTmpDir();
+            }
+            fpDir = extractedPacksDir.resolve(String.valueOf(++extractedPacks));
+        }
+        ZipArchive archive = null;
+        try {
+            archive = ZipArchive.open(featurePack);
+            archive.extract(fpDir, new Predicate<String>() {
+                @Override
+                public boolean test(String path) {
+                    return !isPackageContent(path);
+                }
+            });
+        } catch (IOException e) {
+            closeArchive(archive);
+            IoUtils.recursiveDelete(fpDir);
+            throw new ProvisioningException(Errors.unzipFile(featurePack, fpDir), e);
+        }
+        unextractedContent.put(fpDir, archive);
+        return fpDir;
+    }
+
+    /**
+     * Makes sure the content of the packages of a feature-pack resolved by this factory
+     * has been extracted into the feature-pack directory. Unless the feature-pack cache is
+     * enabled, the package content is extracted only when it is actually needed, e.g.
+     * when a provisioning runtime is built for the feature-pack, and not when only
+     * the layout of the feature-pack is examined.
+     *
+     * @param fpDir  feature-pack directory
+     * @throws ProvisioningException  in case the content could not be extracted
+     */
+    public void extractPackageContent(Path fpDir) throws ProvisioningException {
+        if(!unextractedContent.containsKey(fpDir)) {
+            return;
+        }
+        synchronized(resolutionLocks[(fpDir.hashCode() & Integer.MAX_VALUE) % resolutionLocks.length]) {
+            final ZipArchive archive = unextractedContent.get(fpDir);
+            if(archive == null) {
+                return;
+            }
+            try {
+                archive.extract(fpDir, new Predicate<String>() {
+                    @Override
+                    public boolean test(String path) {
+                        return isPackageContent(path);
+                    }
+                });
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.unzipFile(archive.getPath(), fpDir), e);
+            }
+            unextractedContent.remove(fpDir);
+            closeArchive(archive);
+        }
+    }
+
+    /**
+     * Checks whether an archive entry path belongs to the content of a package,
+     * i.e. is packages/&lt;package&gt;/content or a path under it.
+     */
+    private static boolean isPackageContent(String path) {
+        if(!path.startsWith(Constants.PACKAGES) || path.length() <= Constants.PACKAGES.length()
+                || path.charAt(Constants.PACKAGES.length()) != '/') {
+            return false;
+        }
+        final int i = path.indexOf('/', Constants.PACKAGES.length() + 1);
+        if(i < 0 || !path.startsWith(Constants.CONTENT, i + 1)) {
+            return false;
+        }
+        final int end = i + 1 + Constants.CONTENT.length();
+        return path.length() == end || path.charAt(end) == '/';
+    }
+
+    private static void closeArchive(ZipArchive archive) {
+        if(archive == null) {
+            return;
+        }
         try {
-            packFs = ZipUtils.newFileSystem(featurePack);
+            archive.close();
         } catch (IOException e) {
-            throw new ProvisioningException(Errors.openFile(featurePack), e);
         }
-        cachedPacks.put(fpid, packFs);
-        return getFpDir(packFs);
     }
 
-    private static Path getFpDir(FileSystem packFs) {
-        return packFs.getRootDirectories().iterator().next();
+    PluginClassLoaderCache getPluginClassLoaders() {
+        return pluginClassLoaders;
     }
 
     ProvisioningLayout.Handle createHandle() {
@@ -234,13 +532,24 @@ public class ProvisioningLayoutFactory implements Closeable {
 
     @Override
     public void close() {
-        for(FileSystem fs : cachedPacks.values()) {
-            try {
-                fs.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        pluginClassLoaders.close();
+        cachedPacks.clear();
+        cachedSpecs.clear();
+        invalidateFeaturePackModels();
+        for(ZipArchive archive : unextractedContent.values()) {
+            closeArchive(archive);
+        }
+        unextractedContent.clear();
+        synchronized(this) {
+            if(extractedPacksDir != null) {
+                IoUtils.recursiveDelete(extractedPacksDir);
+                extractedPacksDir = null;
             }
         }
+        for(Path fpDir : acquiredPacks) {
+            fpCache.release(fpDir);
+        }
+        acquiredPacks.clear();
         checkOpenLayouts();
     }
 
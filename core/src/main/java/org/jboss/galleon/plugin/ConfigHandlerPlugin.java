@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.plugin;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.runtime.ProvisioningRuntime;
+
+/**
+ * Provisioning plug-in that handles the configs of the installation one by one.
+ *
+ * Unlike install plug-ins, which access the configs through {@link ProvisioningRuntime#getConfigs()},
+ * this plug-in is passed each config after the packages have been installed and before
+ * {@link InstallPlugin#postInstall(ProvisioningRuntime)} is called.
+ *
+ * When {@link org.jboss.galleon.ProvisioningOption#STREAM_CONFIGS} is enabled, each config is passed
+ * to the plug-ins as soon as its features have been arranged and is released once the plug-ins have
+ * handled it, so the plug-ins should not keep references to the configs.
+ *
+ * @author Alexey Loubyansky
+ */
+public interface ConfigHandlerPlugin extends ProvisioningPlugin {
+
+    /**
+     * Returns the handler the provisioned configs will be passed to. The same handler is used
+     * for all the configs of the installation.
+     *
+     * @param runtime  provisioning runtime
+     * @return  config handler
+     * @throws ProvisioningException  in case the plugin failed to create the handler
+     */
+    ProvisionedConfigHandler getConfigHandler(ProvisioningRuntime runtime) throws ProvisioningException;
+}
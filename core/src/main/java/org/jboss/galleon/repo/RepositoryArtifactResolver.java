@@ -17,6 +17,9 @@
 package org.jboss.galleon.repo;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.jboss.galleon.ProvisioningException;
 
@@ -31,4 +34,21 @@ public interface RepositoryArtifactResolver {
     String getRepositoryId();
 
     Path resolve(String location) throws ProvisioningException;
+
+    /**
+     * Resolves the artifacts at the specified locations. The default implementation resolves
+     * the artifacts one by one, implementations that can resolve several artifacts at once
+     * should override it.
+     *
+     * @param locations  artifact locations
+     * @return  paths of the resolved artifacts mapped to their locations
+     * @throws ProvisioningException  in case any of the artifacts could not be resolved
+     */
+    default Map<String, Path> resolveLocations(Collection<String> locations) throws ProvisioningException {
+        final Map<String, Path> paths = new LinkedHashMap<>(locations.size());
+        for(String location : locations) {
+            paths.put(location, resolve(location));
+        }
+        return paths;
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.jboss.galleon.util.CollectionUtils;
+
+/**
+ * Interned name of a resolved capability.
+ *
+ * Capability names are kept in a tree of dot-separated segments, the root of
+ * which represents the symbol table. Resolving the same capability name against
+ * the same root always yields the same instance, so resolved capabilities can be
+ * compared and used as map keys by identity without building their string
+ * representations.
+ *
+ * Instances are not thread-safe.
+ *
+ * @author Alexey Loubyansky
+ */
+class CapabilityName {
+
+    static CapabilityName newSymbolTable() {
+        return new CapabilityName(null, null);
+    }
+
+    private final CapabilityName parent;
+    private final String segment;
+    // direct children by segment and descendants by their dot-separated relative path
+    private Map<String, CapabilityName> children = Collections.emptyMap();
+    private String name;
+
+    private CapabilityName(CapabilityName parent, String segment) {
+        this.parent = parent;
+        this.segment = segment;
+    }
+
+    boolean isRoot() {
+        return parent == null;
+    }
+
+    /**
+     * Returns the interned name of this name followed by the path.
+     *
+     * @param path  dot-separated relative capability name
+     * @return  interned capability name
+     */
+    CapabilityName resolve(String path) {
+        CapabilityName child = children.get(path);
+        if(child != null) {
+            return child;
+        }
+        int dot = path.indexOf('.');
+        if(dot < 0) {
+            child = new CapabilityName(this, path);
+            children = CollectionUtils.put(children, path, child);
+            return child;
+        }
+        child = this;
+        int start = 0;
+        while(dot >= 0) {
+            child = child.resolve(path.substring(start, dot));
+            start = dot + 1;
+            dot = path.indexOf('.', start);
+        }
+        child = child.resolve(path.substring(start));
+        children = CollectionUtils.put(children, path, child);
+        return child;
+    }
+
+    @Override
+    public String toString() {
+        if(name == null) {
+            if(parent == null) {
+                name = "";
+            } else if(parent.isRoot()) {
+                name = segment;
+            } else {
+                name = parent.toString() + '.' + segment;
+            }
+        }
+        return name;
+    }
+}
@@ -33,19 +33,27 @@ import org.jboss.galleon.util.StringUtils;
  */
 public class CapabilityResolver {
 
-    private ArrayList<StringBuilder> capList = null;
-    private StringBuilder capBuf;
+    private final CapabilityName symbols = CapabilityName.newSymbolTable();
+    private ArrayList<CapabilityName> capList = null;
+    private CapabilityName capName = symbols;
 
     private ResolvedFeature feature;
     private CapabilitySpec capSpec;
     private String currentElem;
 
-    List<String> resolve(CapabilitySpec capSpec, ResolvedFeature feature) throws ProvisioningException {
+    /**
+     * Returns the interned capability name.
+     *
+     * @param name  capability name
+     * @return  interned capability name
+     */
+    CapabilityName getName(String name) {
+        return symbols.resolve(name);
+    }
+
+    List<CapabilityName> resolve(CapabilitySpec capSpec, ResolvedFeature feature) throws ProvisioningException {
         if(capSpec.isStatic()) {
-            return Collections.singletonList(capSpec.toString());
-        }
-        if(capBuf == null) {
-            capBuf = new StringBuilder();
+            return Collections.singletonList(symbols.resolve(capSpec.toString()));
         }
         this.feature = feature;
         this.capSpec = capSpec;
@@ -54,13 +62,9 @@ public class CapabilityResolver {
                 return Collections.emptyList();
             }
             if(capList == null) {
-                return capBuf.length() == 0 ? Collections.emptyList() : Collections.singletonList(capBuf.toString());
-            }
-            List<String> resolved = new ArrayList<>(capList.size());
-            for (int i = 0; i < capList.size(); ++i) {
-                resolved.add(capList.get(i).toString());
+                return capName.isRoot() ? Collections.emptyList() : Collections.singletonList(capName);
             }
-            return resolved;
+            return capList;
         } catch(ProvisioningException e) {
             throw new ProvisioningException(Errors.failedToResolveCapability(feature, capSpec), e);
         } finally {
@@ -71,7 +75,7 @@ public class CapabilityResolver {
     void reset() {
         feature = null;
         capList = null;
-        capBuf.setLength(0);
+        capName = symbols;
         currentElem = null;
     }
 
@@ -93,35 +97,29 @@ public class CapabilityResolver {
     }
 
     public CapabilityResolver add(Object elem) throws ProvisioningException {
+        final String str = toStringElem(elem);
         if(capList == null) {
-            if(capBuf.length() > 0) {
-                capBuf.append('.');
-            }
-            capBuf.append(toStringElem(elem));
+            capName = capName.resolve(str);
             return this;
         }
-        final String str = toStringElem(elem);
         for(int i = 0; i < capList.size(); ++i) {
-            capList.get(i).append('.').append(str);
+            capList.set(i, capList.get(i).resolve(str));
         }
         return this;
     }
 
     public CapabilityResolver multiply(Collection<?> elems) throws ProvisioningException {
         if(elems.isEmpty()) {
-            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, elems.toString(), capBuf.toString()));
+            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, elems.toString(), capName.toString()));
         }
         if(elems.size() == 1) {
             add(elems.iterator().next());
             return this;
         }
         if(capList == null) {
-            if(capBuf.length() > 0) {
-                capBuf.append('.');
-            }
             capList = new ArrayList<>(elems.size());
             for(Object o : elems) {
-                capList.add(capBuf.length() == 0 ? new StringBuilder(toStringElem(o)) : new StringBuilder(capBuf).append(toStringElem(o)));
+                capList.add(capName.resolve(toStringElem(o)));
             }
             return this;
         }
@@ -129,24 +127,24 @@ public class CapabilityResolver {
         capList.ensureCapacity(capList.size() * elems.size());
         final int capsTotal = capList.size();
         for (int i = 0; i < capsTotal; ++i) {
-            final StringBuilder capBuf = capList.get(i).append('.');
+            final CapabilityName capName = capList.get(i);
             final Iterator<?> elemI = elems.iterator();
             final Object firstElem = elemI.next();
             while(elemI.hasNext()) {
-                capList.add(new StringBuilder(capBuf).append(toStringElem(elemI.next())));
+                capList.add(capName.resolve(toStringElem(elemI.next())));
             }
-            capBuf.append(toStringElem(firstElem));
+            capList.set(i, capName.resolve(toStringElem(firstElem)));
         }
         return this;
     }
 
     private String toStringElem(Object elem) throws ProvisioningException {
         if(elem == null) {
-            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, null, capBuf.toString()));
+            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, null, capName.toString()));
         }
         final String str = elem.toString().trim();
         if(str.isEmpty()) {
-            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, str, capBuf.toString()));
+            throw new ProvisioningException(Errors.illegalCapabilityElement(capSpec, str, capName.toString()));
         }
         return StringUtils.stripSurrounding(str, '"');
     }
@@ -521,6 +521,13 @@ class ConfigModelStack {
         if (features.isEmpty()) {
             orderedFeatures = Collections.emptyList();
         } else if(arrange) {
+            // features merged from a model-only config may also belong to other configs,
+            // make sure they are arranged with the spec features of this config
+            for(SpecFeatures sf : specFeatures.values()) {
+                for(ResolvedFeature feature : sf.getFeatures()) {
+                    feature.setSpecFeatures(sf);
+                }
+            }
             final String arranger = System.getProperty(Constants.PROP_CONFIG_ARRANGER);
             if(arranger == null) {
                 orderedFeatures = new DefaultBranchedConfigArranger(this).orderFeatures();
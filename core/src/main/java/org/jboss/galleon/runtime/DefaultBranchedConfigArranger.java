@@ -58,7 +58,7 @@ class DefaultBranchedConfigArranger {
     private final boolean mergeIndependentBranches;
 
     private CapabilityResolver capResolver = new CapabilityResolver();
-    private Map<String, CapabilityProviders> capProviders = Collections.emptyMap();
+    private Map<CapabilityName, CapabilityProviders> capProviders = Collections.emptyMap();
 
     private List<ConfigFeatureBranch> featureBranches = Collections.emptyList();
     private Map<Object, ConfigFeatureBranch> branchesWithId = Collections.emptyMap();
@@ -250,14 +250,14 @@ class DefaultBranchedConfigArranger {
             if(specFeatures.spec.xmlSpec.providesCapabilities()) {
                 for(CapabilitySpec cap : specFeatures.spec.xmlSpec.getProvidedCapabilities()) {
                     if(cap.isStatic()) {
-                        getProviders(cap.toString(), true).add(specFeatures);
+                        getProviders(capResolver.getName(cap.toString()), true).add(specFeatures);
                     } else {
                         for(ResolvedFeature feature : specFeatures.getFeatures()) {
-                            final List<String> resolvedCaps = capResolver.resolve(cap, feature);
+                            final List<CapabilityName> resolvedCaps = capResolver.resolve(cap, feature);
                             if(resolvedCaps.isEmpty()) {
                                 continue;
                             }
-                            for(String resolvedCap : resolvedCaps) {
+                            for(CapabilityName resolvedCap : resolvedCaps) {
                                 getProviders(resolvedCap, true).add(feature);
                             }
                         }
@@ -288,13 +288,13 @@ class DefaultBranchedConfigArranger {
         }
     }
 
-    private CapabilityProviders getProviders(String cap, boolean add) throws ProvisioningException {
+    private CapabilityProviders getProviders(CapabilityName cap, boolean add) throws ProvisioningException {
         CapabilityProviders providers = capProviders.get(cap);
         if(providers != null) {
             return providers;
         }
         if(!add) {
-            throw new ProvisioningException(Errors.noCapabilityProvider(cap));
+            throw new ProvisioningException(Errors.noCapabilityProvider(cap.toString()));
         }
         providers = new CapabilityProviders();
         capProviders = CollectionUtils.put(capProviders, cap, providers);
@@ -625,16 +625,16 @@ class DefaultBranchedConfigArranger {
     private List<CircularRefInfo> orderCapabilityProviders(ResolvedFeature feature, List<CircularRefInfo> circularRefs)
             throws ProvisioningException {
         for (CapabilitySpec capSpec : feature.spec.xmlSpec.getRequiredCapabilities()) {
-            final List<String> resolvedCaps = capResolver.resolve(capSpec, feature);
+            final List<CapabilityName> resolvedCaps = capResolver.resolve(capSpec, feature);
             if (resolvedCaps.isEmpty()) {
                 continue;
             }
-            for (String resolvedCap : resolvedCaps) {
+            for (CapabilityName resolvedCap : resolvedCaps) {
                 final CapabilityProviders providers;
                 try {
                     providers = getProviders(resolvedCap, false);
                 } catch (ProvisioningException e) {
-                    throw new ProvisioningException(Errors.noCapabilityProvider(feature, capSpec, resolvedCap));
+                    throw new ProvisioningException(Errors.noCapabilityProvider(feature, capSpec, resolvedCap.toString()));
                 }
                 circularRefs = CollectionUtils.addAll(circularRefs, orderProviders(providers));
                 if(providers.isProvided()) {
@@ -37,6 +37,7 @@ import org.jboss.galleon.config.ConfigId;
 import org.jboss.galleon.config.ConfigModel;
 import org.jboss.galleon.config.FeatureGroup;
 import org.jboss.galleon.layout.FeaturePackLayout;
+import org.jboss.galleon.layout.FeaturePackModels;
 import org.jboss.galleon.spec.ConfigLayerSpec;
 import org.jboss.galleon.spec.FeaturePackSpec;
 import org.jboss.galleon.spec.FeatureSpec;
@@ -72,6 +73,8 @@ public class FeaturePackRuntimeBuilder extends FeaturePackLayout {
     Map<String, PackageRuntime.Builder> pkgBuilders = Collections.emptyMap();
     List<String> pkgOrder = new ArrayList<>();
 
+    FeaturePackModels models;
+
     private ParameterTypeProvider featureParamTypeProvider = BuiltInParameterTypeProvider.getInstance();
 
     private int flags;
@@ -164,23 +167,29 @@ public class FeaturePackRuntimeBuilder extends FeaturePackLayout {
                 return fgSpec;
             }
         }
-        final Path specXml = dir.resolve(Constants.FEATURE_GROUPS).resolve(name + ".xml");
-        if (!Files.exists(specXml)) {
-            return null;
-        }
-        try (BufferedReader reader = Files.newBufferedReader(specXml)) {
-            final FeatureGroup fgSpec = FeatureGroupXmlParser.getInstance().parse(reader);
-            if(!fgSpec.getName().equals(name)) {
-                throw new ProvisioningDescriptionException("Feature-pack " + getFPID() + " feature group " + fgSpec.getName() + " does not match the requested feature group name " + name);
+        FeatureGroup fgSpec = models == null ? null : models.getFeatureGroup(name);
+        if(fgSpec == null) {
+            final Path specXml = dir.resolve(Constants.FEATURE_GROUPS).resolve(name + ".xml");
+            if (!Files.exists(specXml)) {
+                return null;
             }
-            if (fgSpecs == null) {
-                fgSpecs = new HashMap<>();
+            try (BufferedReader reader = Files.newBufferedReader(specXml)) {
+                fgSpec = FeatureGroupXmlParser.getInstance().parse(reader);
+                if(!fgSpec.getName().equals(name)) {
+                    throw new ProvisioningDescriptionException("Feature-pack " + getFPID() + " feature group " + fgSpec.getName() + " does not match the requested feature group name " + name);
+                }
+            } catch (Exception e) {
+                throw new ProvisioningException(Errors.parseXml(specXml), e);
+            }
+            if(models != null) {
+                models.putFeatureGroup(fgSpec);
             }
-            fgSpecs.put(name, fgSpec);
-            return fgSpec;
-        } catch (Exception e) {
-            throw new ProvisioningException(Errors.parseXml(specXml), e);
         }
+        if (fgSpecs == null) {
+            fgSpecs = new HashMap<>();
+        }
+        fgSpecs.put(name, fgSpec);
+        return fgSpec;
     }
 
     ConfigModel getConfig(ConfigId configId) throws ProvisioningException {
@@ -190,20 +199,26 @@ public class FeaturePackRuntimeBuilder extends FeaturePackLayout {
                 return config;
             }
         }
-        final Path p = LayoutUtils.getConfigXml(dir, configId, false);
-        if (!Files.exists(p)) {
-            return null;
-        }
-        try (BufferedReader reader = Files.newBufferedReader(p)) {
-            final ConfigModel config = ConfigXmlParser.getInstance().parse(reader);
-            if (configs == null) {
-                configs = new HashMap<>();
+        ConfigModel config = models == null ? null : models.getConfig(configId);
+        if(config == null) {
+            final Path p = LayoutUtils.getConfigXml(dir, configId, false);
+            if (!Files.exists(p)) {
+                return null;
             }
-            configs.put(config.getId(), config);
-            return config;
-        } catch (Exception e) {
-            throw new ProvisioningException(Errors.parseXml(p), e);
+            try (BufferedReader reader = Files.newBufferedReader(p)) {
+                config = ConfigXmlParser.getInstance().parse(reader);
+            } catch (Exception e) {
+                throw new ProvisioningException(Errors.parseXml(p), e);
+            }
+            if(models != null) {
+                models.putConfig(config);
+            }
+        }
+        if (configs == null) {
+            configs = new HashMap<>();
         }
+        configs.put(config.getId(), config);
+        return config;
     }
 
     ConfigLayerSpec getConfigLayer(ConfigId configId) throws ProvisioningException {
@@ -213,11 +228,17 @@ public class FeaturePackRuntimeBuilder extends FeaturePackLayout {
                 return layer;
             }
         }
-        final Path p = LayoutUtils.getLayerSpecXml(dir, configId.getModel(), configId.getName(), false);
-        if (!Files.exists(p)) {
-            return null;
+        ConfigLayerSpec layer = models == null ? null : models.getConfigLayer(configId);
+        if(layer == null) {
+            final Path p = LayoutUtils.getLayerSpecXml(dir, configId.getModel(), configId.getName(), false);
+            if (!Files.exists(p)) {
+                return null;
+            }
+            layer = XmlParsers.parseConfigLayerSpec(p, configId.getModel());
+            if(models != null) {
+                models.putConfigLayer(configId, layer);
+            }
         }
-        final ConfigLayerSpec layer = XmlParsers.parseConfigLayerSpec(p, configId.getModel());
         if (layers == null) {
             layers = new HashMap<>();
         }
@@ -232,15 +253,25 @@ public class FeaturePackRuntimeBuilder extends FeaturePackLayout {
                 return resolvedSpec;
             }
         }
+        FeatureSpec xmlSpec = models == null ? null : models.getFeatureSpec(name);
         final Path specXml = dir.resolve(Constants.FEATURES).resolve(name).resolve(Constants.SPEC_XML);
-        if (!Files.exists(specXml)) {
-            return null;
-        }
-        try (BufferedReader reader = Files.newBufferedReader(specXml)) {
-            final FeatureSpec xmlSpec = FeatureSpecXmlParser.getInstance().parse(reader);
-            if(!xmlSpec.getName().equals(name)) {
-                throw new ProvisioningDescriptionException("Feature-pack " + getFPID() + " feature spec " + xmlSpec.getName() + " does not match the requested feature spec name " + name);
+        if(xmlSpec == null) {
+            if (!Files.exists(specXml)) {
+                return null;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(specXml)) {
+                xmlSpec = FeatureSpecXmlParser.getInstance().parse(reader);
+                if(!xmlSpec.getName().equals(name)) {
+                    throw new ProvisioningDescriptionException("Feature-pack " + getFPID() + " feature spec " + xmlSpec.getName() + " does not match the requested feature spec name " + name);
+                }
+            } catch (Exception e) {
+                throw new ProvisioningDescriptionException(Errors.parseXml(specXml), e);
             }
+            if(models != null) {
+                models.putFeatureSpec(xmlSpec);
+            }
+        }
+        try {
             final ResolvedFeatureSpec resolvedSpec = new ResolvedFeatureSpec(new ResolvedSpecId(producer, xmlSpec.getName()),
                     featureParamTypeProvider, xmlSpec);
             if (featureSpecs == null) {
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.runtime;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.MessageWriter;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.util.ConcurrentUtils;
+import org.jboss.galleon.util.FeaturePackInstallException;
+import org.jboss.galleon.util.IoUtils;
+
+/**
+ * Copies the content of the provisioned packages into the staged directory.
+ *
+ * Feature-packs and their packages are processed in the order they are installed in,
+ * so if the same path is provided by more than one package, the content of the
+ * package processed last wins. When more than one thread is allowed, the effective
+ * source of each target path is determined first and then the files are copied
+ * concurrently, which produces the same result as the sequential copy.
+ *
+ * @author Alexey Loubyansky
+ */
+class PackageContentCopier {
+
+    private static class ContentFile {
+        final Path src;
+        final String pkgName;
+
+        ContentFile(Path src, String pkgName) {
+            this.src = src;
+            this.pkgName = pkgName;
+        }
+    }
+
+    static void copy(Collection<FeaturePackRuntime> fps, Path stagedDir, int threads, MessageWriter log) throws ProvisioningException {
+        if(threads <= 1) {
+            for(FeaturePackRuntime fp : fps) {
+                log.verbose("Installing %s", fp.getFPID());
+                for(PackageRuntime pkg : fp.getPackages()) {
+                    final Path pkgSrcDir = pkg.getContentDir();
+                    if (Files.exists(pkgSrcDir)) {
+                        try {
+                            IoUtils.copy(pkgSrcDir, stagedDir);
+                        } catch (IOException e) {
+                            throw new FeaturePackInstallException(Errors.packageContentCopyFailed(pkg.getName()), e);
+                        }
+                    }
+                }
+            }
+            return;
+        }
+
+        final PackageContentCopier copier = new PackageContentCopier(stagedDir);
+        for(FeaturePackRuntime fp : fps) {
+            log.verbose("Installing %s", fp.getFPID());
+            for(PackageRuntime pkg : fp.getPackages()) {
+                final Path pkgSrcDir = pkg.getContentDir();
+                if (Files.exists(pkgSrcDir)) {
+                    try {
+                        copier.collect(pkgSrcDir, pkg.getName());
+                    } catch (IOException e) {
+                        throw new FeaturePackInstallException(Errors.packageContentCopyFailed(pkg.getName()), e);
+                    }
+                }
+            }
+        }
+        copier.copy(threads);
+    }
+
+    private final Path stagedDir;
+    private final Map<String, String> dirs = new LinkedHashMap<>();
+    private final Map<String, ContentFile> files = new HashMap<>();
+
+    private PackageContentCopier(Path stagedDir) {
+        this.stagedDir = stagedDir;
+    }
+
+    private void collect(Path pkgSrcDir, String pkgName) throws IOException {
+        Files.walkFileTree(pkgSrcDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        final String relativePath = pkgSrcDir.relativize(dir).toString();
+                        if(files.containsKey(relativePath)) {
+                            throw new FileAlreadyExistsException(stagedDir.resolve(relativePath).toString());
+                        }
+                        if(!dirs.containsKey(relativePath)) {
+                            dirs.put(relativePath, pkgName);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        final String relativePath = pkgSrcDir.relativize(file).toString();
+                        if(dirs.containsKey(relativePath)) {
+                            throw new FileAlreadyExistsException(stagedDir.resolve(relativePath).toString());
+                        }
+                        files.put(relativePath, new ContentFile(file, pkgName));
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    private void copy(int threads) throws ProvisioningException {
+        for(Map.Entry<String, String> dir : dirs.entrySet()) {
+            try {
+                Files.createDirectories(stagedDir.resolve(dir.getKey()));
+            } catch (IOException e) {
+                throw new FeaturePackInstallException(Errors.packageContentCopyFailed(dir.getValue()), e);
+            }
+        }
+        if(files.isEmpty()) {
+            return;
+        }
+        final List<ConcurrentUtils.Task> tasks = new ArrayList<>(files.size());
+        for(Map.Entry<String, ContentFile> entry : files.entrySet()) {
+            final Path target = stagedDir.resolve(entry.getKey());
+            final ContentFile file = entry.getValue();
+            tasks.add(new ConcurrentUtils.Task() {
+                @Override
+                public void execute() throws ProvisioningException {
+                    try {
+                        Files.copy(file.src, target, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (IOException e) {
+                        throw new FeaturePackInstallException(Errors.packageContentCopyFailed(file.pkgName), e);
+                    }
+                }
+            });
+        }
+        ConcurrentUtils.execute(tasks, threads, "Galleon package content copier");
+    }
+}
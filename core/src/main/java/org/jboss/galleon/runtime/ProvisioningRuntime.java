@@ -19,13 +19,17 @@ package org.jboss.galleon.runtime;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Set;
 
 import javax.xml.stream.XMLStreamException;
 
+import org.jboss.galleon.Constants;
 import org.jboss.galleon.Errors;
 import org.jboss.galleon.MessageWriter;
 import org.jboss.galleon.ProvisioningException;
@@ -35,11 +39,14 @@ import org.jboss.galleon.diff.FsDiff;
 import org.jboss.galleon.layout.FeaturePackLayoutTransformer;
 import org.jboss.galleon.layout.FeaturePackPluginVisitor;
 import org.jboss.galleon.layout.ProvisioningLayout;
+import org.jboss.galleon.plugin.ConfigHandlerPlugin;
 import org.jboss.galleon.plugin.InstallPlugin;
+import org.jboss.galleon.plugin.ProvisionedConfigHandler;
 import org.jboss.galleon.repo.RepositoryArtifactResolver;
 import org.jboss.galleon.state.FeaturePackSet;
 import org.jboss.galleon.state.ProvisionedConfig;
 import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
+import org.jboss.galleon.util.ConcurrentUtils;
 import org.jboss.galleon.util.FeaturePackInstallException;
 import org.jboss.galleon.util.IoUtils;
 import org.jboss.galleon.util.PathsUtils;
@@ -62,6 +69,8 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
     private Boolean emptyStagedDir;
     private final boolean recordState;
     private List<ProvisionedConfig> configs = Collections.emptyList();
+    // the configs whose features will be arranged during provisioning, when the configs are streamed
+    private Deque<ConfigModelStack> streamedConfigs;
 
     ProvisioningRuntime(final ProvisioningRuntimeBuilder builder, final MessageWriter messageWriter) throws ProvisioningException {
         this.startTime = builder.startTime;
@@ -76,7 +85,11 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
 
         Path stagedDir = null;
         try {
-            this.configs = builder.getResolvedConfigs();
+            if(Constants.TRUE.equals(layout.getOptionValue(ProvisioningOption.STREAM_CONFIGS))) {
+                streamedConfigs = new ArrayDeque<>(builder.releaseOrderedConfigs());
+            } else {
+                this.configs = builder.getResolvedConfigs();
+            }
             if(builder.stagedDir == null) {
                 this.stagedDir = stagedDir = layout.newStagedDir();
             } else {
@@ -228,6 +241,14 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
         return !configs.isEmpty();
     }
 
+    /**
+     * Returns the configs of the installation.
+     * When {@link ProvisioningOption#STREAM_CONFIGS} is enabled, the configs are not kept by the runtime,
+     * in which case this method returns an empty list and the configs are passed
+     * to the {@link ConfigHandlerPlugin}s during provisioning instead.
+     *
+     * @return  configs of the installation
+     */
     @Override
     public List<ProvisionedConfig> getConfigs() {
         return configs;
@@ -243,19 +264,9 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
         }, InstallPlugin.class);
 
         // copy package content
-        for(FeaturePackRuntime fp : layout.getOrderedFeaturePacks()) {
-            messageWriter.verbose("Installing %s", fp.getFPID());
-            for(PackageRuntime pkg : fp.getPackages()) {
-                final Path pkgSrcDir = pkg.getContentDir();
-                if (Files.exists(pkgSrcDir)) {
-                    try {
-                        IoUtils.copy(pkgSrcDir, stagedDir);
-                    } catch (IOException e) {
-                        throw new FeaturePackInstallException(Errors.packageContentCopyFailed(pkg.getName()), e);
-                    }
-                }
-            }
-        }
+        PackageContentCopier.copy(layout.getOrderedFeaturePacks(), stagedDir, getContentCopyThreads(), messageWriter);
+
+        handleConfigs();
 
         layout.visitPlugins(new FeaturePackPluginVisitor<InstallPlugin>() {
             @Override
@@ -272,17 +283,65 @@ public class ProvisioningRuntime implements FeaturePackSet<FeaturePackRuntime>,
                 throw new FeaturePackInstallException(Errors.writeFile(PathsUtils.getProvisioningXml(stagedDir)), e);
             }
 
-            // save the provisioned state
-            try {
-                ProvisionedStateXmlWriter.getInstance().write(this, PathsUtils.getProvisionedStateXml(stagedDir));
-            } catch (XMLStreamException | IOException e) {
-                throw new FeaturePackInstallException(Errors.writeFile(PathsUtils.getProvisionedStateXml(stagedDir)), e);
+            // save the provisioned state, unless it was written while the configs were streamed
+            if(streamedConfigs == null) {
+                try {
+                    ProvisionedStateXmlWriter.getInstance().write(this, PathsUtils.getProvisionedStateXml(stagedDir));
+                } catch (XMLStreamException | IOException e) {
+                    throw new FeaturePackInstallException(Errors.writeFile(PathsUtils.getProvisionedStateXml(stagedDir)), e);
+                }
             }
         }
 
         emptyStagedDir = null;
     }
 
+    /**
+     * Passes the configs to the config handler plugins. When the configs are streamed, each config
+     * is arranged, written to the provisioned state and handled by the plugins before the next one
+     * is arranged, after which it is released.
+     */
+    private void handleConfigs() throws ProvisioningException {
+        final List<ProvisionedConfigHandler> handlers = new ArrayList<>(0);
+        layout.visitPlugins(new FeaturePackPluginVisitor<ConfigHandlerPlugin>() {
+            @Override
+            public void visitPlugin(ConfigHandlerPlugin plugin) throws ProvisioningException {
+                handlers.add(plugin.getConfigHandler(ProvisioningRuntime.this));
+            }
+        }, ConfigHandlerPlugin.class);
+
+        if(streamedConfigs == null) {
+            for(ProvisionedConfig config : configs) {
+                for(ProvisionedConfigHandler handler : handlers) {
+                    config.handle(handler);
+                }
+            }
+            return;
+        }
+
+        final Path stateXml = PathsUtils.getProvisionedStateXml(stagedDir);
+        try (ProvisionedStateXmlWriter.ConfigWriter stateWriter = recordState
+                ? ProvisionedStateXmlWriter.getInstance().openConfigWriter(this, !streamedConfigs.isEmpty(), stateXml)
+                : null) {
+            ConfigModelStack configStack;
+            while((configStack = streamedConfigs.poll()) != null) {
+                final ProvisionedConfig config = ResolvedConfig.build(configStack);
+                if(stateWriter != null) {
+                    stateWriter.write(config);
+                }
+                for(ProvisionedConfigHandler handler : handlers) {
+                    config.handle(handler);
+                }
+            }
+        } catch (XMLStreamException | IOException e) {
+            throw new FeaturePackInstallException(Errors.writeFile(stateXml), e);
+        }
+    }
+
+    private int getContentCopyThreads() throws ProvisioningException {
+        return ConcurrentUtils.parseThreads(ProvisioningOption.CONTENT_COPY_THREADS, layout.getOptionValue(ProvisioningOption.CONTENT_COPY_THREADS));
+    }
+
     @Override
     public void close() {
         layout.close();
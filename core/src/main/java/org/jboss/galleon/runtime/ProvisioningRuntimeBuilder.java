@@ -20,6 +20,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -59,6 +60,7 @@ import org.jboss.galleon.state.ProvisionedConfig;
 import org.jboss.galleon.universe.FeaturePackLocation;
 import org.jboss.galleon.universe.FeaturePackLocation.ProducerSpec;
 import org.jboss.galleon.util.CollectionUtils;
+import org.jboss.galleon.util.ConcurrentUtils;
 
 
 /**
@@ -175,6 +177,10 @@ public class ProvisioningRuntimeBuilder {
 
         config = layout.getConfig();
         fpConfigStack = new FpStack(config);
+        for(FeaturePackRuntimeBuilder fp : layout.getOrderedFeaturePacks()) {
+            layout.getFactory().extractPackageContent(fp.getDir());
+            fp.models = layout.getFactory().getFeaturePackModels(fp.getFPID(), fp.getDir());
+        }
 
         final String optionalPackages = layout.getOptionValue(ProvisioningOption.OPTIONAL_PACKAGES);
         switch(optionalPackages) {
@@ -485,8 +491,8 @@ public class ProvisioningRuntimeBuilder {
             if(configStack.isFilteredOut(feature.getSpecId(), feature.getId())) {
                 continue;
             }
-            configStack.includeFeature(feature.id, feature.spec, feature.params,
-                    feature.deps, feature.unsetParams, feature.resetParams);
+            configStack.includeFeature(feature.id, feature.spec, feature.getResolvedParams(),
+                    feature.deps, feature.getUnsetParams(), feature.getResetParams());
         }
     }
 
@@ -1085,16 +1091,99 @@ public class ProvisioningRuntimeBuilder {
     }
 
     List<ProvisionedConfig> getResolvedConfigs() throws ProvisioningException {
+        final List<ConfigModelStack> orderedConfigs = getOrderedConfigs();
+        if(orderedConfigs.isEmpty()) {
+            return Collections.emptyList();
+        }
+        arrangeFeatures(orderedConfigs, getConfigResolutionThreads());
+        final List<ProvisionedConfig> configList = new ArrayList<>(orderedConfigs.size());
+        for(ConfigModelStack configStack : orderedConfigs) {
+            configList.add(ResolvedConfig.build(configStack));
+        }
+        return Collections.unmodifiableList(configList);
+    }
+
+    /**
+     * Returns the configs in the order they should be provisioned, their features are not arranged yet.
+     * The builder releases its references to the configs, so that each config can be released
+     * by the caller as soon as it has been arranged and handled.
+     */
+    List<ConfigModelStack> releaseOrderedConfigs() throws ProvisioningException {
+        final List<ConfigModelStack> orderedConfigs = getOrderedConfigs();
+        configsToBuild = Collections.emptyMap();
+        nameOnlyConfigs = Collections.emptyMap();
+        namedModelConfigs = Collections.emptyMap();
+        layers = Collections.emptyMap();
+        return orderedConfigs;
+    }
+
+    private List<ConfigModelStack> getOrderedConfigs() throws ProvisioningException {
         final int configsTotal = configsToBuild.size();
         if(configsTotal == 0) {
             return Collections.emptyList();
         }
-        final List<ProvisionedConfig> configList = new ArrayList<>(configsTotal);
-        buildConfigs(configList, configsToBuild.entrySet());
-        return configList.size() > 0 ? Collections.unmodifiableList(configList) : configList;
+        final List<ConfigModelStack> orderedConfigs = new ArrayList<>(configsTotal);
+        orderConfigs(orderedConfigs, configsToBuild.entrySet());
+        return orderedConfigs;
+    }
+
+    /**
+     * Arranges the features of each config. The configs are independent of each other at this point,
+     * so, if more than one thread is allowed, they are arranged concurrently. The feature specs are shared
+     * between the configs, which is why their references are resolved upfront in the calling thread.
+     * The state of the arrangement, including the providers of the capabilities of the specs, is kept
+     * in the config's own spec features and features. Features merged from model-only configs
+     * may also be shared between configs, such configs are arranged in one task in their original order.
+     */
+    private void arrangeFeatures(List<ConfigModelStack> configStacks, int threads) throws ProvisioningException {
+        if(threads < 2 || configStacks.size() < 2) {
+            return;
+        }
+        final Map<ResolvedFeature, ConfigModelStack> featureConfigs = new IdentityHashMap<>();
+        Set<ConfigModelStack> sharingConfigs = Collections.emptySet();
+        for(ConfigModelStack configStack : configStacks) {
+            for(SpecFeatures specFeatures : configStack.specFeatures.values()) {
+                specFeatures.spec.resolveRefMappings(this);
+                for(ResolvedFeature feature : specFeatures.getFeatures()) {
+                    final ConfigModelStack otherConfig = featureConfigs.put(feature, configStack);
+                    if(otherConfig != null && otherConfig != configStack) {
+                        sharingConfigs = CollectionUtils.add(sharingConfigs, otherConfig);
+                        sharingConfigs = CollectionUtils.add(sharingConfigs, configStack);
+                    }
+                }
+            }
+        }
+        final List<ConcurrentUtils.Task> tasks = new ArrayList<>(configStacks.size());
+        List<ConfigModelStack> sequentialConfigs = Collections.emptyList();
+        for(ConfigModelStack configStack : configStacks) {
+            if(sharingConfigs.contains(configStack)) {
+                sequentialConfigs = CollectionUtils.add(sequentialConfigs, configStack);
+            } else {
+                tasks.add(newArrangeTask(Collections.singletonList(configStack)));
+            }
+        }
+        if(!sequentialConfigs.isEmpty()) {
+            tasks.add(newArrangeTask(sequentialConfigs));
+        }
+        ConcurrentUtils.execute(tasks, threads, "Galleon config resolver");
+    }
+
+    private static ConcurrentUtils.Task newArrangeTask(List<ConfigModelStack> configStacks) {
+        return new ConcurrentUtils.Task() {
+            @Override
+            public void execute() throws ProvisioningException {
+                for(ConfigModelStack configStack : configStacks) {
+                    configStack.orderFeatures(true);
+                }
+            }
+        };
+    }
+
+    private int getConfigResolutionThreads() throws ProvisioningException {
+        return ConcurrentUtils.parseThreads(ProvisioningOption.CONFIG_RESOLUTION_THREADS, layout.getOptionValue(ProvisioningOption.CONFIG_RESOLUTION_THREADS));
     }
 
-    private void buildConfigs(List<ProvisionedConfig> configList, Set<Map.Entry<ConfigId, ConfigModelStack>> configStacks) throws ProvisioningException {
+    private void orderConfigs(List<ConfigModelStack> configList, Set<Map.Entry<ConfigId, ConfigModelStack>> configStacks) throws ProvisioningException {
         for(Map.Entry<ConfigId, ConfigModelStack> entry : configStacks) {
             final ConfigId id = entry.getKey();
             if(id.getName() == null || contains(configList, id)) {
@@ -1104,9 +1193,9 @@ public class ProvisioningRuntimeBuilder {
         }
     }
 
-    private void orderConfig(ConfigModelStack config, List<ProvisionedConfig> configList, Set<ConfigId> scheduledIds) throws ProvisioningException {
+    private void orderConfig(ConfigModelStack config, List<ConfigModelStack> configList, Set<ConfigId> scheduledIds) throws ProvisioningException {
         if(!config.hasConfigDeps()) {
-            configList.add(ResolvedConfig.build(config));
+            configList.add(config);
             return;
         }
         scheduledIds = CollectionUtils.add(scheduledIds, config.id);
@@ -1147,13 +1236,13 @@ public class ProvisioningRuntimeBuilder {
             }
         }
         scheduledIds = CollectionUtils.remove(scheduledIds, config.id);
-        configList.add(ResolvedConfig.build(config));
+        configList.add(config);
     }
 
-    private boolean contains(List<ProvisionedConfig> configList, ConfigId depId) {
+    private boolean contains(List<ConfigModelStack> configList, ConfigId depId) {
         int i = 0;
         while(i < configList.size()) {
-            if(((ResolvedConfig)configList.get(i++)).id.equals(depId)) {
+            if(configList.get(i++).id.equals(depId)) {
                 return true;
             }
         }
@@ -16,7 +16,10 @@
  */
 package org.jboss.galleon.runtime;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -24,6 +27,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.jboss.galleon.Errors;
@@ -40,6 +44,65 @@ import org.jboss.galleon.util.CollectionUtils;
  */
 public class ResolvedFeature extends CapabilityProvider implements ProvisionedFeature {
 
+    /**
+     * Read-only map view of the parameters that have values.
+     */
+    private class ParamsView extends AbstractMap<String, Object> {
+
+        @Override
+        public int size() {
+            return paramsTotal;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return paramsTotal == 0;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Object get(Object key) {
+            final ResolvedFeatureParam param = spec.getResolvedParams().get(key);
+            return param == null ? null : params[param.index];
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new Iterator<Map.Entry<String, Object>>() {
+                        int next = nextParam(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < params.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if(next >= params.length) {
+                                throw new NoSuchElementException();
+                            }
+                            final Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<>(spec.getResolvedParam(next).spec.getName(), params[next]);
+                            next = nextParam(next + 1);
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return paramsTotal;
+                }
+            };
+        }
+    }
+
     /*
      * These states are used when the features are being ordered in the config
      */
@@ -50,9 +113,12 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
     final int includeNo;
     final ResolvedFeatureId id;
     final ResolvedFeatureSpec spec;
-    Map<String, Object> params;
-    Set<String> resetParams = Collections.emptySet();
-    Set<String> unsetParams = Collections.emptySet();
+    // parameter values indexed by the position of the parameter in the spec
+    private final Object[] params;
+    private int paramsTotal;
+    // positions of the reset and unset parameters
+    private BitSet resetParams;
+    private BitSet unsetParams;
     Map<ResolvedFeatureId, FeatureDependencySpec> deps;
 
     private byte orderingState = FREE;
@@ -64,14 +130,7 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
     private SpecFeatures specFeatures;
     ConfigFeatureBranch branch;
     List<ResolvedFeature> branchDependees;
-    Map<ConfigFeatureBranch, Boolean> branchDeps = new HashMap<>();
-
-    ResolvedFeature(ResolvedFeatureId id, ResolvedFeatureSpec spec, int includeNo) {
-        this.includeNo = includeNo;
-        this.id = id;
-        this.spec = spec;
-        params = id == null ? new HashMap<>() : new HashMap<>(id.params);
-    }
+    Map<ConfigFeatureBranch, Boolean> branchDeps = Collections.emptyMap();
 
     ResolvedFeature(ResolvedFeatureId id, ResolvedFeatureSpec spec, Map<String, Object> params, Map<ResolvedFeatureId, FeatureDependencySpec> resolvedDeps, int includeNo)
             throws ProvisioningException {
@@ -79,7 +138,12 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
         this.id = id;
         this.spec = spec;
         this.deps = resolvedDeps;
-        this.params = id == null ? new HashMap<>() : new HashMap<>(id.params);
+        this.params = new Object[spec.getParamsTotal()];
+        if(id != null) {
+            for (Map.Entry<String, Object> entry : id.params.entrySet()) {
+                putParam(spec.getResolvedParam(entry.getKey()).index, entry.getValue());
+            }
+        }
         if (!params.isEmpty()) {
             for (Map.Entry<String, Object> entry : params.entrySet()) {
                 setParam(entry.getKey(), entry.getValue(), true);
@@ -87,30 +151,38 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
         }
     }
 
-    ResolvedFeature copy(int includeNo) throws ProvisioningException {
-        final ResolvedFeature copy = new ResolvedFeature(id, spec, params.size() > 1 ? new HashMap<>(params) : params, deps.size() > 1 ? new LinkedHashMap<>(deps) : deps, includeNo);
-        if(!resetParams.isEmpty()) {
-            copy.resetParams = CollectionUtils.clone(resetParams);
+    private ResolvedFeature(ResolvedFeature feature, int includeNo) {
+        this.includeNo = includeNo;
+        this.id = feature.id;
+        this.spec = feature.spec;
+        this.deps = feature.deps.size() > 1 ? new LinkedHashMap<>(feature.deps) : feature.deps;
+        this.params = feature.params.clone();
+        this.paramsTotal = feature.paramsTotal;
+        if(feature.resetParams != null && !feature.resetParams.isEmpty()) {
+            resetParams = (BitSet) feature.resetParams.clone();
         }
-        if(!unsetParams.isEmpty()) {
-            copy.unsetParams = CollectionUtils.clone(unsetParams);
+        if(feature.unsetParams != null && !feature.unsetParams.isEmpty()) {
+            unsetParams = (BitSet) feature.unsetParams.clone();
         }
-        return copy;
+    }
+
+    ResolvedFeature copy(int includeNo) throws ProvisioningException {
+        return new ResolvedFeature(this, includeNo);
     }
 
     void validate() throws ProvisioningDescriptionException {
-        for(Map.Entry<String, ResolvedFeatureParam> entry : spec.getResolvedParams().entrySet()) {
-            final ResolvedFeatureParam param = entry.getValue();
-            if(params.containsKey(entry.getKey())) {
+        for(int i = 0; i < params.length; ++i) {
+            if(params[i] != null) {
                 continue;
             }
-            if(param.defaultValue == null || unsetParams.contains(entry.getKey())) {
+            final ResolvedFeatureParam param = spec.getResolvedParam(i);
+            if(param.defaultValue == null || isSet(unsetParams, i)) {
                 if(param.spec.isNillable()) {
                     continue;
                 }
-                throw new ProvisioningDescriptionException(Errors.nonNillableParameterIsNull(this, entry.getKey()));
+                throw new ProvisioningDescriptionException(Errors.nonNillableParameterIsNull(this, param.spec.getName()));
             }
-            params.put(entry.getKey(), param.defaultValue);
+            putParam(i, param.defaultValue);
         }
     }
 
@@ -136,7 +208,7 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
         }
         orderingState = ORDERED;
         provided(branch);
-        spec.provided(branch);
+        specFeatures.provided(branch);
     }
 
     void free() {
@@ -147,6 +219,9 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
     void addBranchDep(ConfigFeatureBranch branchDep, boolean child) {
         final Boolean prevChild = branchDeps.get(branchDep);
         if(prevChild == null || !prevChild && child) {
+            if(branchDeps.isEmpty()) {
+                branchDeps = new HashMap<>();
+            }
             if(branchDeps.put(branchDep, child) != null && branch != null) {
                 branch.addBranchDep(branchDep);
             }
@@ -252,27 +327,80 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
 
     @Override
     public boolean hasParams() {
-        return !params.isEmpty();
+        return paramsTotal > 0;
     }
 
     @Override
     public Collection<String> getParamNames() {
-        return params.keySet();
+        return getResolvedParams().keySet();
     }
 
     @Override
     public Object getResolvedParam(String name) {
-        return params.get(name);
+        final ResolvedFeatureParam param = spec.getResolvedParams().get(name);
+        return param == null ? null : params[param.index];
     }
 
     @Override
     public String getConfigParam(String name) throws ProvisioningException {
-        return spec.paramToString(name, params.get(name));
+        return spec.paramToString(name, getResolvedParam(name));
     }
 
     @Override
     public Map<String, Object> getResolvedParams() {
-        return params;
+        return paramsTotal == 0 ? Collections.emptyMap() : new ParamsView();
+    }
+
+    Set<String> getUnsetParams() {
+        return getParamNames(unsetParams);
+    }
+
+    Set<String> getResetParams() {
+        return getParamNames(resetParams);
+    }
+
+    private Set<String> getParamNames(BitSet bits) {
+        if(bits == null || bits.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> names = Collections.emptySet();
+        for(int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            names = CollectionUtils.add(names, spec.getResolvedParam(i).spec.getName());
+        }
+        return names;
+    }
+
+    private int nextParam(int i) {
+        while(i < params.length && params[i] == null) {
+            ++i;
+        }
+        return i;
+    }
+
+    private void putParam(int i, Object value) {
+        if(params[i] == null) {
+            ++paramsTotal;
+        }
+        params[i] = value;
+    }
+
+    private void removeParam(int i) {
+        if(params[i] != null) {
+            params[i] = null;
+            --paramsTotal;
+        }
+    }
+
+    private static boolean isSet(BitSet bits, int i) {
+        return bits != null && bits.get(i);
+    }
+
+    private BitSet set(BitSet bits, int i) {
+        if(bits == null) {
+            bits = new BitSet(params.length);
+        }
+        bits.set(i);
+        return bits;
     }
 
     void setParam(String name, Object value, boolean overwrite) throws ProvisioningException {
@@ -285,68 +413,66 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
                 return;
             }
         }
-        if(!spec.xmlSpec.hasParam(name)) {
-            throw new ProvisioningDescriptionException(Errors.unknownFeatureParameter(spec.id, name));
-        }
+        final ResolvedFeatureParam param = spec.getResolvedParam(name);
+        final int i = param.index;
 
-        if(unsetParams.contains(name)) {
+        if(isSet(unsetParams, i)) {
             if(!overwrite) {
                 return;
             }
-            unsetParams = CollectionUtils.remove(unsetParams, name);
-            params.put(name, value);
+            unsetParams.clear(i);
+            putParam(i, value);
             return;
         }
 
-        if(resetParams.contains(name)) {
+        if(isSet(resetParams, i)) {
             if(!overwrite) {
                 return;
             }
-            resetParams = CollectionUtils.remove(resetParams, name);
-            params.put(name, value);
+            resetParams.clear(i);
+            putParam(i, value);
             return;
         }
 
-        final Object prevValue = params.get(name);
+        final Object prevValue = params[i];
         if(prevValue == null) {
-            params.put(name, value);
+            putParam(i, value);
             return;
         }
-        final FeatureParameterType valueType = spec.getTypeForParameter(name);
+        final FeatureParameterType valueType = param.type;
         if(valueType.isMergeable()) {
-            params.put(name, overwrite ? valueType.merge(prevValue, value) : valueType.merge(value, prevValue));
+            params[i] = overwrite ? valueType.merge(prevValue, value) : valueType.merge(value, prevValue);
             return;
         }
         if(overwrite) {
-            params.put(name, value);
+            params[i] = value;
         }
     }
 
     boolean isUnset(String name) {
-        return unsetParams.contains(name);
+        final ResolvedFeatureParam param = spec.getResolvedParams().get(name);
+        return param != null && isSet(unsetParams, param.index);
     }
 
     void unsetParam(String name, boolean overwrite) throws ProvisioningDescriptionException {
-        if(!spec.xmlSpec.hasParam(name)) {
-            throw new ProvisioningDescriptionException(Errors.unknownFeatureParameter(spec.id, name));
-        }
+        final int i = spec.getResolvedParam(name).index;
         if(id.params.containsKey(name)) {
             throw new ProvisioningDescriptionException(Errors.featureIdParameterCantBeUnset(id, name));
         }
-        if(unsetParams.contains(name)) {
+        if(isSet(unsetParams, i)) {
             return;
         }
-        if (resetParams.contains(name)) {
+        if (isSet(resetParams, i)) {
             if(!overwrite) {
                 return;
             }
-            resetParams = CollectionUtils.remove(resetParams, name);
+            resetParams.clear(i);
         } else if (overwrite) {
-            params.remove(name);
-        } else if (params.containsKey(name)) {
+            removeParam(i);
+        } else if (params[i] != null) {
             return;
         }
-        unsetParams = CollectionUtils.add(unsetParams, name);
+        unsetParams = set(unsetParams, i);
     }
 
     void unsetAllParams(Set<String> names, boolean overwrite) throws ProvisioningDescriptionException {
@@ -359,21 +485,19 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
     }
 
     void resetParam(String name) throws ProvisioningDescriptionException {
-        if(!spec.xmlSpec.hasParam(name)) {
-            throw new ProvisioningDescriptionException(Errors.unknownFeatureParameter(spec.id, name));
-        }
+        final int i = spec.getResolvedParam(name).index;
         if(id.params.containsKey(name)) {
             throw new ProvisioningDescriptionException(Errors.featureIdParameterCantBeReset(id, name));
         }
-        if(resetParams.contains(name)) {
+        if(isSet(resetParams, i)) {
             return;
         }
-        if(unsetParams.contains(name)) {
-            unsetParams = CollectionUtils.remove(unsetParams, name);
+        if(isSet(unsetParams, i)) {
+            unsetParams.clear(i);
         } else {
-            params.remove(name);
+            removeParam(i);
         }
-        resetParams = CollectionUtils.add(resetParams, name);
+        resetParams = set(resetParams, i);
     }
 
     void resetAllParams(Set<String> names) throws ProvisioningDescriptionException {
@@ -387,13 +511,9 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
 
     void merge(ResolvedFeature other, boolean overwriteParams) throws ProvisioningException {
         merge(other.deps, other.getResolvedParams(), overwriteParams);
-        if(!other.unsetParams.isEmpty()) {
-            unsetAllParams(other.unsetParams, overwriteParams);
-        }
+        unsetAllParams(other.getUnsetParams(), overwriteParams);
         if(overwriteParams) {
-            if(!other.resetParams.isEmpty()) {
-                resetAllParams(other.resetParams);
-            }
+            resetAllParams(other.getResetParams());
         }
     }
 
@@ -424,6 +544,6 @@ public class ResolvedFeature extends CapabilityProvider implements ProvisionedFe
 
     @Override
     public String toString() {
-        return "ResolvedFeature{" + "includeNo=" + includeNo + ", id=" + id + ", spec=" + spec + ", params=" + params + ", deps=" + deps + ", orderingState=" + orderingState + '}';
+        return "ResolvedFeature{" + "includeNo=" + includeNo + ", id=" + id + ", spec=" + spec + ", params=" + getResolvedParams() + ", deps=" + deps + ", orderingState=" + orderingState + '}';
     }
 }
\ No newline at end of file
@@ -29,10 +29,13 @@ class ResolvedFeatureParam {
     final FeatureParameterSpec spec;
     final FeatureParameterType type;
     final Object defaultValue;
+    // position of the parameter in the spec
+    final int index;
 
-    ResolvedFeatureParam(FeatureParameterSpec spec, FeatureParameterType type) throws ProvisioningException {
+    ResolvedFeatureParam(FeatureParameterSpec spec, FeatureParameterType type, int index) throws ProvisioningException {
         this.spec = spec;
         this.type = type;
+        this.index = index;
         if(spec.hasDefaultValue()) {
             defaultValue = type.fromString(spec.getDefaultValue());
         } else {
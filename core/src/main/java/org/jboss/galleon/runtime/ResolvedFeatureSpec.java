@@ -46,11 +46,12 @@ import org.jboss.galleon.util.StringUtils;
  *
  * @author Alexey Loubyansky
  */
-public class ResolvedFeatureSpec extends CapabilityProvider {
+public class ResolvedFeatureSpec {
 
     final ResolvedSpecId id;
     final FeatureSpec xmlSpec;
     private Map<String, ResolvedFeatureParam> resolvedParamSpecs = Collections.emptyMap();
+    private final ResolvedFeatureParam[] paramsByIndex;
     private Map<String, ResolvedFeatureSpec> resolvedRefTargets;
     private Map<ResolvedFeatureId, FeatureDependencySpec> resolvedDeps;
 
@@ -64,10 +65,16 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
         this.xmlSpec = spec;
 
         if(xmlSpec.hasParams()) {
+            paramsByIndex = new ResolvedFeatureParam[xmlSpec.getParams().size()];
+            int i = 0;
             for(Map.Entry<String, FeatureParameterSpec> entry : xmlSpec.getParams().entrySet()) {
                 final FeatureParameterSpec param = entry.getValue();
-                resolvedParamSpecs = CollectionUtils.put(resolvedParamSpecs, param.getName(), resolveParamSpec(param, typeProvider));
+                final ResolvedFeatureParam resolvedParam = resolveParamSpec(param, typeProvider, i);
+                paramsByIndex[i++] = resolvedParam;
+                resolvedParamSpecs = CollectionUtils.put(resolvedParamSpecs, param.getName(), resolvedParam);
             }
+        } else {
+            paramsByIndex = new ResolvedFeatureParam[0];
         }
 
         final FeatureAnnotation newFb = xmlSpec.getAnnotation(FeatureAnnotation.FEATURE_BRANCH);
@@ -109,14 +116,14 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
         return branchBatch == null ? defaultValue : branchBatch;
     }
 
-    private ResolvedFeatureParam resolveParamSpec(FeatureParameterSpec paramSpec, ParameterTypeProvider typeProvider) throws ProvisioningException {
+    private ResolvedFeatureParam resolveParamSpec(FeatureParameterSpec paramSpec, ParameterTypeProvider typeProvider, int index) throws ProvisioningException {
         final FeatureParameterType type;
         try {
             type = typeProvider.getType(id.producer, paramSpec.getType());
         } catch(ParameterTypeNotFoundException e) {
             throw new ProvisioningException(Errors.failedToResolveParameter(id, paramSpec.getName()), e);
         }
-        return new ResolvedFeatureParam(paramSpec, type);
+        return new ResolvedFeatureParam(paramSpec, type, index);
     }
 
     public ResolvedSpecId getId() {
@@ -151,6 +158,14 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
         return resolvedParamSpecs;
     }
 
+    int getParamsTotal() {
+        return paramsByIndex.length;
+    }
+
+    ResolvedFeatureParam getResolvedParam(int index) {
+        return paramsByIndex[index];
+    }
+
     ResolvedFeatureParam getResolvedParam(String name) throws ProvisioningDescriptionException {
         final ResolvedFeatureParam p = resolvedParamSpecs.get(name);
         if(p == null) {
@@ -231,10 +246,6 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
         return resolvedParam.type.resolveCapabilityElement(capResolver, value);
     }
 
-    FeatureParameterType getTypeForParameter(String paramName) throws ParameterTypeNotFoundException, ProvisioningDescriptionException {
-        return getResolvedParam(paramName).type;
-    }
-
     ResolvedFeatureId resolveIdFromForeignKey(ResolvedFeatureId parentId, String parentRef, Map<String, String> params) throws ProvisioningException {
         if(!xmlSpec.hasId()) {
             return null;
@@ -395,6 +406,9 @@ public class ResolvedFeatureSpec extends CapabilityProvider {
     }
 
     void resolveRefMappings(ProvisioningRuntimeBuilder rt) throws ProvisioningException {
+        if(resolvedRefTargets != null) {
+            return;
+        }
         if(!xmlSpec.hasFeatureRefs()) {
             resolvedRefTargets = Collections.emptyMap();
             return;
@@ -22,10 +22,13 @@ import java.util.List;
 import org.jboss.galleon.ProvisioningException;
 
 /**
+ * The features of a spec included into a config. Unlike the spec, which may be shared between configs,
+ * the instance belongs to a single config, which is why it also tracks the providers of the capabilities
+ * the spec provides in the config.
  *
  * @author Alexey Loubyansky
  */
-class SpecFeatures {
+class SpecFeatures extends CapabilityProvider {
 
     private static final byte FREE = 0;
     private static final byte PROCESSING = 1;
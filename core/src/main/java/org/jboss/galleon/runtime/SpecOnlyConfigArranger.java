@@ -39,7 +39,7 @@ public class SpecOnlyConfigArranger {
     private Map<ResolvedFeatureId, ResolvedFeature> features;
 
     private CapabilityResolver capResolver = new CapabilityResolver();
-    private Map<String, CapabilityProviders> capProviders = Collections.emptyMap();
+    private Map<CapabilityName, CapabilityProviders> capProviders = Collections.emptyMap();
 
     // features in the order they should be processed by the provisioning handlers
     private List<ResolvedFeature> orderedFeatures = Collections.emptyList();
@@ -65,14 +65,14 @@ public class SpecOnlyConfigArranger {
             if(features.spec.xmlSpec.providesCapabilities()) {
                 for(CapabilitySpec cap : features.spec.xmlSpec.getProvidedCapabilities()) {
                     if(cap.isStatic()) {
-                        getProviders(cap.toString(), true).add(features);
+                        getProviders(capResolver.getName(cap.toString()), true).add(features);
                     } else {
                         for(ResolvedFeature feature : features.getFeatures()) {
-                            final List<String> resolvedCaps = capResolver.resolve(cap, feature);
+                            final List<CapabilityName> resolvedCaps = capResolver.resolve(cap, feature);
                             if(resolvedCaps.isEmpty()) {
                                 continue;
                             }
-                            for(String resolvedCap : resolvedCaps) {
+                            for(CapabilityName resolvedCap : resolvedCaps) {
                                 getProviders(resolvedCap, true).add(feature);
                             }
                         }
@@ -86,13 +86,13 @@ public class SpecOnlyConfigArranger {
         }
     }
 
-    private CapabilityProviders getProviders(String cap, boolean add) throws ProvisioningException {
+    private CapabilityProviders getProviders(CapabilityName cap, boolean add) throws ProvisioningException {
         CapabilityProviders providers = capProviders.get(cap);
         if(providers != null) {
             return providers;
         }
         if(!add) {
-            throw new ProvisioningException(Errors.noCapabilityProvider(cap));
+            throw new ProvisioningException(Errors.noCapabilityProvider(cap.toString()));
         }
         providers = new CapabilityProviders();
         capProviders = CollectionUtils.put(capProviders, cap, providers);
@@ -251,16 +251,16 @@ public class SpecOnlyConfigArranger {
     private List<CircularRefInfo> orderCapabilityProviders(ResolvedFeature feature, List<CircularRefInfo> circularRefs)
             throws ProvisioningException {
         for (CapabilitySpec capSpec : feature.spec.xmlSpec.getRequiredCapabilities()) {
-            final List<String> resolvedCaps = capResolver.resolve(capSpec, feature);
+            final List<CapabilityName> resolvedCaps = capResolver.resolve(capSpec, feature);
             if (resolvedCaps.isEmpty()) {
                 continue;
             }
-            for (String resolvedCap : resolvedCaps) {
+            for (CapabilityName resolvedCap : resolvedCaps) {
                 final CapabilityProviders providers;
                 try {
                     providers = getProviders(resolvedCap, false);
                 } catch (ProvisioningException e) {
-                    throw new ProvisioningException(Errors.noCapabilityProvider(feature, capSpec, resolvedCap));
+                    throw new ProvisioningException(Errors.noCapabilityProvider(feature, capSpec, resolvedCap.toString()));
                 }
                 final List<CircularRefInfo> circles = orderProviders(providers);
                 if (circularRefs == null) {
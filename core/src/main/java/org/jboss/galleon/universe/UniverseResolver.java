@@ -26,6 +26,13 @@ import org.jboss.galleon.repo.RepositoryArtifactResolver;
 import org.jboss.galleon.util.CollectionUtils;
 
 /**
+ * Resolves feature-pack locations using the universes they belong to.
+ *
+ * Universes, producers and channels are loaded lazily and the loading is not thread-safe, so it is synchronized
+ * on the resolver. Code that looks up producers and channels in the universes returned by the resolver from more
+ * than one thread must synchronize on the resolver as well or use {@link #getChannel(FeaturePackLocation)}.
+ * Once loaded, channels are safe to use concurrently, so the resolution of the feature-packs and their latest
+ * builds, which involves querying the repositories, is not synchronized.
  *
  * @author Alexey Loubyansky
  */
@@ -81,7 +88,7 @@ public class UniverseResolver {
         return getUniverse(universeSpec, false);
     }
 
-    public Universe<?> getUniverse(UniverseSpec universeSpec, boolean absoluteLatest) throws ProvisioningException {
+    public synchronized Universe<?> getUniverse(UniverseSpec universeSpec, boolean absoluteLatest) throws ProvisioningException {
         Universe<?> resolved = absoluteLatest ? null : resolvedUniverses.get(universeSpec);
         if(resolved == null) {
             resolved = ufl.getUniverse(universeSpec, absoluteLatest);
@@ -105,7 +112,15 @@ public class UniverseResolver {
         return latestLocation;
     }
 
-    public Channel getChannel(FeaturePackLocation fpl) throws ProvisioningException {
+    /**
+     * Returns the channel of the feature-pack location, loading the universe, the producer
+     * and the channel first, if they haven't been loaded yet.
+     *
+     * @param fpl  feature-pack location
+     * @return  channel of the feature-pack location
+     * @throws ProvisioningException  in case the channel could not be loaded
+     */
+    public synchronized Channel getChannel(FeaturePackLocation fpl) throws ProvisioningException {
         return getUniverse(fpl.getUniverse()).getProducer(fpl.getProducerName()).getChannel(fpl.getChannelName());
     }
 
@@ -121,11 +136,11 @@ public class UniverseResolver {
             return localFeaturePacks.get(fpl.getFPID());
         }
 
-        return getUniverse(fpl.getUniverse()).getProducer(fpl.getProducerName()).getChannel(fpl.getChannelName()).resolve(fpl);
+        return getChannel(fpl).resolve(fpl);
     }
 
     public boolean isResolved(FeaturePackLocation fpl) throws ProvisioningException {
-        return getUniverse(fpl.getUniverse()).getProducer(fpl.getProducerName()).getChannel(fpl.getChannelName()).isResolved(fpl);
+        return getChannel(fpl).isResolved(fpl);
     }
 
     /**
@@ -143,7 +158,7 @@ public class UniverseResolver {
         return ar;
     }
 
-    public Set<UniverseSpec> getUniverses() {
+    public synchronized Set<UniverseSpec> getUniverses() {
         return resolvedUniverses.keySet();
     }
 }
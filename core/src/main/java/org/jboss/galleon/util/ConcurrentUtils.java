@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.galleon.Errors;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningOption;
+
+/**
+ * Helpers to execute independent provisioning tasks concurrently.
+ *
+ * @author Alexey Loubyansky
+ */
+public class ConcurrentUtils {
+
+    public interface Task {
+        void execute() throws ProvisioningException;
+    }
+
+    /**
+     * Returns the default number of threads for CPU or I/O bound tasks,
+     * which is the number of available processors.
+     *
+     * @return  default number of threads
+     */
+    public static int getDefaultThreads() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Parses the value of a provisioning option that configures the number of threads.
+     *
+     * @param option  provisioning option
+     * @param value  value of the option
+     * @return  the number of threads
+     * @throws ProvisioningException  in case the value is not a positive integer
+     */
+    public static int parseThreads(ProvisioningOption option, String value) throws ProvisioningException {
+        try {
+            final int threads = Integer.parseInt(value);
+            if(threads > 0) {
+                return threads;
+            }
+        } catch (NumberFormatException e) {
+        }
+        throw new ProvisioningException(Errors.optionValueNotPositiveInteger(option.getName(), value));
+    }
+
+    /**
+     * Creates a fixed thread pool of daemon threads.
+     *
+     * @param threads  the number of threads
+     * @param name  the name prefix of the threads
+     * @return  the executor service
+     */
+    public static ExecutorService newFixedThreadPool(int threads, String name) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, name + ' ' + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Executes the tasks using at most the specified number of threads and waits for all of them to complete.
+     * If the number of threads is less than two or there is only one task, the tasks are executed in the calling thread
+     * in the order they appear in the list.
+     * In case a task fails, the remaining tasks are cancelled and the failure of the first failed task
+     * (in the order of the list) is re-thrown.
+     *
+     * @param tasks  tasks to execute
+     * @param threads  maximum number of threads
+     * @param name  the name prefix of the threads
+     * @throws ProvisioningException  in case a task failed
+     */
+    public static void execute(List<? extends Task> tasks, int threads, String name) throws ProvisioningException {
+        if(threads < 2 || tasks.size() < 2) {
+            for(Task task : tasks) {
+                task.execute();
+            }
+            return;
+        }
+        final ExecutorService executor = newFixedThreadPool(Math.min(threads, tasks.size()), name);
+        try {
+            final List<Future<Void>> results = new ArrayList<>(tasks.size());
+            for(Task task : tasks) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        task.execute();
+                        return null;
+                    }
+                }));
+            }
+            for(Future<Void> result : results) {
+                get(result);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the result and re-throws the failure of the task, if any.
+     *
+     * @param result  the result of a task
+     * @return  the value returned by the task
+     * @throws ProvisioningException  in case the task failed or the thread was interrupted
+     */
+    public static <T> T get(Future<T> result) throws ProvisioningException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof ProvisioningException) {
+                throw (ProvisioningException) cause;
+            }
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ProvisioningException(cause.getLocalizedMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProvisioningException("Interrupted while waiting for a task to complete", e);
+        }
+    }
+}
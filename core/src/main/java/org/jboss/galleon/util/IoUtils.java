@@ -147,6 +147,18 @@ public class IoUtils {
     }
 
     public static void copy(Path source, Path target) throws IOException {
+        copy(source, target, false);
+    }
+
+    /**
+     * Copies the source to the target optionally preserving the last modified time of the copied files.
+     *
+     * @param source  the source path
+     * @param target  the target path
+     * @param preserveTimestamps  whether the last modified time of the copied files should be preserved
+     * @throws IOException  in case of a failure
+     */
+    public static void copy(Path source, Path target, boolean preserveTimestamps) throws IOException {
         if(Files.isDirectory(source)) {
             Files.createDirectories(target);
         } else {
@@ -170,7 +182,64 @@ public class IoUtils {
                     @Override
                     public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
                         throws IOException {
-                        Files.copy(file, target.resolve(source.relativize(file).toString()), StandardCopyOption.REPLACE_EXISTING);
+                        final Path targetFile = target.resolve(source.relativize(file).toString());
+                        Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
+                        if(preserveTimestamps) {
+                            Files.setLastModifiedTime(targetFile, attrs.lastModifiedTime());
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    /**
+     * Mirrors the source to the target creating hard links to the source files instead of copying them.
+     * If hard links can't be created between the source and the target locations, the files are copied.
+     * This should be used only for files that are never modified in place, since the linked files
+     * share their content.
+     *
+     * @param source  the source path
+     * @param target  the target path
+     * @throws IOException  in case of a failure
+     */
+    public static void linkOrCopy(Path source, Path target) throws IOException {
+        if(Files.isDirectory(source)) {
+            Files.createDirectories(target);
+        } else {
+            Files.createDirectories(target.getParent());
+        }
+        Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    boolean link = true;
+
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                        throws IOException {
+                        final Path targetDir = target.resolve(source.relativize(dir).toString());
+                        try {
+                            Files.copy(dir, targetDir);
+                        } catch (FileAlreadyExistsException e) {
+                             if (!Files.isDirectory(targetDir)) {
+                                 throw e;
+                             }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                        throws IOException {
+                        final Path targetFile = target.resolve(source.relativize(file).toString());
+                        if(link) {
+                            Files.deleteIfExists(targetFile);
+                            try {
+                                Files.createLink(targetFile, file);
+                                return FileVisitResult.CONTINUE;
+                            } catch (UnsupportedOperationException | IOException e) {
+                                // e.g. a different file store, stop trying
+                                link = false;
+                            }
+                        }
+                        Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
                         return FileVisitResult.CONTINUE;
                     }
                 });
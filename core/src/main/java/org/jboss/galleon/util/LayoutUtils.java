@@ -111,4 +111,8 @@ public class LayoutUtils {
     public static Path getHashesDir(Path home) {
         return home.resolve(Constants.PROVISIONED_STATE_DIR).resolve(Constants.HASHES);
     }
+
+    public static Path getHashesIndex(Path home) {
+        return home.resolve(Constants.PROVISIONED_STATE_DIR).resolve(Constants.HASHES_INDEX);
+    }
 }
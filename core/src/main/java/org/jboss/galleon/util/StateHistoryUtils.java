@@ -19,23 +19,43 @@ package org.jboss.galleon.util;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.jboss.galleon.Constants;
 import org.jboss.galleon.Errors;
 import org.jboss.galleon.MessageWriter;
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.diff.FsDiff;
+import org.jboss.galleon.diff.FsEntry;
+import org.jboss.galleon.diff.FsEntryFactory;
+import org.jboss.galleon.diff.FsHashIndex;
 import org.jboss.galleon.xml.ProvisioningXmlParser;
 
 /**
+ * Records and reads the provisioning state history of an installation.
+ *
+ * Each recorded state includes the provisioning configuration the installation had before the operation
+ * that recorded the state. If the content of the installation was recorded as well, the state also lists
+ * the paths the operation added, replaced and removed. The content of the replaced and removed files is
+ * stored compressed in a blob store shared by all the states of the history and keyed by the hashes of the files,
+ * so that the operation can be undone without re-provisioning the previous configuration.
  *
  * @author Alexey Loubyansky
  */
@@ -43,7 +63,26 @@ public class StateHistoryUtils {
 
     public static final int STATE_HISTORY_LIMIT = 100;
 
+    private static final String DIR = "dir";
+    private static final String TMP_SUFFIX = ".gltmp";
+
     public static void addNewUndoConfig(Path installDir, Path stagedDir, Map<String, Boolean> undoTasks, MessageWriter log) throws ProvisioningException {
+        addNewUndoConfig(installDir, stagedDir, undoTasks, null, log);
+    }
+
+    /**
+     * Records a new state in the staged history that can be used to undo the operation
+     * that produced the staged installation.
+     *
+     * @param installDir  current installation
+     * @param stagedDir  staged installation
+     * @param undoTasks  undo tasks for the user changes
+     * @param contentDiff  the difference between the content of the current and the staged installation,
+     *                     if not null, the replaced and removed content is recorded
+     * @param log  message writer
+     * @throws ProvisioningException  in case of a failure
+     */
+    public static void addNewUndoConfig(Path installDir, Path stagedDir, Map<String, Boolean> undoTasks, FsDiff contentDiff, MessageWriter log) throws ProvisioningException {
         final Path installedConfig = PathsUtils.getProvisioningXml(installDir);
         if (!Files.exists(installedConfig)) {
             return;
@@ -64,6 +103,7 @@ public class StateHistoryUtils {
         }
         final int historyLimit = installedHistory.isEmpty() ? STATE_HISTORY_LIMIT : Integer.parseInt(installedHistory.get(0));
         final String newStateId = UUID.randomUUID().toString();
+        final List<String> retainedStates = new ArrayList<>();
         try(BufferedWriter writer = Files.newBufferedWriter(stagedHistoryDir.resolve(Constants.HISTORY_LIST))) {
             writer.write(String.valueOf(historyLimit));
             writer.newLine();
@@ -80,7 +120,9 @@ public class StateHistoryUtils {
                         ++missingStates;
                         continue;
                     }
-                    IoUtils.copy(stateFile, stagedHistoryDir.resolve(stateId));
+                    // the recorded states are never modified, so they are shared with the installation instead of copied
+                    IoUtils.linkOrCopy(stateFile, stagedHistoryDir.resolve(stateId));
+                    retainedStates.add(stateId);
                     writer.write(stateId);
                     writer.newLine();
                 }
@@ -94,6 +136,7 @@ public class StateHistoryUtils {
         } catch (IOException e) {
             throw new ProvisioningException(Errors.writeFile(stagedHistoryDir.resolve(Constants.HISTORY_LIST)), e);
         }
+        linkBlobs(installedHistoryDir, stagedHistoryDir, retainedStates);
         final Path stateDir = stagedHistoryDir.resolve(newStateId);
         try {
             Files.createDirectory(stateDir);
@@ -121,6 +164,320 @@ public class StateHistoryUtils {
                 throw new ProvisioningException(Errors.writeFile(stateDir.resolve(Constants.UNDO_TASKS)), e);
             }
         }
+
+        if(contentDiff != null) {
+            recordContent(installDir, installedHistoryDir, stagedHistoryDir, stateDir, contentDiff, log);
+        }
+    }
+
+    private static void recordContent(Path installDir, Path installedHistoryDir, Path stagedHistoryDir, Path stateDir,
+            FsDiff contentDiff, MessageWriter log) throws ProvisioningException {
+        log.verbose("Recording the replaced content");
+        final Path installedBlobsDir = installedHistoryDir.resolve(Constants.BLOBS);
+        final Path stagedBlobsDir = stagedHistoryDir.resolve(Constants.BLOBS);
+        final Path contentFile = stateDir.resolve(Constants.UNDO_CONTENT);
+        try (BufferedWriter writer = Files.newBufferedWriter(contentFile)) {
+            // the added paths go first, since an added path may replace a removed one of a different type
+            if (contentDiff.hasAddedEntries()) {
+                for (FsEntry added : contentDiff.getAddedEntries()) {
+                    writeUndoContent(writer, added.getRelativePath(), Constants.REMOVE);
+                }
+            }
+            if (contentDiff.hasRemovedEntries()) {
+                for (FsEntry removed : contentDiff.getRemovedEntries()) {
+                    recordRemoved(removed, installedBlobsDir, stagedBlobsDir, writer);
+                }
+            }
+            if (contentDiff.hasModifiedEntries()) {
+                for (FsEntry[] modified : contentDiff.getModifiedEntries()) {
+                    recordFile(modified[0], installedBlobsDir, stagedBlobsDir, writer);
+                }
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.writeFile(contentFile), e);
+        }
+        final Path installedStateDir = PathsUtils.getProvisionedStateDir(installDir);
+        for (String name : new String[] { Constants.PROVISIONED_STATE_XML, Constants.HASHES_INDEX }) {
+            final Path src = installedStateDir.resolve(name);
+            if (!Files.exists(src)) {
+                continue;
+            }
+            try {
+                IoUtils.copy(src, stateDir.resolve(name));
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.copyFile(src, stateDir.resolve(name)), e);
+            }
+        }
+    }
+
+    private static void recordRemoved(FsEntry removed, Path installedBlobsDir, Path stagedBlobsDir, BufferedWriter writer)
+            throws IOException, ProvisioningException {
+        if (!removed.isDir()) {
+            recordFile(removed, installedBlobsDir, stagedBlobsDir, writer);
+            return;
+        }
+        if (!removed.hasChildren()) {
+            writeUndoContent(writer, removed.getRelativePath(), DIR);
+            return;
+        }
+        for (FsEntry child : removed.getChildren()) {
+            recordRemoved(child, installedBlobsDir, stagedBlobsDir, writer);
+        }
+    }
+
+    private static void recordFile(FsEntry file, Path installedBlobsDir, Path stagedBlobsDir, BufferedWriter writer)
+            throws IOException, ProvisioningException {
+        final String hash = HashUtils.bytesToHexString(file.getHash());
+        final Path blob = stagedBlobsDir.resolve(hash);
+        if (!Files.exists(blob)) {
+            final Path installedBlob = installedBlobsDir.resolve(hash);
+            if (Files.exists(installedBlob)) {
+                IoUtils.linkOrCopy(installedBlob, blob);
+            } else {
+                Files.createDirectories(stagedBlobsDir);
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(blob))) {
+                    Files.copy(file.getPath(), out);
+                }
+            }
+        }
+        writeUndoContent(writer, file.getRelativePath(), hash);
+    }
+
+    private static void writeUndoContent(BufferedWriter writer, String path, String value) throws IOException {
+        writer.write(path);
+        writer.newLine();
+        writer.write(value);
+        writer.newLine();
+    }
+
+    private static Map<String, String> readUndoContent(Path contentFile) throws ProvisioningException {
+        final Map<String, String> content = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(contentFile)) {
+            String line = reader.readLine();
+            while (line != null) {
+                final String value = reader.readLine();
+                if (value == null) {
+                    throw new ProvisioningException("Missing undo content for " + line);
+                }
+                content.put(line, value);
+                line = reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(contentFile), e);
+        }
+        return content;
+    }
+
+    private static boolean isBlob(String value) {
+        return !Constants.REMOVE.equals(value) && !DIR.equals(value);
+    }
+
+    private static Set<String> getReferencedBlobs(Path historyDir, Collection<String> stateIds) throws ProvisioningException {
+        Set<String> blobs = Collections.emptySet();
+        for (String stateId : stateIds) {
+            final Path contentFile = historyDir.resolve(stateId).resolve(Constants.UNDO_CONTENT);
+            if (!Files.exists(contentFile)) {
+                continue;
+            }
+            for (String value : readUndoContent(contentFile).values()) {
+                if (isBlob(value)) {
+                    blobs = CollectionUtils.add(blobs, value);
+                }
+            }
+        }
+        return blobs;
+    }
+
+    private static void linkBlobs(Path installedHistoryDir, Path stagedHistoryDir, Collection<String> stateIds) throws ProvisioningException {
+        final Set<String> blobs = getReferencedBlobs(stagedHistoryDir, stateIds);
+        if (blobs.isEmpty()) {
+            return;
+        }
+        final Path installedBlobsDir = installedHistoryDir.resolve(Constants.BLOBS);
+        final Path stagedBlobsDir = stagedHistoryDir.resolve(Constants.BLOBS);
+        for (String blob : blobs) {
+            final Path installedBlob = installedBlobsDir.resolve(blob);
+            if (!Files.exists(installedBlob)) {
+                continue;
+            }
+            try {
+                IoUtils.linkOrCopy(installedBlob, stagedBlobsDir.resolve(blob));
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.copyFile(installedBlob, stagedBlobsDir.resolve(blob)), e);
+            }
+        }
+    }
+
+    /**
+     * Undoes the last recorded provisioning operation by restoring the content it replaced and removed
+     * and removing the content it added, if the content was recorded for the last state of the history.
+     * The files that were not touched by the operation, including the user changes, are left as they are.
+     * If a path touched by the operation has been changed since, e.g. a file it replaced was modified
+     * or a file was added to a directory it added, the content is not restored locally.
+     * The state is removed from the history.
+     *
+     * @param installDir  installation directory
+     * @param log  message writer
+     * @return  true if the content was recorded for the last state and has been restored, false if the
+     *          state has to be undone by provisioning its configuration
+     * @throws ProvisioningException  in case of a failure
+     */
+    public static boolean undoContent(Path installDir, MessageWriter log) throws ProvisioningException {
+        final Path installedHistoryList = PathsUtils.getStateHistoryFile(installDir);
+        if(!Files.exists(installedHistoryList)) {
+            return false;
+        }
+        final List<String> installedHistory;
+        try {
+            installedHistory = Files.readAllLines(installedHistoryList);
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readFile(installedHistoryList), e);
+        }
+        if(installedHistory.size() < 2) {
+            return false;
+        }
+        final Path installedHistoryDir = PathsUtils.getStateHistoryDir(installDir);
+        final Path stateDir = installedHistoryDir.resolve(installedHistory.get(installedHistory.size() - 1));
+        final Path contentFile = stateDir.resolve(Constants.UNDO_CONTENT);
+        if(!Files.exists(contentFile) || !Files.exists(stateDir.resolve(Constants.PROVISIONING_XML))) {
+            return false;
+        }
+        final Map<String, String> content = readUndoContent(contentFile);
+        final Path blobsDir = installedHistoryDir.resolve(Constants.BLOBS);
+        for(String value : content.values()) {
+            if(isBlob(value) && !Files.exists(blobsDir.resolve(value))) {
+                log.error("The state history of the current installation is corrupted referencing missing content!");
+                return false;
+            }
+        }
+        if(!isContentUnchanged(installDir, content.keySet())) {
+            log.print("The content affected by the last provisioning operation has been changed since, the previous configuration will be provisioned instead");
+            return false;
+        }
+
+        log.verbose("Restoring the content replaced by the last provisioning operation");
+        for(Map.Entry<String, String> entry : content.entrySet()) {
+            final Path target = installDir.resolve(entry.getKey());
+            final String value = entry.getValue();
+            if(Constants.REMOVE.equals(value)) {
+                IoUtils.recursiveDelete(target);
+            } else if(DIR.equals(value)) {
+                mkdirs(target);
+            } else {
+                restoreBlob(blobsDir.resolve(value), target);
+            }
+        }
+        final Path installedStateDir = PathsUtils.getProvisionedStateDir(installDir);
+        for (String name : new String[] { Constants.PROVISIONING_XML, Constants.PROVISIONED_STATE_XML, Constants.HASHES_INDEX }) {
+            final Path src = stateDir.resolve(name);
+            final Path target = installedStateDir.resolve(name);
+            try {
+                if(Files.exists(src)) {
+                    Files.copy(src, target, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.deleteIfExists(target);
+                }
+            } catch (IOException e) {
+                throw new ProvisioningException(Errors.copyFile(src, target), e);
+            }
+        }
+
+        final List<String> retainedStates = installedHistory.subList(1, installedHistory.size() - 1);
+        try(BufferedWriter writer = Files.newBufferedWriter(installedHistoryList)) {
+            writer.write(installedHistory.get(0));
+            writer.newLine();
+            for(String stateId : retainedStates) {
+                writer.write(stateId);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.writeFile(installedHistoryList), e);
+        }
+        IoUtils.recursiveDelete(stateDir);
+        deleteUnreferencedBlobs(installedHistoryDir, retainedStates);
+        return true;
+    }
+
+    /**
+     * Checks whether the paths affected by the last provisioning operation still have the content
+     * the operation left them with, i.e. the content described by the hashes persisted by the operation.
+     */
+    private static boolean isContentUnchanged(Path installDir, Collection<String> relativePaths) throws ProvisioningException {
+        final Path hashesIndex = LayoutUtils.getHashesIndex(installDir);
+        if(!Files.exists(hashesIndex)) {
+            return false;
+        }
+        final FsEntry recordedRoot = FsHashIndex.read(hashesIndex);
+        final FsEntryFactory fsFactory = FsEntryFactory.getInstance().filterGalleonPaths();
+        for(String relativePath : relativePaths) {
+            final Path target = installDir.resolve(relativePath);
+            final FsEntry recorded = getEntry(recordedRoot, relativePath);
+            if(recorded == null) {
+                if(Files.exists(target)) {
+                    return false;
+                }
+                continue;
+            }
+            if(!Files.exists(target)) {
+                return false;
+            }
+            final FsEntry current = fsFactory.forPath(target, recorded);
+            if(recorded.isDir() != current.isDir()) {
+                return false;
+            }
+            if(recorded.isDir() ? !FsDiff.diff(recorded, current).isEmpty() : !Arrays.equals(recorded.getHash(), current.getHash())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FsEntry getEntry(FsEntry root, String relativePath) {
+        FsEntry entry = root;
+        for(String name : relativePath.split("/")) {
+            if(name.isEmpty()) {
+                continue;
+            }
+            entry = entry.getChild(name);
+            if(entry == null) {
+                return null;
+            }
+        }
+        return entry;
+    }
+
+    private static void restoreBlob(Path blob, Path target) throws ProvisioningException {
+        if(Files.isDirectory(target)) {
+            IoUtils.recursiveDelete(target);
+        }
+        final Path tmp = target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+        try {
+            Files.createDirectories(target.getParent());
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(blob))) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            IoUtils.recursiveDelete(tmp);
+            throw new ProvisioningException(Errors.copyFile(blob, target), e);
+        }
+    }
+
+    private static void deleteUnreferencedBlobs(Path historyDir, Collection<String> stateIds) throws ProvisioningException {
+        final Path blobsDir = historyDir.resolve(Constants.BLOBS);
+        if(!Files.exists(blobsDir)) {
+            return;
+        }
+        final Set<String> referenced = getReferencedBlobs(historyDir, stateIds);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(blobsDir)) {
+            for (Path blob : stream) {
+                if (!referenced.contains(blob.getFileName().toString())) {
+                    IoUtils.recursiveDelete(blob);
+                }
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(Errors.readDirectory(blobsDir), e);
+        }
     }
 
     public static void removeLastUndoConfig(Path installDir, Path stagedDir, MessageWriter log) throws ProvisioningException {
@@ -146,6 +503,7 @@ public class StateHistoryUtils {
         final Path stagedHistoryDir = PathsUtils.getStateHistoryDir(stagedDir);
         mkdirs(stagedHistoryDir);
         final int historyLimit = installedHistory.isEmpty() ? STATE_HISTORY_LIMIT : Integer.parseInt(installedHistory.get(0));
+        final List<String> retainedStates = new ArrayList<>();
         try(BufferedWriter writer = Files.newBufferedWriter(stagedHistoryDir.resolve(Constants.HISTORY_LIST))) {
             writer.write(String.valueOf(historyLimit));
             writer.newLine();
@@ -162,7 +520,8 @@ public class StateHistoryUtils {
                         ++missingStates;
                         continue;
                     }
-                    IoUtils.copy(stateDir, stagedHistoryDir.resolve(stateId));
+                    IoUtils.linkOrCopy(stateDir, stagedHistoryDir.resolve(stateId));
+                    retainedStates.add(stateId);
                     writer.write(stateId);
                     writer.newLine();
                 }
@@ -173,6 +532,7 @@ public class StateHistoryUtils {
         } catch (IOException e) {
             throw new ProvisioningException(Errors.writeFile(stagedHistoryDir.resolve(Constants.HISTORY_LIST)), e);
         }
+        linkBlobs(installedHistoryDir, stagedHistoryDir, retainedStates);
     }
 
     private static void mkdirs(final Path stagedHistoryDir) throws ProvisioningException {
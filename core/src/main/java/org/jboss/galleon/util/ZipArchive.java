@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Read-only view of a ZIP archive that reads the central directory of the archive once
+ * into an in-memory index of its entries and directories.
+ *
+ * Entry paths are relative to the root of the archive, use '/' as the separator and
+ * don't start or end with '/'. The root directory is the empty path. Directories that don't have
+ * their own entries in the archive are derived from the paths of the entries they contain.
+ *
+ * @author Alexey Loubyansky
+ */
+public class ZipArchive implements Closeable {
+
+    public static ZipArchive open(Path zip) throws IOException {
+        return new ZipArchive(zip);
+    }
+
+    private final Path zip;
+    private final ZipFile zipFile;
+    private final Map<String, ZipEntry> files = new HashMap<>();
+    private final Map<String, List<String>> dirs = new HashMap<>();
+
+    private ZipArchive(Path zip) throws IOException {
+        this.zip = zip;
+        this.zipFile = new ZipFile(zip.toFile());
+        dirs.put("", new ArrayList<>());
+        try {
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while(entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final String path = normalize(entry.getName());
+                if(path.isEmpty()) {
+                    continue;
+                }
+                if(entry.isDirectory()) {
+                    addDir(path);
+                } else {
+                    files.put(path, entry);
+                    addToParent(path);
+                }
+            }
+        } catch(IOException | RuntimeException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    private static String normalize(String name) throws IOException {
+        int start = 0;
+        while(start < name.length() && name.charAt(start) == '/') {
+            ++start;
+        }
+        int end = name.length();
+        while(end > start && name.charAt(end - 1) == '/') {
+            --end;
+        }
+        final String path = name.substring(start, end);
+        for(String element : path.split("/")) {
+            if(element.equals("..")) {
+                throw new IOException("Illegal ZIP entry name " + name);
+            }
+        }
+        return path;
+    }
+
+    private void addDir(String path) {
+        if(dirs.containsKey(path)) {
+            return;
+        }
+        dirs.put(path, new ArrayList<>());
+        addToParent(path);
+    }
+
+    private void addToParent(String path) {
+        final int i = path.lastIndexOf('/');
+        final String parent = i < 0 ? "" : path.substring(0, i);
+        if(!dirs.containsKey(parent)) {
+            addDir(parent);
+        }
+        dirs.get(parent).add(i < 0 ? path : path.substring(i + 1));
+    }
+
+    /**
+     * The archive file.
+     *
+     * @return  archive file
+     */
+    public Path getPath() {
+        return zip;
+    }
+
+    public boolean exists(String path) {
+        return files.containsKey(path) || dirs.containsKey(path);
+    }
+
+    public boolean isDirectory(String path) {
+        return dirs.containsKey(path);
+    }
+
+    /**
+     * Returns the names of the entries contained in a directory.
+     *
+     * @param dir  directory path
+     * @return  names of the entries or an empty list, if the directory does not exist
+     */
+    public List<String> list(String dir) {
+        final List<String> children = dirs.get(dir);
+        return children == null ? Collections.emptyList() : Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Opens a stream reading the content of a file entry.
+     *
+     * @param path  file path
+     * @return  input stream
+     * @throws IOException  in case the file does not exist or could not be read
+     */
+    public InputStream openStream(String path) throws IOException {
+        final ZipEntry entry = files.get(path);
+        if(entry == null) {
+            throw new IOException(path + " not found in " + zip);
+        }
+        return zipFile.getInputStream(entry);
+    }
+
+    /**
+     * Extracts the archive into the target directory reading the entries
+     * in the order they appear in the archive.
+     *
+     * @param targetDir  target directory
+     * @throws IOException  in case of a failure
+     */
+    public void extract(Path targetDir) throws IOException {
+        extract(targetDir, null);
+    }
+
+    /**
+     * Extracts the entries of the archive accepted by the filter into the target directory
+     * reading them in the order they appear in the archive. The filter is applied
+     * to the paths of the files and the directories.
+     *
+     * @param targetDir  target directory
+     * @param filter  entry path filter or null to extract all the entries
+     * @throws IOException  in case of a failure
+     */
+    public void extract(Path targetDir, Predicate<String> filter) throws IOException {
+        Files.createDirectories(targetDir);
+        for(String dir : dirs.keySet()) {
+            if(!dir.isEmpty() && (filter == null || filter.test(dir))) {
+                Files.createDirectories(targetDir.resolve(dir));
+            }
+        }
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while(entries.hasMoreElements()) {
+            final ZipEntry entry = entries.nextElement();
+            if(entry.isDirectory()) {
+                continue;
+            }
+            final String path = normalize(entry.getName());
+            if(filter != null && !filter.test(path)) {
+                continue;
+            }
+            try(InputStream in = zipFile.getInputStream(entry)) {
+                Files.copy(in, targetDir.resolve(path), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
+}
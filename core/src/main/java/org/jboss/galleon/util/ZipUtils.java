@@ -44,13 +44,8 @@ public class ZipUtils {
     private static final Map<String, String> CREATE_ENV = Collections.singletonMap("create", "true");
 
     public static void unzip(Path zipFile, Path targetDir) throws IOException {
-        if(!Files.exists(targetDir)) {
-            Files.createDirectories(targetDir);
-        }
-        try (FileSystem zipfs = newFileSystem(zipFile)) {
-            for (Path zipRoot : zipfs.getRootDirectories()) {
-                copyFromZip(zipRoot, targetDir);
-            }
+        try (ZipArchive archive = ZipArchive.open(zipFile)) {
+            archive.extract(targetDir);
         }
     }
 
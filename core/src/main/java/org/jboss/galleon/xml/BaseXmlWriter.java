@@ -24,6 +24,7 @@ import java.nio.file.StandardOpenOption;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.jboss.galleon.xml.util.AttributeValue;
 import org.jboss.galleon.xml.util.ElementNode;
@@ -61,6 +62,37 @@ public abstract class BaseXmlWriter<T> {
         e.addAttribute(name, new AttributeValue(value));
     }
 
+    /**
+     * Writes the start of an element directly to the stream, the same way an {@link ElementNode} would be marshalled.
+     * The root element declares the namespace as the default one.
+     *
+     * @param writer  XML stream writer
+     * @param localName  element local name
+     * @param ns  element namespace
+     * @param root  whether the element is the root element
+     * @param empty  whether the element has no content, in which case it does not have to be ended
+     * @throws XMLStreamException  in case of a failure
+     */
+    protected static void writeStartElement(XMLStreamWriter writer, String localName, String ns, boolean root, boolean empty) throws XMLStreamException {
+        if(root) {
+            writer.setDefaultNamespace(ns);
+            if(empty) {
+                writer.writeEmptyElement(localName);
+            } else {
+                writer.writeStartElement(localName);
+            }
+            writer.writeNamespace(null, ns);
+        } else if(empty) {
+            writer.writeEmptyElement(ns, localName);
+        } else {
+            writer.writeStartElement(ns, localName);
+        }
+    }
+
+    protected static FormattingXmlStreamWriter newXmlStreamWriter(Writer stream) throws XMLStreamException {
+        return new FormattingXmlStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(stream));
+    }
+
     public void write(T t, Path outputFile) throws XMLStreamException, IOException {
         ensureParentDir(outputFile);
         try(Writer writer = Files.newBufferedWriter(outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
@@ -70,8 +102,7 @@ public abstract class BaseXmlWriter<T> {
 
     public void write(T t, Writer stream) throws XMLStreamException, IOException {
         final ElementNode root = toElement(t);
-        try (FormattingXmlStreamWriter writer = new FormattingXmlStreamWriter(XMLOutputFactory.newInstance()
-                .createXMLStreamWriter(stream))) {
+        try (FormattingXmlStreamWriter writer = newXmlStreamWriter(stream)) {
             writer.writeStartDocument();
             root.marshall(writer);
             writer.writeEndDocument();
@@ -16,9 +16,12 @@
  */
 package org.jboss.galleon.xml;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.config.ConfigId;
@@ -30,6 +33,7 @@ import org.jboss.galleon.universe.FeaturePackLocation.FPID;
 import org.jboss.galleon.xml.ProvisionedConfigXmlParser30.Attribute;
 import org.jboss.galleon.xml.ProvisionedConfigXmlParser30.Element;
 import org.jboss.galleon.xml.util.ElementNode;
+import org.jboss.galleon.xml.util.FormattingXmlStreamWriter;
 
 /**
  *
@@ -75,6 +79,82 @@ public class ProvisionedConfigXmlWriter extends BaseXmlWriter<ProvisionedConfig>
         }
     }
 
+    /**
+     * Writes the features directly to the XML stream as they are visited
+     * instead of building the element tree for the whole config first.
+     */
+    private static class StreamingConfigHandler implements ProvisionedConfigHandler {
+
+        private final XMLStreamWriter writer;
+        private final String ns;
+        private boolean fpStarted;
+        private boolean specStarted;
+
+        StreamingConfigHandler(XMLStreamWriter writer, String ns) {
+            this.writer = writer;
+            this.ns = ns;
+        }
+
+        @Override
+        public void nextFeaturePack(FPID fpid) throws ProvisioningException {
+            try {
+                endFeaturePack();
+                writeStartElement(writer, Element.FEATURE_PACK.getLocalName(), ns, false, false);
+                writer.writeAttribute(Attribute.LOCATION.getLocalName(), fpid.toString());
+            } catch (XMLStreamException e) {
+                throw new ProvisioningException(e);
+            }
+            fpStarted = true;
+        }
+
+        @Override
+        public void nextSpec(ResolvedFeatureSpec spec) throws ProvisioningException {
+            try {
+                endSpec();
+                writeStartElement(writer, Element.SPEC.getLocalName(), ns, false, false);
+                writer.writeAttribute(Attribute.NAME.getLocalName(), spec.getId().getName());
+            } catch (XMLStreamException e) {
+                throw new ProvisioningException(e);
+            }
+            specStarted = true;
+        }
+
+        @Override
+        public void nextFeature(ProvisionedFeature feature) throws ProvisioningException {
+            try {
+                writeStartElement(writer, Element.FEATURE.getLocalName(), ns, false, !feature.hasParams());
+                if (feature.hasId()) {
+                    writer.writeAttribute(Attribute.ID.getLocalName(), feature.getId().toString());
+                }
+                if (feature.hasParams()) {
+                    for (String param : feature.getParamNames()) {
+                        writeStartElement(writer, Element.PARAM.getLocalName(), ns, false, true);
+                        writer.writeAttribute(Attribute.NAME.getLocalName(), param);
+                        writer.writeAttribute(Attribute.VALUE.getLocalName(), feature.getConfigParam(param));
+                    }
+                    writer.writeEndElement();
+                }
+            } catch (XMLStreamException e) {
+                throw new ProvisioningException(e);
+            }
+        }
+
+        void endFeaturePack() throws XMLStreamException {
+            endSpec();
+            if(fpStarted) {
+                writer.writeEndElement();
+                fpStarted = false;
+            }
+        }
+
+        private void endSpec() throws XMLStreamException {
+            if(specStarted) {
+                writer.writeEndElement();
+                specStarted = false;
+            }
+        }
+    }
+
     private static final ProvisionedConfigXmlWriter INSTANCE = new ProvisionedConfigXmlWriter();
 
     public static ProvisionedConfigXmlWriter getInstance() {
@@ -84,6 +164,70 @@ public class ProvisionedConfigXmlWriter extends BaseXmlWriter<ProvisionedConfig>
     private ProvisionedConfigXmlWriter() {
     }
 
+    @Override
+    public void write(ProvisionedConfig config, Writer stream) throws XMLStreamException, IOException {
+        try (FormattingXmlStreamWriter writer = newXmlStreamWriter(stream)) {
+            writer.writeStartDocument();
+            write(config, writer, ProvisionedConfigXmlParser30.NAMESPACE_3_0, true);
+            writer.writeEndDocument();
+        }
+    }
+
+    /**
+     * Writes the config directly to the XML stream without building its element tree.
+     *
+     * @param config  config to write
+     * @param writer  XML stream writer
+     * @param ns  namespace of the config elements
+     * @param root  whether the config element is the root element of the document
+     * @throws XMLStreamException  in case of a failure
+     */
+    void write(ProvisionedConfig config, XMLStreamWriter writer, String ns, boolean root) throws XMLStreamException {
+        final boolean empty = !config.hasProperties() && !config.hasLayers() && !config.hasFeatures();
+        writeStartElement(writer, Element.CONFIG.getLocalName(), ns, root, empty);
+        if(config.getName() != null) {
+            writer.writeAttribute(Attribute.NAME.getLocalName(), config.getName());
+        }
+        if(config.getModel() != null) {
+            writer.writeAttribute(Attribute.MODEL.getLocalName(), config.getModel());
+        }
+
+        if(config.hasProperties()) {
+            writeStartElement(writer, Element.PROPS.getLocalName(), ns, false, false);
+            for(Map.Entry<String, String> entry : config.getProperties().entrySet()) {
+                writeStartElement(writer, Element.PROP.getLocalName(), ns, false, true);
+                writer.writeAttribute(Attribute.NAME.getLocalName(), entry.getKey());
+                writer.writeAttribute(Attribute.VALUE.getLocalName(), entry.getValue());
+            }
+            writer.writeEndElement();
+        }
+
+        if(config.hasLayers()) {
+            writeStartElement(writer, Element.LAYERS.getLocalName(), ns, false, false);
+            for(ConfigId layerId : config.getLayers()) {
+                writeStartElement(writer, Element.LAYER.getLocalName(), ns, false, true);
+                if(layerId.getModel() != null) {
+                    writer.writeAttribute(Attribute.MODEL.getLocalName(), layerId.getModel());
+                }
+                writer.writeAttribute(Attribute.NAME.getLocalName(), layerId.getName());
+            }
+            writer.writeEndElement();
+        }
+
+        if(config.hasFeatures()) {
+            final StreamingConfigHandler handler = new StreamingConfigHandler(writer, ns);
+            try {
+                config.handle(handler);
+            } catch (ProvisioningException e) {
+                throw new XMLStreamException("Failed to marshal ProvisionedConfig", e);
+            }
+            handler.endFeaturePack();
+        }
+        if(!empty) {
+            writer.writeEndElement();
+        }
+    }
+
     protected ElementNode toElement(ProvisionedConfig config) throws XMLStreamException {
         return toElement(config, ProvisionedConfigXmlParser30.NAMESPACE_3_0);
     }
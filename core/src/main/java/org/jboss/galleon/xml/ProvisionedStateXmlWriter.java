@@ -16,7 +16,14 @@
  */
 package org.jboss.galleon.xml;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.jboss.galleon.state.FeaturePack;
 import org.jboss.galleon.state.FeaturePackPackage;
@@ -25,13 +32,61 @@ import org.jboss.galleon.state.ProvisionedConfig;
 import org.jboss.galleon.xml.ProvisionedStateXmlParser30.Attribute;
 import org.jboss.galleon.xml.ProvisionedStateXmlParser30.Element;
 import org.jboss.galleon.xml.util.ElementNode;
+import org.jboss.galleon.xml.util.FormattingXmlStreamWriter;
 
 /**
+ * Writes the provisioned state. The state is streamed to the output, i.e. the configs
+ * are written feature by feature without building the element tree of the whole
+ * document in memory, which matters for installations with large configs.
  *
  * @author Alexey Loubyansky
  */
 public class ProvisionedStateXmlWriter extends BaseXmlWriter<FeaturePackSet<?>> {
 
+    /**
+     * Writes the configs of the provisioned state one at a time, so that the caller
+     * does not have to keep all of them in memory. Closing the writer completes the document.
+     */
+    public static class ConfigWriter implements AutoCloseable {
+
+        private final Writer stream;
+        private final FormattingXmlStreamWriter writer;
+        private final boolean empty;
+
+        private ConfigWriter(Writer stream, FeaturePackSet<?> provisionedState, boolean hasConfigs) throws XMLStreamException {
+            this.stream = stream;
+            writer = newXmlStreamWriter(stream);
+            writer.writeStartDocument();
+            empty = writeStart(provisionedState, hasConfigs, writer);
+        }
+
+        /**
+         * Writes the next config of the provisioned state.
+         *
+         * @param config  config to write
+         * @throws XMLStreamException  in case of a failure
+         */
+        public void write(ProvisionedConfig config) throws XMLStreamException {
+            if(empty) {
+                throw new IllegalStateException("The writer was opened for a state without configs");
+            }
+            ProvisionedConfigXmlWriter.getInstance().write(config, writer, Element.CONFIG.getNamespace(), false);
+        }
+
+        @Override
+        public void close() throws XMLStreamException, IOException {
+            try {
+                if(!empty) {
+                    writer.writeEndElement();
+                }
+                writer.writeEndDocument();
+                writer.close();
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
     private static final ProvisionedStateXmlWriter INSTANCE = new ProvisionedStateXmlWriter();
 
     public static ProvisionedStateXmlWriter getInstance() {
@@ -41,6 +96,77 @@ public class ProvisionedStateXmlWriter extends BaseXmlWriter<FeaturePackSet<?>>
     private ProvisionedStateXmlWriter() {
     }
 
+    @Override
+    public void write(FeaturePackSet<?> provisionedState, Writer stream) throws XMLStreamException, IOException {
+        try (FormattingXmlStreamWriter writer = newXmlStreamWriter(stream)) {
+            writer.writeStartDocument();
+            write(provisionedState, writer);
+            writer.writeEndDocument();
+        }
+    }
+
+    /**
+     * Opens a writer for the provisioned state which writes the configs as they are passed to it
+     * instead of the configs of the provisioned state. The feature-packs of the provisioned state
+     * are written when the writer is opened.
+     *
+     * @param provisionedState  provisioned state
+     * @param hasConfigs  whether any config is going to be written
+     * @param outputFile  target file
+     * @return  config writer which has to be closed to complete the document
+     * @throws XMLStreamException  in case of a failure
+     * @throws IOException  in case of a failure
+     */
+    public ConfigWriter openConfigWriter(FeaturePackSet<?> provisionedState, boolean hasConfigs, Path outputFile) throws XMLStreamException, IOException {
+        ensureParentDir(outputFile);
+        final Writer stream = Files.newBufferedWriter(outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new ConfigWriter(stream, provisionedState, hasConfigs);
+        } catch (XMLStreamException | RuntimeException | Error e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    private void write(FeaturePackSet<?> provisionedState, XMLStreamWriter writer) throws XMLStreamException {
+        final boolean empty = writeStart(provisionedState, provisionedState.hasConfigs(), writer);
+        if(provisionedState.hasConfigs()) {
+            for(ProvisionedConfig config : provisionedState.getConfigs()) {
+                ProvisionedConfigXmlWriter.getInstance().write(config, writer, Element.CONFIG.getNamespace(), false);
+            }
+        }
+        if(!empty) {
+            writer.writeEndElement();
+        }
+    }
+
+    /**
+     * Writes the installation element and the feature-packs of the provisioned state.
+     *
+     * @return  whether the installation element is empty, i.e. has already been ended
+     */
+    private static boolean writeStart(FeaturePackSet<?> provisionedState, boolean hasConfigs, XMLStreamWriter writer) throws XMLStreamException {
+        final String ns = Element.INSTALLATION.getNamespace();
+        final boolean empty = !provisionedState.hasFeaturePacks() && !hasConfigs;
+        writeStartElement(writer, Element.INSTALLATION.getLocalName(), ns, true, empty);
+        if (provisionedState.hasFeaturePacks()) {
+            for(FeaturePack<?> fp : provisionedState.getFeaturePacks()) {
+                writeStartElement(writer, Element.FEATURE_PACK.getLocalName(), ns, false, !fp.hasPackages());
+                writer.writeAttribute(Attribute.LOCATION.getLocalName(), fp.getFPID().toString());
+                if (fp.hasPackages()) {
+                    writeStartElement(writer, Element.PACKAGES.getLocalName(), ns, false, false);
+                    for (FeaturePackPackage pkg : fp.getPackages()) {
+                        writeStartElement(writer, Element.PACKAGE.getLocalName(), ns, false, true);
+                        writer.writeAttribute(Attribute.NAME.getLocalName(), pkg.getName());
+                    }
+                    writer.writeEndElement();
+                    writer.writeEndElement();
+                }
+            }
+        }
+        return empty;
+    }
+
     @Override
     protected ElementNode toElement(FeaturePackSet<?> provisionedState) throws XMLStreamException {
 
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.config.model.defined;
+
+import java.util.Collections;
+
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.ProvisioningOption;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackBuilder;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmProvisionConfigTestBase;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.xml.ProvisionedConfigBuilder;
+import org.jboss.galleon.xml.ProvisionedFeatureBuilder;
+
+/**
+ * Configs arranged concurrently that include features of the same specs providing and requiring
+ * static and dynamic capabilities. Each config must be arranged using only the capabilities provided
+ * by its own features.
+ *
+ * @author Alexey Loubyansky
+ */
+public class ParallelConfigCapabilitiesTestCase extends PmProvisionConfigTestBase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+
+    private static final int CONFIGS = 16;
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        final FeaturePackBuilder fp = creator.newFeaturePack(FP1)
+            .addFeatureSpec(FeatureSpec.builder("specA")
+                    .providesCapability("cap.static")
+                    .providesCapability("cap.$a")
+                    .addParam(FeatureParameterSpec.createId("a"))
+                    .build())
+            .addFeatureSpec(FeatureSpec.builder("specB")
+                    .requiresCapability("cap.static")
+                    .requiresCapability("cap.$a")
+                    .addParam(FeatureParameterSpec.createId("b"))
+                    .addParam(FeatureParameterSpec.create("a"))
+                    .build());
+        for(int i = 0; i < CONFIGS; ++i) {
+            fp.addConfig(ConfigModel.builder().setName("config" + i)
+                    .addFeature(new FeatureConfig("specB").setParam("b", "b1").setParam("a", "a1"))
+                    .addFeature(new FeatureConfig("specB").setParam("b", "b2").setParam("a", "a2"))
+                    .addFeature(new FeatureConfig("specA").setParam("a", "a1"))
+                    .addFeature(new FeatureConfig("specA").setParam("a", "a2"))
+                    .build());
+        }
+    }
+
+    @Override
+    protected ProvisioningConfig provisioningConfig() throws ProvisioningDescriptionException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        pm.provision(provisioningConfig(), Collections.singletonMap(ProvisioningOption.CONFIG_RESOLUTION_THREADS.getName(), "8"));
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        final ProvisionedState.Builder state = ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP1));
+        for(int i = 0; i < CONFIGS; ++i) {
+            state.addConfig(ProvisionedConfigBuilder.builder()
+                    .setName("config" + i)
+                    .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specA", "a", "a1")).build())
+                    .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specB", "b", "b1"))
+                            .setConfigParam("a", "a1").build())
+                    .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specA", "a", "a2")).build())
+                    .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specB", "b", "b2"))
+                            .setConfigParam("a", "a2").build())
+                    .build());
+        }
+        return state.build();
+    }
+}
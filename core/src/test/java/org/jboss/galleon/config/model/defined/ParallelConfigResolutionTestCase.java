@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.config.model.defined;
+
+import java.util.Collections;
+
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.ProvisioningOption;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureReferenceSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmProvisionConfigTestBase;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.xml.ProvisionedConfigBuilder;
+import org.jboss.galleon.xml.ProvisionedFeatureBuilder;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class ParallelConfigResolutionTestCase extends PmProvisionConfigTestBase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+        .newFeaturePack(FP1)
+            .addFeatureSpec(FeatureSpec.builder("specP")
+                    .addParam(FeatureParameterSpec.createId("p"))
+                    .build())
+            .addFeatureSpec(FeatureSpec.builder("specC")
+                    .addFeatureRef(FeatureReferenceSpec.create("specP"))
+                    .addParam(FeatureParameterSpec.createId("c"))
+                    .addParam(FeatureParameterSpec.create("p"))
+                    .build())
+            .addConfig(ConfigModel.builder().setModel("model1")
+                    .addFeature(new FeatureConfig("specP").setParam("p", "p0"))
+                    .build())
+            .addConfig(ConfigModel.builder("model1", "config-a")
+                    .addFeature(new FeatureConfig("specC").setParam("c", "c1").setParam("p", "p1"))
+                    .addFeature(new FeatureConfig("specP").setParam("p", "p1"))
+                    .build())
+            .addConfig(ConfigModel.builder("model1", "config-b")
+                    .addFeature(new FeatureConfig("specP").setParam("p", "p2"))
+                    .build())
+            .addConfig(ConfigModel.builder().setName("main")
+                    .addFeature(new FeatureConfig("specC").setParam("c", "c2").setParam("p", "p2"))
+                    .addFeature(new FeatureConfig("specP").setParam("p", "p2"))
+                    .build())
+            .addConfig(ConfigModel.builder().setName("other")
+                    .addFeature(new FeatureConfig("specP").setParam("p", "p3"))
+                    .build());
+    }
+
+    @Override
+    protected ProvisioningConfig provisioningConfig() throws ProvisioningDescriptionException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        pm.provision(provisioningConfig(), Collections.singletonMap(ProvisioningOption.CONFIG_RESOLUTION_THREADS.getName(), "4"));
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP1))
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model1")
+                        .setName("config-a")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specP", "p", "p1")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specC", "c", "c1"))
+                                .setConfigParam("p", "p1").build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specP", "p", "p0")).build())
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model1")
+                        .setName("config-b")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specP", "p", "p2")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specP", "p", "p0")).build())
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setName("main")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specP", "p", "p2")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specC", "c", "c2"))
+                                .setConfigParam("p", "p2").build())
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setName("other")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specP", "p", "p3")).build())
+                        .build())
+                .build();
+    }
+}
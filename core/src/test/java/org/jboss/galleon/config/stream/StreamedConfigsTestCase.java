@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.config.stream;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.ProvisioningOption;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.plugin.ConfigHandlerPlugin;
+import org.jboss.galleon.plugin.ProvisionedConfigHandler;
+import org.jboss.galleon.runtime.ProvisioningRuntime;
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.state.ProvisionedConfig;
+import org.jboss.galleon.state.ProvisionedFeature;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmProvisionConfigTestBase;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.xml.ProvisionedConfigBuilder;
+import org.jboss.galleon.xml.ProvisionedFeatureBuilder;
+
+/**
+ * The configs are streamed, i.e. arranged, written to the provisioned state and passed
+ * to the config handler plugins one by one instead of being kept by the runtime.
+ *
+ * @author Alexey Loubyansky
+ */
+public class StreamedConfigsTestCase extends PmProvisionConfigTestBase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+
+    public static class ConfigWritingPlugin implements ConfigHandlerPlugin {
+        @Override
+        public ProvisionedConfigHandler getConfigHandler(ProvisioningRuntime runtime) throws ProvisioningException {
+            return new ProvisionedConfigHandler() {
+
+                private String name;
+                private StringBuilder buf;
+
+                @Override
+                public void prepare(ProvisionedConfig config) throws ProvisioningException {
+                    if(runtime.hasConfigs()) {
+                        throw new ProvisioningException("The streamed configs are kept by the runtime");
+                    }
+                    name = config.getName();
+                    buf = new StringBuilder();
+                }
+
+                @Override
+                public void nextFeature(ProvisionedFeature feature) throws ProvisioningException {
+                    buf.append(feature.getId()).append('\n');
+                }
+
+                @Override
+                public void done() throws ProvisioningException {
+                    try {
+                        IoUtils.writeFile(runtime.getStagedDir().resolve(name + ".txt"), buf.toString());
+                    } catch (IOException e) {
+                        throw new ProvisioningException("Failed to write config " + name, e);
+                    }
+                }
+            };
+        }
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+        .newFeaturePack(FP1)
+            .addFeatureSpec(FeatureSpec.builder("specA")
+                    .requiresCapability("cap.b")
+                    .addParam(FeatureParameterSpec.createId("a"))
+                    .build())
+            .addFeatureSpec(FeatureSpec.builder("specB")
+                    .providesCapability("cap.b")
+                    .addParam(FeatureParameterSpec.createId("b"))
+                    .build())
+            .addConfig(ConfigModel.builder()
+                    .setName("config1")
+                    .addFeature(new FeatureConfig("specA").setParam("a", "a1"))
+                    .addFeature(new FeatureConfig("specB").setParam("b", "b1"))
+                    .build())
+            .addConfig(ConfigModel.builder()
+                    .setName("config2")
+                    .addFeature(new FeatureConfig("specB").setParam("b", "b2"))
+                    .build())
+            .addService(ConfigHandlerPlugin.class, ConfigWritingPlugin.class);
+    }
+
+    @Override
+    protected ProvisioningConfig provisioningConfig() throws ProvisioningDescriptionException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        pm.provision(provisioningConfig(), Collections.singletonMap(ProvisioningOption.STREAM_CONFIGS.getName(), "true"));
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP1))
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setName("config1")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specB", "b", "b1")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specA", "a", "a1")).build())
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setName("config2")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specB", "b", "b2")).build())
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("config1.txt", ResolvedFeatureId.create(FP1.getProducer(), "specB", "b", "b1") + "\n"
+                        + ResolvedFeatureId.create(FP1.getProducer(), "specA", "a", "a1"))
+                .addFile("config2.txt", ResolvedFeatureId.create(FP1.getProducer(), "specB", "b", "b2").toString())
+                .build();
+    }
+}
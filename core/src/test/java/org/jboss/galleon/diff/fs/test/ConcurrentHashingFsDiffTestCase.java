@@ -0,0 +1,48 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.diff.fs.test;
+
+import java.io.IOException;
+
+/**
+ * Same as the basic test but the files are hashed concurrently.
+ *
+ * @author Alexey Loubyansky
+ */
+public class ConcurrentHashingFsDiffTestCase extends BasicFsDiffTestCase {
+
+    @Override
+    protected void initOriginalDir() throws IOException {
+        super.initOriginalDir();
+        for(int i = 0; i < 20; ++i) {
+            createFile("a/b/same" + i + ".txt", "same" + i);
+        }
+    }
+
+    @Override
+    protected void initOtherDir() throws IOException {
+        super.initOtherDir();
+        for(int i = 0; i < 20; ++i) {
+            createFile("a/b/same" + i + ".txt", "same" + i);
+        }
+    }
+
+    @Override
+    protected int hashingThreads() {
+        return 4;
+    }
+}
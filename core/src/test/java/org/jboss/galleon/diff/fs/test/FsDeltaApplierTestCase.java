@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.diff.fs.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.jboss.galleon.DefaultMessageWriter;
+import org.jboss.galleon.diff.FsDeltaApplier;
+import org.jboss.galleon.diff.FsDiff;
+import org.jboss.galleon.diff.FsEntryFactory;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class FsDeltaApplierTestCase extends FsDiffTestBase {
+
+    @Override
+    protected void initOriginalDir() throws IOException {
+        createFile("a/b/c/d.txt", "d");
+        createFile("a/b/originalOnlyFile.txt", "original");
+        mkdir("a/b/originalOnlyDir/c/d");
+        createFile("a/b/common.txt", "original");
+        createFile("a/b/sameSize.txt", "original");
+        createFile("fileToDir", "file");
+        mkdir("originally_empty");
+        Files.setLastModifiedTime(original.resolve("a/b/c/d.txt"), FileTime.fromMillis(1000));
+    }
+
+    @Override
+    protected void initOtherDir() throws IOException {
+        createFile("a/b/c/d.txt", "d");
+        createFile("a/b/otherOnlyFile.txt", "other");
+        createFile("a/b/otherOnlyDir/c/d/e.txt", "e");
+        createFile("a/b/common.txt", "other content");
+        createFile("a/b/sameSize.txt", "modified");
+        createFile("fileToDir/f.txt", "f");
+        createFile("originally_empty/other.txt", "other");
+        Files.setLastModifiedTime(other.resolve("a/b/c/d.txt"), FileTime.fromMillis(2000));
+    }
+
+    @Override
+    protected void assertDiff(FsDiff diff) throws Exception {
+        assertFalse(diff.isEmpty());
+        assertEquals(2, diff.getModifiedPaths().size());
+
+        FsDeltaApplier.apply(diff, DefaultMessageWriter.getDefaultInstance());
+
+        final FsEntryFactory factory = FsEntryFactory.getInstance();
+        final Path expected = root.resolve("expected");
+        ctxPath = expected;
+        initOtherDir();
+        final FsDiff result = FsDiff.diff(factory.forPath(expected), factory.forPath(original));
+        assertTrue(result.toString(), result.isEmpty());
+        assertEquals(FileTime.fromMillis(2000), Files.getLastModifiedTime(original.resolve("a/b/c/d.txt")));
+    }
+}
@@ -91,6 +91,10 @@ public abstract class FsDiffTestBase {
     protected void initFactory(FsEntryFactory factory) {
     }
 
+    protected int hashingThreads() {
+        return 1;
+    }
+
     protected abstract void assertDiff(FsDiff diff) throws Exception;
 
     @Test
@@ -99,7 +103,7 @@ public abstract class FsDiffTestBase {
         initOther();
         final FsEntryFactory factory = FsEntryFactory.getInstance();
         initFactory(factory);
-        assertDiff(FsDiff.diff(factory.forPath(original), factory.forPath(other)));
+        assertDiff(FsDiff.diff(factory.forPath(original), factory.forPath(other), hashingThreads()));
 
     }
 
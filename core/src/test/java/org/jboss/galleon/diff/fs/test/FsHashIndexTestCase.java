@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.diff.fs.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.diff.FsDiff;
+import org.jboss.galleon.diff.FsEntry;
+import org.jboss.galleon.diff.FsEntryFactory;
+import org.jboss.galleon.diff.FsHashIndex;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class FsHashIndexTestCase {
+
+    private Path root;
+    private Path content;
+
+    @Before
+    public void init() throws Exception {
+        root = IoUtils.createRandomTmpDir();
+        content = root.resolve("content");
+        Files.createDirectories(content.resolve("a/b/c"));
+        IoUtils.writeFile(content.resolve("a/b/c/d.txt"), "d");
+        IoUtils.writeFile(content.resolve("a/b/e.txt"), "e");
+        IoUtils.writeFile(content.resolve("file with spaces.txt"), "spaces");
+        Files.createDirectories(content.resolve("empty"));
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        final Path index = root.resolve(Constants.HASHES_INDEX);
+        FsHashIndex.write(FsEntryFactory.getInstance().forPath(content), index);
+
+        assertMatchesContent(FsHashIndex.read(index));
+        assertMatchesContent(FsHashIndex.read(index, true));
+
+        final FsEntry persisted = FsHashIndex.read(index);
+        final FsEntry file = persisted.getChild("a").getChild("b").getChild("e.txt");
+        assertArrayEquals(HashUtils.hashPath(content.resolve("a/b/e.txt")), file.getHash());
+        assertEquals(Files.size(content.resolve("a/b/e.txt")), file.getSize());
+        assertEquals(Files.getLastModifiedTime(content.resolve("a/b/e.txt")).toMillis(), file.getLastModified());
+    }
+
+    @Test
+    public void testLegacyHashesDir() throws Exception {
+        final Path hashes = root.resolve(Constants.HASHES);
+        Files.createDirectories(hashes.resolve("a/b/c"));
+        IoUtils.writeFile(hashes.resolve(Constants.HASHES),
+                "file with spaces.txt\n" + HashUtils.bytesToHexString(HashUtils.hashPath(content.resolve("file with spaces.txt"))) + '\n');
+        final Path eTxt = content.resolve("a/b/e.txt");
+        IoUtils.writeFile(hashes.resolve("a/b").resolve(Constants.HASHES),
+                "e.txt\n" + HashUtils.bytesToHexString(HashUtils.hashPath(eTxt)) + ' ' + Files.size(eTxt) + ' '
+                        + Files.getLastModifiedTime(eTxt).toMillis() + '\n');
+        IoUtils.writeFile(hashes.resolve("a/b/c").resolve(Constants.HASHES),
+                "d.txt\n" + HashUtils.bytesToHexString(HashUtils.hashPath(content.resolve("a/b/c/d.txt"))) + '\n');
+        Files.createDirectories(hashes.resolve("empty"));
+
+        final FsEntry persisted = FsHashIndex.readHashesDir(hashes);
+        assertMatchesContent(persisted);
+        assertEquals(-1, persisted.getChild("a").getChild("b").getChild("c").getChild("d.txt").getSize());
+        assertEquals(Files.size(eTxt), persisted.getChild("a").getChild("b").getChild("e.txt").getSize());
+    }
+
+    private void assertMatchesContent(FsEntry persisted) throws Exception {
+        assertTrue(persisted.isDir());
+        assertFalse(persisted.getChild("a").getChild("b").getChild("c").getChild("d.txt").isDir());
+        assertTrue(persisted.getChild("empty").isDir());
+        final FsDiff diff = FsDiff.diff(persisted, FsEntryFactory.getInstance().forPath(content));
+        assertTrue(diff.toString(), diff.isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.diff.fs.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jboss.galleon.diff.FsDiff;
+import org.jboss.galleon.diff.FsEntry;
+import org.jboss.galleon.diff.FsEntryFactory;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Files whose recorded size and last modified time match the current ones
+ * are not re-hashed.
+ *
+ * @author Alexey Loubyansky
+ */
+public class RecordedAttributesFsDiffTestCase {
+
+    private Path root;
+
+    @Before
+    public void init() throws Exception {
+        root = IoUtils.createRandomTmpDir();
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Test
+    public void test() throws Exception {
+        final Path unchanged = root.resolve("unchanged.txt");
+        IoUtils.writeFile(unchanged, "unchanged");
+        final Path resized = root.resolve("resized.txt");
+        IoUtils.writeFile(resized, "resized");
+        final Path noAttrs = root.resolve("no-attrs.txt");
+        IoUtils.writeFile(noAttrs, "no attributes");
+
+        final FsEntry recorded = new FsEntry(null, root);
+        // the recorded hash is not the actual one, it is trusted since the attributes match
+        final byte[] recordedHash = HashUtils.hashPath(noAttrs);
+        new FsEntry(recorded, "unchanged.txt", recordedHash, Files.size(unchanged),
+                Files.getLastModifiedTime(unchanged).toMillis());
+        new FsEntry(recorded, "resized.txt", HashUtils.hashPath(resized), Files.size(resized) + 1,
+                Files.getLastModifiedTime(resized).toMillis());
+        new FsEntry(recorded, "no-attrs.txt", HashUtils.hashPath(noAttrs));
+
+        final FsEntry current = FsEntryFactory.getInstance().forPath(root);
+        final FsDiff diff = FsDiff.diff(recorded, current);
+        assertTrue(diff.toString(), diff.isEmpty());
+        assertArrayEquals(recordedHash, current.getChild("unchanged.txt").getHash());
+
+        IoUtils.writeFile(resized, "resized again");
+        final FsDiff modified = FsDiff.diff(recorded, FsEntryFactory.getInstance().forPath(root));
+        assertFalse(modified.isEmpty());
+        assertEquals(1, modified.getModifiedPaths().size());
+        assertTrue(modified.getModifiedPaths().contains("resized.txt"));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.layout.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.layout.FeaturePackLayout;
+import org.jboss.galleon.layout.ProvisioningLayout;
+import org.jboss.galleon.layout.ProvisioningLayoutFactory;
+import org.jboss.galleon.repo.RepositoryArtifactResolver;
+import org.jboss.galleon.test.FeaturePackRepoTestBase;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.junit.Test;
+
+/**
+ * The layout built after the feature-packs were resolved concurrently is the same as the one
+ * built resolving them sequentially and the versions of the feature-packs overridden by the layout
+ * are not resolved.
+ *
+ * @author Alexey Loubyansky
+ */
+public class ConcurrentFeaturePackResolutionTestCase extends FeaturePackRepoTestBase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP2 = LegacyGalleon1Universe.newFPID("org.pm.test:fp2", "1", "1.0.0.Final");
+    private static final FPID FP3 = LegacyGalleon1Universe.newFPID("org.pm.test:fp3", "1", "1.0.0.Final");
+    private static final FPID FP4_1 = LegacyGalleon1Universe.newFPID("org.pm.test:fp4", "1", "1.0.0.Final");
+    private static final FPID FP4_2 = LegacyGalleon1Universe.newFPID("org.pm.test:fp4", "1", "2.0.0.Final");
+    private static final FPID FP5 = LegacyGalleon1Universe.newFPID("org.pm.test:fp5", "1", "1.0.0.Final");
+
+    private final Set<String> resolved = Collections.synchronizedSet(new HashSet<>());
+
+    @Test
+    public void test() throws Exception {
+        createFeaturePacks();
+        final ProvisioningConfig config = ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .addFeaturePackDep(FP4_2.getLocation())
+                .build();
+        final List<FPID> expected = Arrays.asList(FP2, FP5, FP3, FP1, FP4_2);
+        assertEquals(expected, layout(config, 1));
+        assertEquals(expected, layout(config, 8));
+        assertFalse(resolved.contains(LegacyGalleon1Universe.toMavenCoords(FP4_1.getLocation())));
+    }
+
+    @Test
+    public void testTransitiveVersionOverride() throws Exception {
+        createFeaturePacks();
+        final ProvisioningConfig config = ProvisioningConfig.builder()
+                .addTransitiveDep(FP4_2.getLocation())
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+        final List<FPID> expected = Arrays.asList(FP4_2, FP2, FP5, FP3, FP1);
+        assertEquals(expected, layout(config, 1));
+        assertEquals(expected, layout(config, 8));
+        assertFalse(resolved.contains(LegacyGalleon1Universe.toMavenCoords(FP4_1.getLocation())));
+    }
+
+    private void createFeaturePacks() throws ProvisioningException {
+        final FeaturePackCreator creator = initCreator();
+        creator.newFeaturePack(FP1)
+            .addDependency(FP2.getLocation())
+            .addDependency(FP3.getLocation())
+            .newPackage("p1", true).writeContent("fp1.txt", "fp1");
+        creator.newFeaturePack(FP2)
+            .addDependency(FP4_1.getLocation())
+            .newPackage("p1", true).writeContent("fp2.txt", "fp2");
+        creator.newFeaturePack(FP3)
+            .addDependency(FP4_2.getLocation())
+            .addDependency(FP5.getLocation())
+            .newPackage("p1", true).writeContent("fp3.txt", "fp3");
+        creator.newFeaturePack(FP4_1)
+            .newPackage("p1", true).writeContent("fp4.txt", "fp4_1");
+        creator.newFeaturePack(FP4_2)
+            .newPackage("p1", true).writeContent("fp4.txt", "fp4_2");
+        creator.newFeaturePack(FP5)
+            .newPackage("p1", true).writeContent("fp5.txt", "fp5");
+        creator.install();
+    }
+
+    private List<FPID> layout(ProvisioningConfig config, int threads) throws ProvisioningException {
+        final RepositoryArtifactResolver countingRepo = new RepositoryArtifactResolver() {
+            @Override
+            public String getRepositoryId() {
+                return repo.getRepositoryId();
+            }
+            @Override
+            public Path resolve(String location) throws ProvisioningException {
+                resolved.add(location);
+                return repo.resolve(location);
+            }
+        };
+        try (ProvisioningLayoutFactory layoutFactory = ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(countingRepo).build())) {
+            layoutFactory.setResolutionThreads(threads);
+            try (ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(config)) {
+                final List<FPID> fpids = new ArrayList<>();
+                for (FeaturePackLayout fp : layout.getOrderedFeaturePacks()) {
+                    fpids.add(fp.getFPID());
+                }
+                return fpids;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.layout.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.layout.FeaturePackLayout;
+import org.jboss.galleon.layout.ProvisioningLayout;
+import org.jboss.galleon.layout.ProvisioningLayoutFactory;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmProvisionConfigTestBase;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.util.IoUtils;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class ExtractedFeaturePackCacheTestCase extends PmProvisionConfigTestBase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP2 = LegacyGalleon1Universe.newFPID("org.pm.test:fp2", "1", "1.0.0.Final");
+
+    private Path cacheDir;
+
+    @Override
+    protected void doBefore() throws Exception {
+        super.doBefore();
+        cacheDir = workDir.resolve("fp-cache");
+        System.setProperty(Constants.PROP_FP_CACHE_DIR, cacheDir.toString());
+    }
+
+    @Override
+    protected void doAfter() throws Exception {
+        System.clearProperty(Constants.PROP_FP_CACHE_DIR);
+        super.doAfter();
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+        .newFeaturePack(FP1)
+            .addDependency(FP2.getLocation())
+            .newPackage("a", true)
+                .writeContent("fp1/a.txt", "fp1a")
+                .getFeaturePack()
+            .getCreator()
+        .newFeaturePack(FP2)
+            .newPackage("b", true)
+                .writeContent("fp2/b.txt", "fp2b");
+    }
+
+    @Override
+    protected ProvisioningConfig provisioningConfig() throws ProvisioningDescriptionException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        super.testPm(pm);
+        final Set<Path> entries = listEntries();
+        assertEquals(2, entries.size());
+
+        // left over by interrupted extractions
+        final Path staleTmpDir = cacheDir.resolve(".stale");
+        final Path freshTmpDir = cacheDir.resolve(".fresh");
+        try {
+            Files.createDirectories(staleTmpDir.resolve("fp"));
+            Files.setLastModifiedTime(staleTmpDir, FileTime.fromMillis(System.currentTimeMillis() - 2L * 60 * 60 * 1000));
+            Files.createDirectories(freshTmpDir.resolve("fp"));
+        } catch (IOException e) {
+            throw new ProvisioningException(e);
+        }
+
+        try (ProvisioningLayoutFactory layoutFactory = ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(repo).build());
+                ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(provisioningConfig())) {
+            for(FeaturePackLayout fp : layout.getOrderedFeaturePacks()) {
+                assertTrue(fp.getDir().toString(), fp.getDir().startsWith(cacheDir));
+            }
+        }
+        assertFalse(Files.exists(staleTmpDir));
+        assertTrue(Files.exists(freshTmpDir));
+        IoUtils.recursiveDelete(freshTmpDir);
+        assertEquals(entries, listEntries());
+    }
+
+    private Set<Path> listEntries() throws ProvisioningException {
+        final Set<Path> entries = new HashSet<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+            for(Path p : stream) {
+                entries.add(p);
+            }
+        } catch (IOException e) {
+            throw new ProvisioningException(e);
+        }
+        return entries;
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP2)
+                        .addPackage("b")
+                        .build())
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1)
+                        .addPackage("a")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("fp1/a.txt", "fp1a")
+                .addFile("fp2/b.txt", "fp2b")
+                .build();
+    }
+}
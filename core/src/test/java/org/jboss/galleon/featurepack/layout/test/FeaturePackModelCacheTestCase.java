@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016-2019 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.layout.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.ConfigModel;
+import org.jboss.galleon.config.FeatureConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.layout.ProvisioningLayoutFactory;
+import org.jboss.galleon.runtime.ProvisioningRuntime;
+import org.jboss.galleon.runtime.ProvisioningRuntimeBuilder;
+import org.jboss.galleon.spec.FeatureParameterSpec;
+import org.jboss.galleon.spec.FeatureSpec;
+import org.jboss.galleon.test.FeaturePackRepoTestBase;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.junit.Test;
+
+/**
+ * The runtimes built using the same layout factory share the parsed feature specs
+ * until the cached models are invalidated.
+ *
+ * @author Alexey Loubyansky
+ */
+public class FeaturePackModelCacheTestCase extends FeaturePackRepoTestBase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.pm.test:fp1", "1", "1.0.0.Final");
+
+    @Test
+    public void test() throws Exception {
+        initCreator().newFeaturePack(FP1)
+            .addFeatureSpec(FeatureSpec.builder("specA")
+                    .addParam(FeatureParameterSpec.createId("a"))
+                    .build())
+            .addConfig(ConfigModel.builder(null, "main")
+                    .addFeature(new FeatureConfig("specA").setParam("a", "1"))
+                    .build())
+            .getCreator()
+            .install();
+
+        final ProvisioningConfig config = ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+        try (ProvisioningLayoutFactory layoutFactory = ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(repo).build())) {
+            final FeatureSpec spec = getFeatureSpec(layoutFactory, config);
+            assertNotNull(spec);
+            assertSame(spec, getFeatureSpec(layoutFactory, config));
+
+            layoutFactory.invalidateFeaturePackModels(FP1);
+            final FeatureSpec reparsed = getFeatureSpec(layoutFactory, config);
+            assertNotSame(spec, reparsed);
+            assertEquals(spec, reparsed);
+            assertSame(reparsed, getFeatureSpec(layoutFactory, config));
+
+            layoutFactory.setModelCacheSize(0);
+            assertNotSame(reparsed, getFeatureSpec(layoutFactory, config));
+        }
+    }
+
+    private static FeatureSpec getFeatureSpec(ProvisioningLayoutFactory layoutFactory, ProvisioningConfig config) throws ProvisioningException {
+        try (ProvisioningRuntime rt = ProvisioningRuntimeBuilder.newInstance().initLayout(layoutFactory, config).build()) {
+            return rt.getFeaturePack(FP1.getProducer()).getFeatureSpec("specA");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.layout.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jboss.galleon.Constants;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.layout.FeaturePackLayout;
+import org.jboss.galleon.layout.ProvisioningLayout;
+import org.jboss.galleon.layout.ProvisioningLayoutFactory;
+import org.jboss.galleon.test.FeaturePackRepoTestBase;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.util.LayoutUtils;
+import org.junit.Test;
+
+/**
+ * Without the feature-pack cache, the package content of a resolved feature-pack
+ * is extracted only when it is requested, the rest of the feature-pack is extracted
+ * when the feature-pack is resolved. Patched feature-packs include the package content.
+ *
+ * @author Alexey Loubyansky
+ */
+public class PackageContentExtractionTestCase extends FeaturePackRepoTestBase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP1_PATCH = LegacyGalleon1Universe.newFPID("org.pm.test:fp1-patch", "1", "1.0.0.Final");
+
+    @Override
+    protected void doBefore() throws Exception {
+        super.doBefore();
+        final FeaturePackCreator creator = initCreator();
+        creator.newFeaturePack(FP1)
+            .newPackage("p1", true)
+                .writeContent("fp1/p1.txt", "p1")
+                .getFeaturePack()
+            .newPackage("p2", true)
+                .writeContent("fp1/p2.txt", "p2");
+        creator.newFeaturePack(FP1_PATCH)
+            .setPatchFor(FP1)
+            .newPackage("p1", true)
+                .writeContent("fp1/p1.txt", "p1 patched");
+        creator.install();
+    }
+
+    @Test
+    public void testContentExtractedOnRequest() throws Exception {
+        final ProvisioningConfig config = ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+        try (ProvisioningLayoutFactory layoutFactory = newLayoutFactory();
+                ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(config)) {
+            final Path fpDir = layout.getFeaturePack(FP1.getProducer()).getDir();
+            assertTrue(Files.exists(fpDir.resolve(Constants.FEATURE_PACK_XML)));
+            assertTrue(Files.exists(fpDir.resolve(Constants.PACKAGES).resolve("p1").resolve(Constants.PACKAGE_XML)));
+            assertFalse(Files.exists(LayoutUtils.getPackageContentDir(fpDir, "p1")));
+            assertFalse(Files.exists(LayoutUtils.getPackageContentDir(fpDir, "p2")));
+
+            layoutFactory.extractPackageContent(fpDir);
+            assertEquals("p1", IoUtils.readFile(LayoutUtils.getPackageContentDir(fpDir, "p1").resolve("fp1").resolve("p1.txt")));
+            assertEquals("p2", IoUtils.readFile(LayoutUtils.getPackageContentDir(fpDir, "p2").resolve("fp1").resolve("p2.txt")));
+
+            // already extracted
+            layoutFactory.extractPackageContent(fpDir);
+            assertEquals("p1", IoUtils.readFile(LayoutUtils.getPackageContentDir(fpDir, "p1").resolve("fp1").resolve("p1.txt")));
+        }
+    }
+
+    @Test
+    public void testPatchedFeaturePackIncludesContent() throws Exception {
+        final ProvisioningConfig config = ProvisioningConfig.builder()
+                .addFeaturePackDep(FeaturePackConfig.builder(FP1.getLocation())
+                        .addPatch(FP1_PATCH)
+                        .build())
+                .build();
+        try (ProvisioningLayoutFactory layoutFactory = newLayoutFactory();
+                ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(config)) {
+            final Path fpDir = layout.getFeaturePack(FP1.getProducer()).getDir();
+            assertEquals("p1 patched", IoUtils.readFile(LayoutUtils.getPackageContentDir(fpDir, "p1").resolve("fp1").resolve("p1.txt")));
+            assertEquals("p2", IoUtils.readFile(LayoutUtils.getPackageContentDir(fpDir, "p2").resolve("fp1").resolve("p2.txt")));
+        }
+    }
+
+    private ProvisioningLayoutFactory newLayoutFactory() throws ProvisioningException {
+        return ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(repo).build());
+    }
+}
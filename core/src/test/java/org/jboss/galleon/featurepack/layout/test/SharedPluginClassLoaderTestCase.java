@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.featurepack.layout.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.layout.FeaturePackLayout;
+import org.jboss.galleon.layout.FeaturePackPluginVisitor;
+import org.jboss.galleon.layout.ProvisioningLayout;
+import org.jboss.galleon.layout.ProvisioningLayoutFactory;
+import org.jboss.galleon.plugin.InstallPlugin;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmProvisionConfigTestBase;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.UniverseResolver;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class SharedPluginClassLoaderTestCase extends PmProvisionConfigTestBase {
+
+    public static class TestPlugin implements InstallPlugin {
+    }
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.pm.test:fp1", "1", "1.0.0.Final");
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+        .newFeaturePack(FP1)
+            .addPlugin(TestPlugin.class)
+            .newPackage("a", true)
+                .writeContent("fp1/a.txt", "fp1a");
+    }
+
+    @Override
+    protected ProvisioningConfig provisioningConfig() throws ProvisioningDescriptionException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        super.testPm(pm);
+
+        final List<InstallPlugin> plugins = new ArrayList<>();
+        final ClassLoader sharedCl;
+        try (ProvisioningLayoutFactory layoutFactory = ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(repo).build())) {
+            try (ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(provisioningConfig())) {
+                sharedCl = layout.getPluginsClassLoader();
+                collectPlugins(layout, plugins);
+            }
+            assertNotSame(Thread.currentThread().getContextClassLoader(), sharedCl);
+            try (ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(provisioningConfig())) {
+                assertSame(sharedCl, layout.getPluginsClassLoader());
+                collectPlugins(layout, plugins);
+            }
+        }
+        assertEquals(2, plugins.size());
+        assertNotSame(plugins.get(0), plugins.get(1));
+        assertEquals(plugins.get(0).getClass(), plugins.get(1).getClass());
+
+        try (ProvisioningLayoutFactory layoutFactory = ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(repo).build());
+                ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(provisioningConfig())) {
+            assertNotSame(sharedCl, layout.getPluginsClassLoader());
+        }
+
+        // unused class loaders are closed once the cache is full
+        final String pluginService = "META-INF/services/" + InstallPlugin.class.getName();
+        try (ProvisioningLayoutFactory layoutFactory = ProvisioningLayoutFactory.getInstance(UniverseResolver.builder().addArtifactResolver(repo).build())) {
+            layoutFactory.setPluginClassLoaderCacheSize(0);
+            final ClassLoader evictedCl;
+            try (ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(provisioningConfig())) {
+                evictedCl = layout.getPluginsClassLoader();
+                try (ProvisioningLayout<FeaturePackLayout> otherLayout = layoutFactory.newConfigLayout(provisioningConfig())) {
+                    assertSame(evictedCl, otherLayout.getPluginsClassLoader());
+                }
+                assertNotNull(((URLClassLoader) evictedCl).findResource(pluginService));
+            }
+            assertNull(((URLClassLoader) evictedCl).findResource(pluginService));
+            try (ProvisioningLayout<FeaturePackLayout> layout = layoutFactory.newConfigLayout(provisioningConfig())) {
+                assertNotSame(evictedCl, layout.getPluginsClassLoader());
+                collectPlugins(layout, plugins);
+            }
+        }
+        assertEquals(3, plugins.size());
+    }
+
+    private static void collectPlugins(ProvisioningLayout<FeaturePackLayout> layout, List<InstallPlugin> plugins) throws ProvisioningException {
+        layout.visitPlugins(new FeaturePackPluginVisitor<InstallPlugin>() {
+            @Override
+            public void visitPlugin(InstallPlugin plugin) throws ProvisioningException {
+                plugins.add(plugin);
+            }
+        }, InstallPlugin.class);
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1)
+                        .addPackage("a")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("fp1/a.txt", "fp1a")
+                .build();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.installation.batch.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.galleon.ProvisioningDescriptionException;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.repo.RepositoryArtifactResolver;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmProvisionConfigTestBase;
+import org.jboss.galleon.test.util.TestUtils;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class BatchProvisioningTestCase extends PmProvisionConfigTestBase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP2 = LegacyGalleon1Universe.newFPID("org.pm.test:fp2", "1", "1.0.0.Final");
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator
+        .newFeaturePack(FP1)
+            .addDependency(FP2.getLocation())
+            .newPackage("a", true)
+                .writeContent("fp1/a.txt", "fp1a")
+                .getFeaturePack()
+            .newPackage("b")
+                .writeContent("fp1/b.txt", "fp1b")
+                .getFeaturePack()
+            .getCreator()
+        .newFeaturePack(FP2)
+            .newPackage("a", true)
+                .writeContent("fp2/a.txt", "fp2a")
+                .getFeaturePack();
+    }
+
+    @Override
+    protected ProvisioningConfig provisioningConfig() throws ProvisioningDescriptionException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FP1.getLocation())
+                .build();
+    }
+
+    private ProvisioningConfig otherProvisioningConfig() throws ProvisioningDescriptionException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FeaturePackConfig.builder(FP1.getLocation())
+                        .includePackage("b")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        final Path otherHome = TestUtils.mkdirs(workDir, "other");
+        final Map<Path, ProvisioningConfig> targets = new LinkedHashMap<>();
+        targets.put(installHome, provisioningConfig());
+        targets.put(otherHome, otherProvisioningConfig());
+        final ConcurrentMap<String, AtomicInteger> resolved = new ConcurrentHashMap<>();
+        final RepositoryArtifactResolver countingRepo = new RepositoryArtifactResolver() {
+            @Override
+            public String getRepositoryId() {
+                return repo.getRepositoryId();
+            }
+            @Override
+            public Path resolve(String location) throws ProvisioningException {
+                AtomicInteger count = resolved.get(location);
+                if(count == null) {
+                    final AtomicInteger newCount = new AtomicInteger();
+                    count = resolved.putIfAbsent(location, newCount);
+                    if(count == null) {
+                        count = newCount;
+                    }
+                }
+                count.incrementAndGet();
+                return repo.resolve(location);
+            }
+        };
+        ProvisioningManager.provision(ProvisioningManager.builder().addArtifactResolver(countingRepo), targets, Collections.emptyMap(), 2);
+
+        // the feature-packs the installations have in common are resolved once
+        final Map<String, Integer> resolutions = new HashMap<>(resolved.size());
+        for(Map.Entry<String, AtomicInteger> entry : resolved.entrySet()) {
+            resolutions.put(entry.getKey(), entry.getValue().get());
+        }
+        final Map<String, Integer> expected = new HashMap<>(2);
+        expected.put(toLocation(FP1), 1);
+        expected.put(toLocation(FP2), 1);
+        assertEquals(expected, resolutions);
+
+        try(ProvisioningManager otherPm = ProvisioningManager.builder().addArtifactResolver(repo).setInstallationHome(otherHome).build()) {
+            assertEquals(otherProvisioningConfig(), otherPm.getProvisioningConfig());
+            assertEquals(ProvisionedState.builder()
+                    .addFeaturePack(ProvisionedFeaturePack.builder(FP2)
+                            .addPackage("a")
+                            .build())
+                    .addFeaturePack(ProvisionedFeaturePack.builder(FP1)
+                            .addPackage("a")
+                            .addPackage("b")
+                            .build())
+                    .build(), otherPm.getProvisionedState());
+        }
+        newDirBuilder()
+                .addFile("fp1/a.txt", "fp1a")
+                .addFile("fp1/b.txt", "fp1b")
+                .addFile("fp2/a.txt", "fp2a")
+                .build().assertState(otherHome);
+    }
+
+    private static String toLocation(FPID fpid) throws ProvisioningException {
+        return LegacyGalleon1Universe.toMavenCoords(fpid.getLocation());
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP2)
+                        .addPackage("a")
+                        .build())
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1)
+                        .addPackage("a")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("fp1/a.txt", "fp1a")
+                .addFile("fp2/a.txt", "fp2a")
+                .build();
+    }
+}
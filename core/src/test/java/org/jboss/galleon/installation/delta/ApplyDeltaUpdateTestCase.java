@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.installation.delta;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.ProvisioningManager;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.creator.FeaturePackCreator;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.PmTestBase;
+import org.jboss.galleon.test.util.fs.state.DirState;
+import org.jboss.galleon.universe.FeaturePackLocation;
+import org.jboss.galleon.util.LayoutUtils;
+import org.junit.Assert;
+
+/**
+ * Updates an installation applying only the differences and undoes the update using the recorded content.
+ *
+ * @author Alexey Loubyansky
+ */
+public class ApplyDeltaUpdateTestCase extends PmTestBase {
+
+    private static final FeaturePackLocation FP1_100 = FeaturePackLocation.fromString("galleon.test:fp1@galleon1:1#1.0.0.Final");
+    private static final FeaturePackLocation FP1_200 = FeaturePackLocation.fromString("galleon.test:fp1@galleon1:1#2.0.0.Final");
+
+    @Override
+    protected ProvisioningManager getPm() throws ProvisioningException {
+        return ProvisioningManager.builder()
+                .addArtifactResolver(repo)
+                .setInstallationHome(installHome)
+                .setRecordState(isRecordState())
+                .setApplyDelta(true)
+                .setFullContentUndo(true)
+                .build();
+    }
+
+    @Override
+    protected void createFeaturePacks(FeaturePackCreator creator) throws ProvisioningException {
+        creator.newFeaturePack(FP1_100.getFPID())
+            .newPackage("p1", true)
+                .writeContent("fp1/a.txt", "a 1.0.0")
+                .writeContent("fp1/b.txt", "b")
+                .writeContent("fp1/removed/c.txt", "c 1.0.0");
+        creator.newFeaturePack(FP1_200.getFPID())
+            .newPackage("p1", true)
+                .writeContent("fp1/a.txt", "a 2.0.0")
+                .writeContent("fp1/b.txt", "b")
+                .writeContent("fp1/added/d.txt", "d 2.0.0");
+    }
+
+    @Override
+    protected ProvisioningConfig initialState() throws ProvisioningException {
+        return ProvisioningConfig.builder()
+                .addFeaturePackDep(FeaturePackConfig.forLocation(FP1_100))
+                .build();
+    }
+
+    @Override
+    protected void testPm(ProvisioningManager pm) throws ProvisioningException {
+        final Object unchangedKey = fileKey(resolve("fp1/b.txt"));
+        final Object changedKey = fileKey(resolve("fp1/a.txt"));
+        try (ProvisioningManager updatePm = getPm()) {
+            updatePm.install(FP1_200);
+        }
+        // the unchanged file was left in place, the changed one replaced
+        Assert.assertEquals(unchangedKey, fileKey(resolve("fp1/b.txt")));
+        Assert.assertFalse(changedKey.equals(fileKey(resolve("fp1/a.txt"))));
+        Assert.assertFalse(Files.exists(resolve("fp1/removed")));
+        Assert.assertTrue(Files.exists(LayoutUtils.getHashesIndex(installHome)));
+        pm.undo();
+    }
+
+    private static Object fileKey(Path p) throws ProvisioningException {
+        try {
+            return Files.readAttributes(p, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            throw new ProvisioningException(e);
+        }
+    }
+
+    @Override
+    protected ProvisioningConfig provisionedConfig() throws ProvisioningException {
+        return initialState();
+    }
+
+    @Override
+    protected ProvisionedState provisionedState() throws ProvisioningException {
+        return ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1_100.getFPID())
+                        .addPackage("p1")
+                        .build())
+                .build();
+    }
+
+    @Override
+    protected DirState provisionedHomeDir() {
+        return newDirBuilder()
+                .addFile("fp1/a.txt", "a 1.0.0")
+                .addFile("fp1/b.txt", "b")
+                .addFile("fp1/removed/c.txt", "c 1.0.0")
+                .build();
+    }
+}
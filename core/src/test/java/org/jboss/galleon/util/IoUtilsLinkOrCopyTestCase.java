@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class IoUtilsLinkOrCopyTestCase {
+
+    private Path workDir;
+
+    @Before
+    public void before() throws Exception {
+        workDir = IoUtils.createRandomTmpDir();
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(workDir);
+    }
+
+    @Test
+    public void testTreeIsMirrored() throws Exception {
+        final Path src = workDir.resolve("src");
+        Files.createDirectories(src.resolve("a").resolve("b"));
+        Files.createDirectories(src.resolve("empty"));
+        Files.write(src.resolve("root.txt"), "root".getBytes());
+        Files.write(src.resolve("a").resolve("b").resolve("c.txt"), "c".getBytes());
+
+        final Path target = workDir.resolve("target");
+        Files.createDirectories(target);
+        Files.write(target.resolve("root.txt"), "old".getBytes());
+
+        IoUtils.linkOrCopy(src, target);
+
+        assertEquals("root", IoUtils.readFile(target.resolve("root.txt")));
+        assertEquals("c", IoUtils.readFile(target.resolve("a").resolve("b").resolve("c.txt")));
+        assertTrue(Files.isDirectory(target.resolve("empty")));
+        assertEquals("root", IoUtils.readFile(src.resolve("root.txt")));
+    }
+}
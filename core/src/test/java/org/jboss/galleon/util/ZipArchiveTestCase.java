@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class ZipArchiveTestCase {
+
+    private Path workDir;
+    private Path zip;
+
+    @Before
+    public void before() throws Exception {
+        workDir = IoUtils.createRandomTmpDir();
+        final Path src = workDir.resolve("src");
+        Files.createDirectories(src.resolve("packages").resolve("p1"));
+        Files.createDirectories(src.resolve("packages").resolve("p2").resolve("content"));
+        Files.createDirectories(src.resolve("empty"));
+        Files.write(src.resolve("feature-pack.xml"), "fp".getBytes());
+        Files.write(src.resolve("packages").resolve("p1").resolve("package.xml"), "p1".getBytes());
+        Files.write(src.resolve("packages").resolve("p2").resolve("content").resolve("file.txt"), "file".getBytes());
+        zip = workDir.resolve("archive.zip");
+        ZipUtils.zip(src, zip);
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(workDir);
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        try(ZipArchive archive = ZipArchive.open(zip)) {
+            assertEquals(new HashSet<>(Arrays.asList("feature-pack.xml", "packages", "empty")), new HashSet<>(archive.list("")));
+            assertEquals(new HashSet<>(Arrays.asList("p1", "p2")), new HashSet<>(archive.list("packages")));
+            assertTrue(archive.isDirectory("packages/p2/content"));
+            assertTrue(archive.exists("packages/p1/package.xml"));
+            assertFalse(archive.isDirectory("packages/p1/package.xml"));
+            assertFalse(archive.exists("packages/p3"));
+            assertTrue(archive.list("packages/p3").isEmpty());
+            try(InputStream in = archive.openStream("packages/p2/content/file.txt")) {
+                final byte[] bytes = new byte[4];
+                assertEquals(4, in.read(bytes));
+                assertEquals("file", new String(bytes));
+            }
+        }
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+        final Path target = workDir.resolve("target");
+        try(ZipArchive archive = ZipArchive.open(zip)) {
+            archive.extract(target);
+        }
+        assertEquals("fp", IoUtils.readFile(target.resolve("feature-pack.xml")));
+        assertEquals("p1", IoUtils.readFile(target.resolve("packages").resolve("p1").resolve("package.xml")));
+        assertEquals("file", IoUtils.readFile(target.resolve("packages").resolve("p2").resolve("content").resolve("file.txt")));
+        assertTrue(Files.isDirectory(target.resolve("empty")));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.xml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.state.FeaturePackSet;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.xml.util.FormattingXmlStreamWriter;
+import org.junit.Test;
+
+/**
+ * Makes sure the streamed provisioned state is the same document the element tree
+ * based marshalling produces.
+ *
+ * @author Alexey Loubyansky
+ */
+public class ProvisionedStateXmlStreamingTestCase {
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP2 = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp2", "1", "1.0.0.Final");
+
+    @Test
+    public void testEmptyState() throws Exception {
+        assertSameOutput(ProvisionedState.builder().build());
+    }
+
+    @Test
+    public void testFeaturePacksOnly() throws Exception {
+        assertSameOutput(ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1)
+                        .addPackage("p1")
+                        .addPackage("p2")
+                        .build())
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP2))
+                .build());
+    }
+
+    @Test
+    public void testConfigsWithFeaturesAndLayers() throws Exception {
+        assertSameOutput(ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1)
+                        .addPackage("p1")
+                        .build())
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP2))
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model1")
+                        .setName("main")
+                        .setProperty("prop1", "value1")
+                        .setProperty("prop2", "value2")
+                        .addLayer("model1", "layer1")
+                        .addLayer("model1", "layer2")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specA", "a", "a1"))
+                                .setConfigParam("p1", "v1")
+                                .setConfigParam("p2", "v2")
+                                .build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specA", "a", "a2")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specB", "b", "b1"))
+                                .setConfigParam("p1", "v1")
+                                .build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP2.getProducer(), "specC", "c", "c1")).build())
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model1")
+                        .setName("layers-only")
+                        .addLayer("model1", "layer1")
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model2")
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setName("empty")
+                        .build())
+                .build());
+    }
+
+    private static void assertSameOutput(FeaturePackSet<?> state) throws Exception {
+        final StringWriter streamed = new StringWriter();
+        ProvisionedStateXmlWriter.getInstance().write(state, streamed);
+        assertEquals(writeElementTree(state), streamed.toString());
+    }
+
+    private static String writeElementTree(FeaturePackSet<?> state) throws Exception {
+        final StringWriter out = new StringWriter();
+        try (FormattingXmlStreamWriter writer = BaseXmlWriter.newXmlStreamWriter(out)) {
+            writer.writeStartDocument();
+            ProvisionedStateXmlWriter.getInstance().toElement(state).marshall(writer);
+            writer.writeEndDocument();
+        }
+        return out.toString();
+    }
+}
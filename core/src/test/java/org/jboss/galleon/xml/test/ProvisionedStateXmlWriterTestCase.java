@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.xml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.jboss.galleon.runtime.ResolvedFeatureId;
+import org.jboss.galleon.state.ProvisionedFeaturePack;
+import org.jboss.galleon.state.ProvisionedState;
+import org.jboss.galleon.test.util.XmlParserValidator;
+import org.jboss.galleon.universe.FeaturePackLocation.FPID;
+import org.jboss.galleon.universe.galleon1.LegacyGalleon1Universe;
+import org.jboss.galleon.util.IoUtils;
+import org.jboss.galleon.xml.ProvisionedConfigBuilder;
+import org.jboss.galleon.xml.ProvisionedFeatureBuilder;
+import org.jboss.galleon.xml.ProvisionedStateXmlParser;
+import org.jboss.galleon.xml.ProvisionedStateXmlWriter;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class ProvisionedStateXmlWriterTestCase {
+
+    private static final String SCHEMA = "schema/galleon-provisioned-state-3_0.xsd";
+
+    private static final FPID FP1 = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp1", "1", "1.0.0.Final");
+    private static final FPID FP2 = LegacyGalleon1Universe.newFPID("org.jboss.pm.test:fp2", "1", "1.0.0.Final");
+
+    private static XmlParserValidator<ProvisionedState> validator;
+    private static Path tmpDir;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        URL xsd = ProvisionedStateXmlWriterTestCase.class.getClassLoader().getResource(SCHEMA);
+        validator = new XmlParserValidator<ProvisionedState>(Paths.get(xsd.toURI()), ProvisionedStateXmlParser.getInstance());
+        tmpDir = IoUtils.createRandomTmpDir();
+    }
+
+    @AfterClass
+    public static void after() throws Exception {
+        IoUtils.recursiveDelete(tmpDir);
+    }
+
+    @Test
+    public void testMarshallUnmarshall() throws Exception {
+        final ProvisionedState originalState = ProvisionedState.builder()
+                .addFeaturePack(ProvisionedFeaturePack.builder(FP1)
+                        .addPackage("p1")
+                        .addPackage("p2")
+                        .build())
+                .addFeaturePack(ProvisionedFeaturePack.forFPID(FP2))
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model1")
+                        .setName("main")
+                        .setProperty("prop1", "value1")
+                        .addLayer("model1", "layer1")
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specA", "a", "a1"))
+                                .setConfigParam("p1", "v1")
+                                .build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specA", "a", "a2")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP1.getProducer(), "specB", "b", "b1")).build())
+                        .addFeature(ProvisionedFeatureBuilder.builder(ResolvedFeatureId.create(FP2.getProducer(), "specC", "c", "c1")).build())
+                        .build())
+                .addConfig(ProvisionedConfigBuilder.builder()
+                        .setModel("model1")
+                        .setName("empty")
+                        .build())
+                .build();
+
+        final Path path = tmpDir.resolve("provisioned.xml");
+        ProvisionedStateXmlWriter.getInstance().write(originalState, path);
+        assertEquals(originalState, validator.validateAndParse(path));
+    }
+}
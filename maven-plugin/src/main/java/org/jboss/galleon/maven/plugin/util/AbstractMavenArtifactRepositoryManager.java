@@ -21,6 +21,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -33,6 +34,7 @@ import org.eclipse.aether.installation.InstallRequest;
 import org.eclipse.aether.installation.InstallationException;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.VersionRangeRequest;
 import org.eclipse.aether.resolution.VersionRangeResolutionException;
@@ -57,10 +59,8 @@ import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
  */
 public abstract class AbstractMavenArtifactRepositoryManager implements MavenRepoManager, RepositoryArtifactInstaller {
 
-    private static final MavenArtifactVersionRangeParser versionRangeParser = new MavenArtifactVersionRangeParser();
-
     private final RepositorySystem repoSystem;
-    private LocalArtifactVersionRangeResolver localRangeResolver;
+    private volatile LocalArtifactVersionRangeResolver localRangeResolver;
 
     public AbstractMavenArtifactRepositoryManager(final RepositorySystem repoSystem) {
         this.repoSystem = repoSystem;
@@ -79,11 +79,7 @@ public abstract class AbstractMavenArtifactRepositoryManager implements MavenRep
         if (artifact.isResolved()) {
             throw new MavenUniverseException("Artifact is already resolved");
         }
-        final ArtifactRequest request = new ArtifactRequest();
-        request.setArtifact(new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), artifact.getClassifier(),
-                artifact.getExtension(), artifact.getVersion()));
-
-        request.setRepositories(getRepositories());
+        final ArtifactRequest request = newArtifactRequest(artifact, getRepositories());
 
         final ArtifactResult result;
         try {
@@ -91,6 +87,61 @@ public abstract class AbstractMavenArtifactRepositoryManager implements MavenRep
         } catch (Exception e) {
             throw new MavenUniverseException(FpMavenErrors.artifactResolution(request.getArtifact().toString()), e);
         }
+        setPath(artifact, request, result);
+    }
+
+    /**
+     * Resolves all the artifacts that have not been resolved yet with a single request to the repository system,
+     * which downloads the missing ones in parallel.
+     */
+    @Override
+    public void resolveAll(Collection<MavenArtifact> artifacts) throws MavenUniverseException {
+        final List<MavenArtifact> unresolved = new ArrayList<>(artifacts.size());
+        for (MavenArtifact artifact : artifacts) {
+            if (!artifact.isResolved()) {
+                unresolved.add(artifact);
+            }
+        }
+        if (unresolved.isEmpty()) {
+            return;
+        }
+        if (unresolved.size() == 1) {
+            resolve(unresolved.get(0));
+            return;
+        }
+        final List<RemoteRepository> repositories = getRepositories();
+        final List<ArtifactRequest> requests = new ArrayList<>(unresolved.size());
+        for (MavenArtifact artifact : unresolved) {
+            requests.add(newArtifactRequest(artifact, repositories));
+        }
+
+        final List<ArtifactResult> results;
+        try {
+            results = repoSystem.resolveArtifacts(getSession(), requests);
+        } catch (ArtifactResolutionException e) {
+            for (ArtifactResult result : e.getResults()) {
+                if (!result.isResolved()) {
+                    throw new MavenUniverseException(FpMavenErrors.artifactResolution(result.getRequest().getArtifact().toString()), e);
+                }
+            }
+            throw new MavenUniverseException(e.getLocalizedMessage(), e);
+        } catch (Exception e) {
+            throw new MavenUniverseException(e.getLocalizedMessage(), e);
+        }
+        for (int i = 0; i < requests.size(); ++i) {
+            setPath(unresolved.get(i), requests.get(i), results.get(i));
+        }
+    }
+
+    private static ArtifactRequest newArtifactRequest(MavenArtifact artifact, List<RemoteRepository> repositories) {
+        final ArtifactRequest request = new ArtifactRequest();
+        request.setArtifact(new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), artifact.getClassifier(),
+                artifact.getExtension(), artifact.getVersion()));
+        request.setRepositories(repositories);
+        return request;
+    }
+
+    private static void setPath(MavenArtifact artifact, ArtifactRequest request, ArtifactResult result) throws MavenUniverseException {
         if (!result.isResolved()) {
             throw new MavenUniverseException(FpMavenErrors.artifactResolution(request.getArtifact().toString()));
         }
@@ -245,7 +296,8 @@ public abstract class AbstractMavenArtifactRepositoryManager implements MavenRep
         if (!Files.exists(artifactDir)) {
             throw MavenErrors.artifactNotFound(artifact, repoHome);
         }
-        final MavenArtifactVersionRange range = versionRangeParser.parseRange(artifact.getVersionRange());
+        // the parser keeps the parsing state, so it can't be shared between threads
+        final MavenArtifactVersionRange range = new MavenArtifactVersionRangeParser().parseRange(artifact.getVersionRange());
         if (lowestQualifier == null) {
             lowestQualifier = "";
         }
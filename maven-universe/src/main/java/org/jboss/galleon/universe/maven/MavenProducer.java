@@ -58,12 +58,48 @@ public class MavenProducer extends MavenProducerBase {
         }
     };
 
+    private final MavenParsedProducerCallbackHandler parsedProducerHandler = new MavenParsedProducerCallbackHandler() {
+        @Override
+        public void parsedName(String name) throws XMLStreamException {
+            if(!name.equals(name)) {
+                throw new XMLStreamException("Parsed producer name " + name + " does not match " + MavenProducer.this.name);
+            }
+        }
+
+        @Override
+        public void parsedFrequency(String frequency, boolean isDefault) throws XMLStreamException {
+            frequencies = CollectionUtils.add(frequencies, frequency);
+            if(isDefault) {
+                if(defaultFrequency != null) {
+                    throw new XMLStreamException("Failed to set frequency " + frequency + " as the default one, the default frequency has already been set to " + defaultFrequency);
+                }
+                defaultFrequency = frequency;
+            }
+        }
+
+        @Override
+        public void parsedFpGroupId(String groupId) {
+            fpGroupId = groupId;
+        }
+
+        @Override
+        public void parsedFpArtifactId(String artifactId) {
+            fpArtifactId = artifactId;
+        }
+
+        @Override
+        public void parsedDefaultChannel(String channelName) throws XMLStreamException {
+            defaultChannel = channelName;
+        }
+    };
+
     private Set<String> frequencies = Collections.emptySet();
     private String defaultFrequency;
     private Map<String, MavenChannel> channels = Collections.emptyMap();
     private String defaultChannel;
     private boolean fullyLoaded;
     private boolean resolvedLocally;
+    private MavenUniverseIndex index;
 
     public MavenProducer(String name, MavenRepoManager repoManager, MavenArtifact artifact) throws MavenUniverseException {
         this(name, repoManager, artifact, false);
@@ -78,58 +114,40 @@ public class MavenProducer extends MavenProducerBase {
     }
 
     private void init() throws MavenUniverseException {
+        index = MavenUniverseIndex.load(artifact.getPath());
+        if(index == null) {
+            parseProducerXml();
+        } else {
+            try {
+                if(!index.describeProducer(name, parsedProducerHandler)) {
+                    throw new MavenUniverseException("Failed to locate producer " + name + " in " + artifact.getCoordsAsString());
+                }
+            } catch (XMLStreamException e) {
+                throw new MavenUniverseException("Failed to initialize producer " + name + " from " + artifact.getCoordsAsString(), e);
+            }
+        }
+        if(defaultFrequency == null) {
+            defaultFrequency = DEFAULT_FREQUENCY;
+            if(!frequencies.contains(defaultFrequency)) {
+                frequencies = CollectionUtils.add(frequencies, defaultFrequency);
+            }
+        }
+    }
+
+    private void parseProducerXml() throws MavenUniverseException {
         try (FileSystem zipfs = ZipUtils.newFileSystem(artifact.getPath())) {
             final Path producerXml = getProducerXml(zipfs, name);
             if(!Files.exists(producerXml)) {
                 throw new MavenUniverseException("Failed to locate " + producerXml + " in " + artifact.getCoordsAsString());
             }
             try(BufferedReader reader = Files.newBufferedReader(producerXml)) {
-                MavenProducerXmlParser.getInstance().parse(reader, new MavenParsedProducerCallbackHandler() {
-                    @Override
-                    public void parsedName(String name) throws XMLStreamException {
-                        if(!name.equals(name)) {
-                            throw new XMLStreamException("Parsed producer name " + name + " does not match " + MavenProducer.this.name);
-                        }
-                    }
-
-                    @Override
-                    public void parsedFrequency(String frequency, boolean isDefault) throws XMLStreamException {
-                        frequencies = CollectionUtils.add(frequencies, frequency);
-                        if(isDefault) {
-                            if(defaultFrequency != null) {
-                                throw new XMLStreamException("Failed to set frequency " + frequency + " as the default one, the default frequency has already been set to " + defaultFrequency);
-                            }
-                            defaultFrequency = frequency;
-                        }
-                    }
-
-                    @Override
-                    public void parsedFpGroupId(String groupId) {
-                        fpGroupId = groupId;
-                    }
-
-                    @Override
-                    public void parsedFpArtifactId(String artifactId) {
-                        fpArtifactId = artifactId;
-                    }
-
-                    @Override
-                    public void parsedDefaultChannel(String channelName) throws XMLStreamException {
-                        defaultChannel = channelName;
-                    }
-                });
+                MavenProducerXmlParser.getInstance().parse(reader, parsedProducerHandler);
             } catch (XMLStreamException e) {
                 throw new MavenUniverseException("Failed to parse " + producerXml, e);
             }
         } catch (IOException e) {
             throw new MavenUniverseException("Failed to read " + artifact.getPath(), e);
         }
-        if(defaultFrequency == null) {
-            defaultFrequency = DEFAULT_FREQUENCY;
-            if(!frequencies.contains(defaultFrequency)) {
-                frequencies = CollectionUtils.add(frequencies, defaultFrequency);
-            }
-        }
     }
 
     public boolean isResolvedLocally() {
@@ -154,22 +172,22 @@ public class MavenProducer extends MavenProducerBase {
     }
 
     @Override
-    public boolean hasFrequencies() {
+    public synchronized boolean hasFrequencies() {
         return !frequencies.isEmpty();
     }
 
     @Override
-    public Collection<String> getFrequencies() {
+    public synchronized Collection<String> getFrequencies() {
         return frequencies;
     }
 
     @Override
-    public boolean hasDefaultFrequency() {
+    public synchronized boolean hasDefaultFrequency() {
         return defaultFrequency != null;
     }
 
     @Override
-    public String getDefaultFrequency() {
+    public synchronized String getDefaultFrequency() {
         return defaultFrequency;
     }
 
@@ -187,6 +205,14 @@ public class MavenProducer extends MavenProducerBase {
         } if(fullyLoaded) {
             return false;
         }
+        if(index != null) {
+            final MavenChannel channel = index.newChannel(this, name);
+            if(channel == null) {
+                return false;
+            }
+            channels = CollectionUtils.put(channels, name, channel);
+            return true;
+        }
         try (FileSystem zipfs = ZipUtils.newFileSystem(artifact.getPath())) {
             final Path channelXml = getChannelXml(zipfs, this.name, name);
             if(!Files.exists(channelXml)) {
@@ -244,22 +270,30 @@ public class MavenProducer extends MavenProducerBase {
         if(fullyLoaded) {
             return channels.values();
         }
-        try (FileSystem zipfs = ZipUtils.newFileSystem(artifact.getPath())) {
-            try(DirectoryStream<Path> stream = Files.newDirectoryStream(getChannelsDir(zipfs, name))) {
-                for(Path channelDir : stream) {
-                    final Path channelXml = channelDir.resolve(MAVEN_CHANNEL_XML);
-                    if(!Files.exists(channelXml)) {
-                        throw new MavenUniverseException("Required path does not exist: " + channelXml);
-                    }
-                    try(BufferedReader reader = Files.newBufferedReader(channelXml)) {
-                        MavenChannelSpecXmlParser.getInstance().parse(reader, parsedChannelHandler);
-                    } catch(IOException | XMLStreamException e) {
-                        throw new MavenUniverseException("Failed to read " + channelXml, e);
+        if(index != null) {
+            for(String channelName : index.getChannelNames(name)) {
+                if(!channels.containsKey(channelName)) {
+                    channels = CollectionUtils.put(channels, channelName, index.newChannel(this, channelName));
+                }
+            }
+        } else {
+            try (FileSystem zipfs = ZipUtils.newFileSystem(artifact.getPath())) {
+                try(DirectoryStream<Path> stream = Files.newDirectoryStream(getChannelsDir(zipfs, name))) {
+                    for(Path channelDir : stream) {
+                        final Path channelXml = channelDir.resolve(MAVEN_CHANNEL_XML);
+                        if(!Files.exists(channelXml)) {
+                            throw new MavenUniverseException("Required path does not exist: " + channelXml);
+                        }
+                        try(BufferedReader reader = Files.newBufferedReader(channelXml)) {
+                            MavenChannelSpecXmlParser.getInstance().parse(reader, parsedChannelHandler);
+                        } catch(IOException | XMLStreamException e) {
+                            throw new MavenUniverseException("Failed to read " + channelXml, e);
+                        }
                     }
                 }
+            } catch (IOException e) {
+                throw new MavenUniverseException("Failed to read " + artifact.getPath(), e);
             }
-        } catch (IOException e) {
-            throw new MavenUniverseException("Failed to read " + artifact.getPath(), e);
         }
         fullyLoaded = true;
         channels = CollectionUtils.unmodifiable(channels);
@@ -68,6 +68,8 @@ public class MavenUniverse extends MavenUniverseBase {
     private Map<String, MavenProducer> producers = new HashMap<>(DEFAULT_CAPACITY);
     private boolean fullyLoaded;
     private boolean resolvedLocally;
+    private MavenUniverseIndex index;
+    private boolean indexLoaded;
 
     private final ParsedCallbackHandler<MavenUniverse, MavenProducer> parsedProducerHandler = new ParsedCallbackHandler<MavenUniverse, MavenProducer>() {
         @Override
@@ -108,6 +110,8 @@ public class MavenUniverse extends MavenUniverseBase {
         } else {
             producers.clear();
         }
+        index = null;
+        indexLoaded = false;
         artifact.setPath(null);
         if (artifact.getVersionRange() != null) {
             repo.resolveLatestVersion(artifact, false);
@@ -134,6 +138,15 @@ public class MavenUniverse extends MavenUniverseBase {
         if(fullyLoaded) {
             return false;
         }
+        final MavenUniverseIndex index = getIndex();
+        if(index != null) {
+            final MavenArtifact producerArtifact = index.newProducerArtifact(producerName);
+            if(producerArtifact == null) {
+                return false;
+            }
+            producers.put(producerName, new MavenProducer(producerName, repo, producerArtifact));
+            return true;
+        }
         try (FileSystem zipfs = ZipUtils.newFileSystem(artifact.getPath())) {
             final Path producerXml = getProducerXml(zipfs, producerName);
             if(!Files.exists(producerXml)) {
@@ -180,25 +193,42 @@ public class MavenUniverse extends MavenUniverseBase {
         if(fullyLoaded) {
             return producers.values();
         }
-        try (FileSystem zipfs = ZipUtils.newFileSystem(artifact.getPath())) {
-            try(DirectoryStream<Path> stream = Files.newDirectoryStream(getProducerLocations(zipfs))) {
-                for(Path producerDir : stream) {
-                    final Path producerXml = producerDir.resolve(MAVEN_PRODUCER_XML);
-                    if(!Files.exists(producerXml)) {
-                        throw new MavenUniverseException(Errors.pathDoesNotExist(producerXml));
-                    }
-                    try(BufferedReader reader = Files.newBufferedReader(producerXml)) {
-                        MavenProducerSpecXmlParser.getInstance().parse(reader, parsedProducerHandler);
-                    } catch(IOException | XMLStreamException e) {
-                        throw new MavenUniverseException("Failed to read " + producerXml, e);
+        final MavenUniverseIndex index = getIndex();
+        if(index != null) {
+            for(String producerName : index.getProducerNames()) {
+                if(!producers.containsKey(producerName)) {
+                    producers.put(producerName, new MavenProducer(producerName, repo, index.newProducerArtifact(producerName)));
+                }
+            }
+        } else {
+            try (FileSystem zipfs = ZipUtils.newFileSystem(artifact.getPath())) {
+                try(DirectoryStream<Path> stream = Files.newDirectoryStream(getProducerLocations(zipfs))) {
+                    for(Path producerDir : stream) {
+                        final Path producerXml = producerDir.resolve(MAVEN_PRODUCER_XML);
+                        if(!Files.exists(producerXml)) {
+                            throw new MavenUniverseException(Errors.pathDoesNotExist(producerXml));
+                        }
+                        try(BufferedReader reader = Files.newBufferedReader(producerXml)) {
+                            MavenProducerSpecXmlParser.getInstance().parse(reader, parsedProducerHandler);
+                        } catch(IOException | XMLStreamException e) {
+                            throw new MavenUniverseException("Failed to read " + producerXml, e);
+                        }
                     }
                 }
+            } catch (IOException e) {
+                throw new MavenUniverseException("Failed to read " + artifact.getPath(), e);
             }
-        } catch (IOException e) {
-            throw new MavenUniverseException("Failed to read " + artifact.getPath(), e);
         }
         fullyLoaded = true;
         producers = CollectionUtils.unmodifiable(producers);
         return producers.values();
     }
+
+    private MavenUniverseIndex getIndex() {
+        if(!indexLoaded) {
+            index = MavenUniverseIndex.load(artifact.getPath());
+            indexLoaded = true;
+        }
+        return index;
+    }
 }
@@ -32,4 +32,7 @@ public interface MavenUniverseConstants {
     String MAVEN_PRODUCER_XML = "maven-producer.xml";
     String PRODUCER = "producer";
     String UNIVERSE = "universe";
+
+    // SYSTEM PROPERTIES
+    String PROP_UNIVERSE_INDEX_DIR = "galleon.universe.index.dir";
 }
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven;
+
+import static org.jboss.galleon.universe.maven.MavenUniverseConstants.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jboss.galleon.universe.maven.xml.MavenChannelSpecXmlParser;
+import org.jboss.galleon.universe.maven.xml.MavenParsedProducerCallbackHandler;
+import org.jboss.galleon.universe.maven.xml.MavenProducerXmlParser;
+import org.jboss.galleon.universe.maven.xml.ParsedCallbackHandler;
+import org.jboss.galleon.util.HashUtils;
+import org.jboss.galleon.util.PropertyUtils;
+import org.jboss.galleon.util.ZipArchive;
+
+/**
+ * On-disk index of the producers and channels described in a universe or producer artifact.
+ *
+ * Without the index, the artifact is opened and a descriptor is parsed every time a producer
+ * or a channel is looked up. The index is built in a single pass over the artifact the first time
+ * the artifact is navigated and is stored in the directory configured with the
+ * {@link MavenUniverseConstants#PROP_UNIVERSE_INDEX_DIR} system property, in a file named after the path
+ * and the checksum of the artifact, so a changed artifact is indexed again.
+ *
+ * The index includes the producer locations of a universe, i.e. the producer artifact coordinates and version ranges,
+ * and, for each producer described in the artifact, its frequencies, the feature-pack groupId and artifactId,
+ * the default channel and the channel version ranges and patterns.
+ *
+ * @author Alexey Loubyansky
+ */
+class MavenUniverseIndex {
+
+    private static class ProducerLocation {
+        final String groupId;
+        final String artifactId;
+        final String versionRange;
+
+        ProducerLocation(String groupId, String artifactId, String versionRange) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.versionRange = versionRange;
+        }
+    }
+
+    private static class ProducerEntry {
+        final List<String> frequencies = new ArrayList<>();
+        final List<Boolean> defaultFrequencies = new ArrayList<>();
+        String fpGroupId;
+        String fpArtifactId;
+        String defaultChannel;
+        final Map<String, MavenChannel> channels = new LinkedHashMap<>();
+    }
+
+    private static final int MAGIC = 0x474c4e55; // GLNU
+    private static final int VERSION = 1;
+    private static final String TMP_PREFIX = ".";
+
+    private static final String PRODUCERS_DIR = GALLEON + '/' + UNIVERSE + '/' + PRODUCER;
+    private static final String LOCATIONS_DIR = PRODUCERS_DIR + '/' + LOCATIONS;
+
+    /**
+     * Returns the index of the artifact, building it first if the artifact hasn't been indexed yet,
+     * or null if the index directory hasn't been configured or the artifact couldn't be indexed.
+     *
+     * @param artifact  universe or producer artifact
+     * @return  index of the artifact or null
+     */
+    static MavenUniverseIndex load(Path artifact) {
+        final String dir = PropertyUtils.getSystemProperty(PROP_UNIVERSE_INDEX_DIR);
+        if(dir == null || dir.isEmpty() || artifact == null) {
+            return null;
+        }
+        final Path indexDir = Paths.get(dir);
+        final Path indexFile;
+        try {
+            indexFile = indexDir.resolve(HashUtils.hash(artifact.toAbsolutePath() + ":" + HashUtils.hashFile(artifact)));
+        } catch (IOException e) {
+            return null;
+        }
+        if(Files.exists(indexFile)) {
+            try {
+                return read(indexFile);
+            } catch (IOException e) {
+                // index it again
+            }
+        }
+        final MavenUniverseIndex index;
+        try {
+            index = build(artifact);
+        } catch (IOException | XMLStreamException e) {
+            // the artifact will be read directly reporting the error, if it's relevant
+            return null;
+        }
+        final Path tmpFile = indexDir.resolve(TMP_PREFIX + UUID.randomUUID());
+        try {
+            Files.createDirectories(indexDir);
+            index.write(tmpFile);
+            Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // the index is still valid for this instance
+            try {
+                Files.deleteIfExists(tmpFile);
+            } catch (IOException e1) {
+            }
+        }
+        return index;
+    }
+
+    private final Map<String, ProducerLocation> locations = new LinkedHashMap<>();
+    private final Map<String, ProducerEntry> producers = new LinkedHashMap<>();
+
+    private MavenUniverseIndex() {
+    }
+
+    /**
+     * Names of the producers whose locations are described in the universe artifact.
+     *
+     * @return  producer names
+     */
+    Collection<String> getProducerNames() {
+        return locations.keySet();
+    }
+
+    /**
+     * Creates an artifact for the producer location described in the universe artifact.
+     *
+     * @param producerName  producer name
+     * @return  producer artifact or null, if the location of the producer is not described in the universe artifact
+     */
+    MavenArtifact newProducerArtifact(String producerName) {
+        final ProducerLocation location = locations.get(producerName);
+        if(location == null) {
+            return null;
+        }
+        final MavenArtifact artifact = new MavenArtifact();
+        artifact.setGroupId(location.groupId);
+        artifact.setArtifactId(location.artifactId);
+        artifact.setVersionRange(location.versionRange);
+        return artifact;
+    }
+
+    /**
+     * Passes the indexed description of the producer to the handler in the same way
+     * the producer parser would.
+     *
+     * @param producerName  producer name
+     * @param handler  producer description handler
+     * @return  false if the producer is not described in the artifact, otherwise true
+     * @throws XMLStreamException  in case the handler rejected the description
+     */
+    boolean describeProducer(String producerName, MavenParsedProducerCallbackHandler handler) throws XMLStreamException {
+        final ProducerEntry producer = producers.get(producerName);
+        if(producer == null) {
+            return false;
+        }
+        handler.parsedName(producerName);
+        for(int i = 0; i < producer.frequencies.size(); ++i) {
+            handler.parsedFrequency(producer.frequencies.get(i), producer.defaultFrequencies.get(i));
+        }
+        if(producer.fpGroupId != null) {
+            handler.parsedFpGroupId(producer.fpGroupId);
+        }
+        if(producer.fpArtifactId != null) {
+            handler.parsedFpArtifactId(producer.fpArtifactId);
+        }
+        if(producer.defaultChannel != null) {
+            handler.parsedDefaultChannel(producer.defaultChannel);
+        }
+        return true;
+    }
+
+    /**
+     * Names of the channels of the producer described in the artifact.
+     *
+     * @param producerName  producer name
+     * @return  channel names
+     */
+    Collection<String> getChannelNames(String producerName) {
+        final ProducerEntry producer = producers.get(producerName);
+        return producer == null ? Collections.emptySet() : producer.channels.keySet();
+    }
+
+    /**
+     * Creates the channel of the producer described in the artifact.
+     *
+     * @param producer  producer
+     * @param channelName  channel name
+     * @return  channel or null, if the channel is not described in the artifact
+     * @throws MavenUniverseException  in case the channel could not be created
+     */
+    MavenChannel newChannel(MavenProducerBase producer, String channelName) throws MavenUniverseException {
+        final ProducerEntry entry = producers.get(producer.getName());
+        if(entry == null) {
+            return null;
+        }
+        final MavenChannel channel = entry.channels.get(channelName);
+        if(channel == null) {
+            return null;
+        }
+        return new MavenChannel(producer, channelName, channel.getVersionRange(), channel.getVersionIncludeRegex(), channel.getVersionExcludeRegex());
+    }
+
+    private static MavenUniverseIndex build(Path artifact) throws IOException, XMLStreamException {
+        final MavenUniverseIndex index = new MavenUniverseIndex();
+        try(ZipArchive archive = ZipArchive.open(artifact)) {
+            for(String producerName : archive.list(LOCATIONS_DIR)) {
+                final String producerXml = LOCATIONS_DIR + '/' + producerName + '/' + MAVEN_PRODUCER_XML;
+                if(!archive.exists(producerXml)) {
+                    throw new IOException(producerXml + " does not exist");
+                }
+                try(InputStream in = archive.openStream(producerXml)) {
+                    index.locations.put(producerName, readLocation(in));
+                }
+            }
+            for(String producerName : archive.list(PRODUCERS_DIR)) {
+                final String producerDir = PRODUCERS_DIR + '/' + producerName;
+                final String producerXml = producerDir + '/' + MAVEN_PRODUCER_XML;
+                if(LOCATIONS.equals(producerName) || !archive.exists(producerXml)) {
+                    continue;
+                }
+                final ProducerEntry producer = new ProducerEntry();
+                try(Reader reader = newReader(archive, producerXml)) {
+                    MavenProducerXmlParser.getInstance().parse(reader, new MavenParsedProducerCallbackHandler() {
+                        @Override
+                        public void parsedName(String name) {
+                        }
+
+                        @Override
+                        public void parsedFrequency(String frequency, boolean isDefault) {
+                            producer.frequencies.add(frequency);
+                            producer.defaultFrequencies.add(isDefault);
+                        }
+
+                        @Override
+                        public void parsedDefaultChannel(String defaultChannel) {
+                            producer.defaultChannel = defaultChannel;
+                        }
+
+                        @Override
+                        public void parsedFpGroupId(String groupId) {
+                            producer.fpGroupId = groupId;
+                        }
+
+                        @Override
+                        public void parsedFpArtifactId(String artifactId) {
+                            producer.fpArtifactId = artifactId;
+                        }
+                    });
+                }
+                final String channelsDir = producerDir + '/' + CHANNELS;
+                for(String channelName : archive.list(channelsDir)) {
+                    final String channelXml = channelsDir + '/' + channelName + '/' + MAVEN_CHANNEL_XML;
+                    if(!archive.exists(channelXml)) {
+                        throw new IOException(channelXml + " does not exist");
+                    }
+                    try(Reader reader = newReader(archive, channelXml)) {
+                        MavenChannelSpecXmlParser.getInstance().parse(reader, new ParsedCallbackHandler<MavenProducerBase, MavenChannel>() {
+                            @Override
+                            public MavenProducerBase getParent() {
+                                return null;
+                            }
+
+                            @Override
+                            public void parsed(MavenChannel channel) {
+                                producer.channels.put(channel.getName(), channel);
+                            }
+                        });
+                    }
+                }
+                index.producers.put(producerName, producer);
+            }
+        }
+        return index;
+    }
+
+    private static Reader newReader(ZipArchive archive, String path) throws IOException {
+        return new InputStreamReader(archive.openStream(path), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the artifact coordinates of a producer location, which is what the producer spec parser does
+     * before it creates and resolves the producer.
+     */
+    private static ProducerLocation readLocation(InputStream in) throws XMLStreamException {
+        final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(in);
+        try {
+            String groupId = null;
+            String artifactId = null;
+            String versionRange = null;
+            while(reader.hasNext()) {
+                if(reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch(reader.getLocalName()) {
+                    case "groupId":
+                        groupId = reader.getElementText();
+                        break;
+                    case "artifactId":
+                        artifactId = reader.getElementText();
+                        break;
+                    case "version-range":
+                        versionRange = reader.getElementText();
+                        break;
+                    default:
+                }
+            }
+            return new ProducerLocation(groupId, artifactId, versionRange);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void write(Path file) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(locations.size());
+            for(Map.Entry<String, ProducerLocation> entry : locations.entrySet()) {
+                out.writeUTF(entry.getKey());
+                final ProducerLocation location = entry.getValue();
+                writeNullable(out, location.groupId);
+                writeNullable(out, location.artifactId);
+                writeNullable(out, location.versionRange);
+            }
+            out.writeInt(producers.size());
+            for(Map.Entry<String, ProducerEntry> entry : producers.entrySet()) {
+                out.writeUTF(entry.getKey());
+                final ProducerEntry producer = entry.getValue();
+                out.writeInt(producer.frequencies.size());
+                for(int i = 0; i < producer.frequencies.size(); ++i) {
+                    out.writeUTF(producer.frequencies.get(i));
+                    out.writeBoolean(producer.defaultFrequencies.get(i));
+                }
+                writeNullable(out, producer.fpGroupId);
+                writeNullable(out, producer.fpArtifactId);
+                writeNullable(out, producer.defaultChannel);
+                out.writeInt(producer.channels.size());
+                for(MavenChannel channel : producer.channels.values()) {
+                    out.writeUTF(channel.getName());
+                    writeNullable(out, channel.getVersionRange());
+                    writeNullable(out, channel.getVersionIncludeRegex());
+                    writeNullable(out, channel.getVersionExcludeRegex());
+                }
+            }
+        }
+    }
+
+    private static MavenUniverseIndex read(Path file) throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported index " + file);
+            }
+            final MavenUniverseIndex index = new MavenUniverseIndex();
+            int count = in.readInt();
+            while(count-- > 0) {
+                index.locations.put(in.readUTF(), new ProducerLocation(readNullable(in), readNullable(in), readNullable(in)));
+            }
+            count = in.readInt();
+            while(count-- > 0) {
+                final String producerName = in.readUTF();
+                final ProducerEntry producer = new ProducerEntry();
+                int frequencies = in.readInt();
+                while(frequencies-- > 0) {
+                    producer.frequencies.add(in.readUTF());
+                    producer.defaultFrequencies.add(in.readBoolean());
+                }
+                producer.fpGroupId = readNullable(in);
+                producer.fpArtifactId = readNullable(in);
+                producer.defaultChannel = readNullable(in);
+                int channels = in.readInt();
+                while(channels-- > 0) {
+                    final MavenChannel channel = new MavenChannel(null, in.readUTF(), readNullable(in), readNullable(in), readNullable(in));
+                    producer.channels.put(channel.getName(), channel);
+                }
+                index.producers.put(producerName, producer);
+            }
+            return index;
+        } catch (MavenUniverseException e) {
+            throw new IOException("Failed to read " + file, e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -16,11 +16,17 @@
  */
 package org.jboss.galleon.universe.maven.repo;
 
+import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.NoSuchElementException;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.jboss.galleon.universe.maven.MavenArtifact;
@@ -29,14 +35,106 @@ import org.jboss.galleon.universe.maven.MavenLatestVersionNotAvailableException;
 import org.jboss.galleon.universe.maven.MavenUniverseException;
 
 /**
+ * Resolves the latest versions of artifacts available in a local Maven repository.
+ *
+ * The versions available for an artifact are read from the local repository once, parsed and kept sorted
+ * in an index which is re-read only when the last modified time of the artifact directory changes.
  *
  * @author Alexey Loubyansky
  */
 public class LocalArtifactVersionRangeResolver {
 
-    private static final MavenArtifactVersionRangeParser versionRangeParser = new MavenArtifactVersionRangeParser();
+    /**
+     * The modification time of a directory written this recently may not reflect changes made
+     * right after the directory was listed, since the resolution of the timestamps can be as coarse as seconds.
+     */
+    private static final long RACY_TIME_WINDOW = 2000;
+
+    private static class IndexedVersion {
+        final String name;
+        final MavenArtifactVersion version;
+        // the version the snapshots are compared by, i.e. without the snapshot suffix
+        final MavenArtifactVersion comparedVersion;
+
+        IndexedVersion(String name) {
+            this.name = name;
+            this.version = new MavenArtifactVersion(name);
+            this.comparedVersion = version.isSnapshot()
+                    ? new MavenArtifactVersion(name.substring(0, name.length() - MavenArtifactVersion.SNAPSHOT.length() - 1))
+                    : version;
+        }
+    }
+
+    /**
+     * Orders the versions the way {@link MavenArtifactVersion#getLatest(Iterable, String, Pattern, Pattern)} does,
+     * i.e. a snapshot is lower than the release of the same version.
+     */
+    private static final Comparator<IndexedVersion> VERSION_ORDER = new Comparator<IndexedVersion>() {
+        @Override
+        public int compare(IndexedVersion o1, IndexedVersion o2) {
+            final int c = o1.comparedVersion.compareTo(o2.comparedVersion);
+            if(c != 0) {
+                return c;
+            }
+            return o1.version.isSnapshot() == o2.version.isSnapshot() ? 0 : (o1.version.isSnapshot() ? -1 : 1);
+        }
+    };
+
+    private static class VersionIndex {
+        final FileTime lastModified;
+        final boolean racy;
+        // sorted in the ascending order
+        final IndexedVersion[] versions;
+
+        VersionIndex(Path artifactDir, FileTime lastModified) throws IOException {
+            this.lastModified = lastModified;
+            final long listedTime = System.currentTimeMillis();
+            final List<IndexedVersion> list = new ArrayList<>();
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(artifactDir)) {
+                for(Path path : stream) {
+                    if(Files.isDirectory(path)) {
+                        list.add(new IndexedVersion(path.getFileName().toString()));
+                    }
+                }
+            }
+            Collections.sort(list, VERSION_ORDER);
+            versions = list.toArray(new IndexedVersion[list.size()]);
+            racy = listedTime - lastModified.toMillis() < RACY_TIME_WINDOW;
+        }
+
+        boolean isUpToDate(FileTime lastModified) {
+            return !racy && this.lastModified.equals(lastModified);
+        }
+
+        String getLatest(MavenArtifactVersionRange range, String lowestQualifier, Pattern includeVersion, Pattern excludeVersion) throws MavenUniverseException {
+            final boolean snapshotsAllowed = lowestQualifier.equalsIgnoreCase(MavenArtifactVersion.SNAPSHOT);
+            int i = versions.length;
+            while(--i >= 0) {
+                final IndexedVersion next = versions[i];
+                if(!range.includesVersion(next.version)) {
+                    continue;
+                }
+                if (includeVersion != null && !includeVersion.matcher(next.name).matches()) {
+                    continue;
+                }
+                if (excludeVersion != null && excludeVersion.matcher(next.name).matches()) {
+                    continue;
+                }
+                if(next.version.isSnapshot()) {
+                    if(!snapshotsAllowed) {
+                        continue;
+                    }
+                } else if(!snapshotsAllowed && !next.version.isQualifierHigher(lowestQualifier, true)) {
+                    continue;
+                }
+                return next.name;
+            }
+            return null;
+        }
+    }
 
     protected final Path repoHome;
+    private final Map<String, VersionIndex> versionIndexes = new ConcurrentHashMap<>();
 
     public LocalArtifactVersionRangeResolver(Path localRepo) {
         this.repoHome = localRepo;
@@ -90,60 +188,32 @@ public class LocalArtifactVersionRangeResolver {
         if(!Files.exists(artifactDir)) {
             throw MavenErrors.artifactNotFound(artifact, repoHome);
         }
-        final MavenArtifactVersionRange range = versionRangeParser.parseRange(artifact.getVersionRange());
+        // the parser keeps the parsing state, so it can't be shared between threads
+        final MavenArtifactVersionRange range = new MavenArtifactVersionRangeParser().parseRange(artifact.getVersionRange());
         if(lowestQualifier == null) {
             lowestQualifier = "";
         }
-        try(DirectoryStream<Path> stream = Files.newDirectoryStream(artifactDir)) {
-
-            final Iterable<String> versions = new Iterable<String>() {
-                @Override
-                public Iterator<String> iterator() {
-                    return new Iterator<String>() {
-                        final Iterator<Path> i = stream.iterator();
-                        Path nextPath = toNext(range);
-
-                        @Override
-                        public boolean hasNext() {
-                            return nextPath != null;
-                        }
-
-                        @Override
-                        public String next() {
-                            if(nextPath != null) {
-                                final String s = nextPath.getFileName().toString();
-                                nextPath = toNext(range);
-                                return s;
-                            }
-                            throw new NoSuchElementException();
-                        }
-
-                        private Path toNext(final MavenArtifactVersionRange range) {
-                            while(i.hasNext()) {
-                                final Path path = i.next();
-                                if(!Files.isDirectory(path)) {
-                                    continue;
-                                }
-                                final MavenArtifactVersion next = new MavenArtifactVersion(path.getFileName().toString());
-                                if(range.includesVersion(next)) {
-                                    return path;
-                                }
-                            }
-                            return null;
-                        }
-                    };
-                }
-            };
-
-            final MavenArtifactVersion latest = MavenArtifactVersion.getLatest(versions, lowestQualifier, includeVersion, excludeVersion);
+        try {
+            final String latest = getVersionIndex(artifact, artifactDir).getLatest(range, lowestQualifier, includeVersion, excludeVersion);
             if(latest == null) {
                 throw new MavenLatestVersionNotAvailableException(MavenErrors.failedToResolveLatestVersion(artifact.getCoordsAsString()));
             }
-            return artifactDir.resolve(latest.toString());
+            return artifactDir.resolve(latest);
         } catch(MavenUniverseException e) {
             throw e;
         } catch (Exception e) {
             throw new MavenUniverseException(MavenErrors.failedToResolveLatestVersion(artifact.getCoordsAsString()), e);
         }
     }
+
+    private VersionIndex getVersionIndex(MavenArtifact artifact, Path artifactDir) throws IOException {
+        final String key = artifact.getGroupId() + ':' + artifact.getArtifactId();
+        final FileTime lastModified = Files.getLastModifiedTime(artifactDir);
+        VersionIndex index = versionIndexes.get(key);
+        if(index == null || !index.isUpToDate(lastModified)) {
+            index = new VersionIndex(artifactDir, lastModified);
+            versionIndexes.put(key, index);
+        }
+        return index;
+    }
 }
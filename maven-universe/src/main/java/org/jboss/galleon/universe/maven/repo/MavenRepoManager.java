@@ -20,7 +20,10 @@ import org.jboss.galleon.universe.maven.MavenUniverseConstants;
 import org.jboss.galleon.universe.maven.MavenUniverseException;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.jboss.galleon.ProvisioningException;
@@ -47,8 +50,37 @@ public interface MavenRepoManager extends RepositoryArtifactResolver {
         return artifact.getPath();
     }
 
+    @Override
+    default Map<String, Path> resolveLocations(Collection<String> locations) throws ProvisioningException {
+        final Map<String, MavenArtifact> artifacts = new LinkedHashMap<>(locations.size());
+        for(String location : locations) {
+            artifacts.put(location, MavenArtifact.fromString(location));
+        }
+        resolveAll(artifacts.values());
+        final Map<String, Path> paths = new LinkedHashMap<>(artifacts.size());
+        for(Map.Entry<String, MavenArtifact> entry : artifacts.entrySet()) {
+            paths.put(entry.getKey(), entry.getValue().getPath());
+        }
+        return paths;
+    }
+
     void resolve(MavenArtifact artifact) throws MavenUniverseException;
 
+    /**
+     * Resolves the artifacts that have not been resolved yet. The default implementation resolves
+     * them one by one, implementations that can download several artifacts in parallel should override it.
+     *
+     * @param artifacts  artifacts to resolve
+     * @throws MavenUniverseException  in case any of the artifacts could not be resolved
+     */
+    default void resolveAll(Collection<MavenArtifact> artifacts) throws MavenUniverseException {
+        for(MavenArtifact artifact : artifacts) {
+            if(!artifact.isResolved()) {
+                resolve(artifact);
+            }
+        }
+    }
+
     boolean isResolved(MavenArtifact artifact) throws MavenUniverseException;
 
     boolean isLatestVersionResolved(MavenArtifact artifact, String lowestQualifier) throws MavenUniverseException;
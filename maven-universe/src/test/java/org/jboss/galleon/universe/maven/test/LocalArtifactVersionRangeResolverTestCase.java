@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jboss.galleon.universe.maven.MavenArtifact;
+import org.jboss.galleon.universe.maven.MavenLatestVersionNotAvailableException;
+import org.jboss.galleon.universe.maven.repo.LocalArtifactVersionRangeResolver;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class LocalArtifactVersionRangeResolverTestCase {
+
+    private Path repoHome;
+    private LocalArtifactVersionRangeResolver resolver;
+
+    @Before
+    public void before() throws Exception {
+        repoHome = IoUtils.createRandomTmpDir();
+        resolver = new LocalArtifactVersionRangeResolver(repoHome);
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(repoHome);
+    }
+
+    @Test
+    public void testLatestFinalInRange() throws Exception {
+        addVersions("1.0.0.Final", "1.1.0.Alpha1", "1.1.0.Final-SNAPSHOT", "2.0.0.Final", "0.9.0.Final");
+        Assert.assertEquals("1.0.0.Final", resolver.getLatestVersion(newArtifact("[1.0,2.0)"), null));
+        Assert.assertEquals("2.0.0.Final", resolver.getLatestVersion(newArtifact("[1.0,)"), null));
+        Assert.assertEquals("1.1.0.Alpha1", resolver.getLatestVersion(newArtifact("[1.0,2.0)"), "alpha"));
+        Assert.assertEquals("1.1.0.Final-SNAPSHOT", resolver.getLatestVersion(newArtifact("[1.0,2.0)"), "snapshot"));
+    }
+
+    @Test
+    public void testReleasePreferredToSnapshot() throws Exception {
+        addVersions("1.0.0.Final-SNAPSHOT", "1.0.0.Final", "0.9.0.Final");
+        Assert.assertEquals("1.0.0.Final", resolver.getLatestVersion(newArtifact("[0.1,)"), "snapshot"));
+    }
+
+    @Test
+    public void testAddedVersion() throws Exception {
+        addVersions("1.0.0.Final");
+        Assert.assertEquals("1.0.0.Final", resolver.getLatestVersion(newArtifact("[1.0,)"), null));
+        addVersions("1.0.1.Final");
+        Assert.assertEquals("1.0.1.Final", resolver.getLatestVersion(newArtifact("[1.0,)"), null));
+    }
+
+    @Test
+    public void testNoVersionInRange() throws Exception {
+        addVersions("1.0.0.Final", "2.0.0.Alpha1");
+        try {
+            resolver.getLatestVersion(newArtifact("[2.0,)"), null);
+            Assert.fail("No version expected");
+        } catch (MavenLatestVersionNotAvailableException e) {
+            // expected
+        }
+    }
+
+    private void addVersions(String... versions) throws Exception {
+        final Path artifactDir = repoHome.resolve("org").resolve("jboss").resolve("galleon").resolve("test").resolve("artifact");
+        for(String version : versions) {
+            Files.createDirectories(artifactDir.resolve(version));
+        }
+    }
+
+    private static MavenArtifact newArtifact(String versionRange) {
+        return new MavenArtifact().setGroupId("org.jboss.galleon.test").setArtifactId("artifact").setExtension("jar").setVersionRange(versionRange);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven.test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.jboss.galleon.universe.maven.MavenArtifact;
+import org.jboss.galleon.universe.maven.repo.SimplisticMavenRepoManager;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class MavenRepoManagerResolveAllTestCase {
+
+    private static final String GROUP_ID = "org.jboss.galleon.test";
+
+    private Path workDir;
+    private SimplisticMavenRepoManager repo;
+
+    @Before
+    public void before() throws Exception {
+        workDir = IoUtils.createRandomTmpDir();
+        repo = SimplisticMavenRepoManager.getInstance(workDir.resolve("repo"));
+        install("a");
+        install("b");
+    }
+
+    @After
+    public void after() throws Exception {
+        IoUtils.recursiveDelete(workDir);
+    }
+
+    @Test
+    public void testResolveAll() throws Exception {
+        final MavenArtifact a = newArtifact("a");
+        final MavenArtifact b = newArtifact("b");
+        repo.resolve(a);
+        final Path aPath = a.getPath();
+
+        repo.resolveAll(Arrays.asList(a, b));
+        Assert.assertSame(aPath, a.getPath());
+        Assert.assertTrue(b.isResolved());
+        Assert.assertEquals("b", new String(Files.readAllBytes(b.getPath())));
+    }
+
+    @Test
+    public void testResolveLocations() throws Exception {
+        final String a = newArtifact("a").getCoordsAsString();
+        final String b = newArtifact("b").getCoordsAsString();
+        final Map<String, Path> paths = repo.resolveLocations(Arrays.asList(a, b));
+        Assert.assertEquals(Arrays.asList(a, b), Arrays.asList(paths.keySet().toArray()));
+        Assert.assertEquals("a", new String(Files.readAllBytes(paths.get(a))));
+        Assert.assertEquals("b", new String(Files.readAllBytes(paths.get(b))));
+    }
+
+    private void install(String artifactId) throws Exception {
+        final Path file = workDir.resolve(artifactId + ".jar");
+        Files.write(file, artifactId.getBytes());
+        repo.install(newArtifact(artifactId), file);
+    }
+
+    private static MavenArtifact newArtifact(String artifactId) {
+        return new MavenArtifact().setGroupId(GROUP_ID).setArtifactId(artifactId).setVersion("1.0.0.Final").setExtension("jar");
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016-2020 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.galleon.universe.maven.test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import org.jboss.galleon.universe.maven.MavenArtifact;
+import org.jboss.galleon.universe.maven.MavenChannel;
+import org.jboss.galleon.universe.maven.MavenProducer;
+import org.jboss.galleon.universe.maven.MavenProducerInstaller;
+import org.jboss.galleon.universe.maven.MavenUniverse;
+import org.jboss.galleon.universe.maven.MavenUniverseConstants;
+import org.jboss.galleon.universe.maven.MavenUniverseInstaller;
+import org.jboss.galleon.universe.maven.repo.SimplisticMavenRepoManager;
+import org.jboss.galleon.util.IoUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ * @author Alexey Loubyansky
+ */
+public class MavenUniverseIndexTestCase {
+
+    private static final String GROUP_ID = "org.jboss.galleon.test";
+
+    private Path workDir;
+    private Path indexDir;
+    private SimplisticMavenRepoManager repo;
+
+    @Before
+    public void before() throws Exception {
+        workDir = IoUtils.createRandomTmpDir();
+        indexDir = workDir.resolve("index");
+        repo = SimplisticMavenRepoManager.getInstance(workDir.resolve("repo"));
+
+        final MavenProducerInstaller producer = new MavenProducerInstaller("producer1", repo,
+                new MavenArtifact().setGroupId(GROUP_ID).setArtifactId("producer1").setVersion("1.0.0.Final"),
+                GROUP_ID, "producer1-fp");
+        producer.addFrequencies("alpha", "beta");
+        producer.addChannel("1", "[1.0,2.0)");
+        producer.addChannel("2", "[2.0,3.0)", true, "2\\..*", ".*-SNAPSHOT");
+        producer.install();
+
+        final MavenUniverseInstaller universe = new MavenUniverseInstaller(repo, newUniverseArtifact());
+        universe.addProducer("producer1", GROUP_ID, "producer1", "[1.0,2.0)");
+        universe.install();
+
+        System.setProperty(MavenUniverseConstants.PROP_UNIVERSE_INDEX_DIR, indexDir.toString());
+    }
+
+    @After
+    public void after() throws Exception {
+        System.clearProperty(MavenUniverseConstants.PROP_UNIVERSE_INDEX_DIR);
+        IoUtils.recursiveDelete(workDir);
+    }
+
+    @Test
+    public void testIndexedNavigation() throws Exception {
+        assertUniverse(new MavenUniverse(repo, newUniverseArtifact()));
+        // the universe and the producer artifacts
+        Assert.assertEquals(2, countIndexes());
+
+        assertUniverse(new MavenUniverse(repo, newUniverseArtifact()));
+        Assert.assertEquals(2, countIndexes());
+
+        final MavenUniverse universe = new MavenUniverse(repo, newUniverseArtifact());
+        Assert.assertFalse(universe.hasProducer("producer2"));
+        Assert.assertTrue(universe.hasProducer("producer1"));
+        Assert.assertFalse(universe.getProducer("producer1").hasChannel("3"));
+        Assert.assertEquals("[1.0,2.0)", universe.getProducer("producer1").getChannel("1").getVersionRange());
+    }
+
+    @Test
+    public void testSameResultsWithoutIndex() throws Exception {
+        System.clearProperty(MavenUniverseConstants.PROP_UNIVERSE_INDEX_DIR);
+        assertUniverse(new MavenUniverse(repo, newUniverseArtifact()));
+        Assert.assertFalse(Files.exists(indexDir));
+    }
+
+    private void assertUniverse(MavenUniverse universe) throws Exception {
+        Assert.assertEquals(1, universe.getProducers().size());
+        final MavenProducer producer = universe.getProducer("producer1");
+        Assert.assertEquals(GROUP_ID, producer.getFeaturePackGroupId());
+        Assert.assertEquals("producer1-fp", producer.getFeaturePackArtifactId());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("alpha", "beta", "final")), new HashSet<>(producer.getFrequencies()));
+        Assert.assertEquals("final", producer.getDefaultFrequency());
+        Assert.assertEquals("2", producer.getDefaultChannelName());
+        Assert.assertEquals(2, producer.getChannels().size());
+        final MavenChannel channel = producer.getChannel(null);
+        Assert.assertEquals("2", channel.getName());
+        Assert.assertEquals("[2.0,3.0)", channel.getVersionRange());
+        Assert.assertEquals("2\\..*", channel.getVersionIncludeRegex());
+        Assert.assertEquals(".*-SNAPSHOT", channel.getVersionExcludeRegex());
+        Assert.assertEquals(GROUP_ID, channel.getFeaturePackGroupId());
+    }
+
+    private long countIndexes() throws IOException {
+        try(Stream<Path> stream = Files.list(indexDir)) {
+            return stream.count();
+        }
+    }
+
+    private static MavenArtifact newUniverseArtifact() {
+        return new MavenArtifact().setGroupId(GROUP_ID).setArtifactId("universe1").setVersion("1.0.0.Final");
+    }
+}